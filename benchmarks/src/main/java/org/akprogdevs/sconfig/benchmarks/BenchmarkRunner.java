@@ -0,0 +1,35 @@
+package org.akprogdevs.sconfig.benchmarks;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Entry point of the benchmark jar. It accepts the usual JMH command line options (for example
+ * a benchmark name pattern, or {@code -p properties=1000}) and always adds the GC profiler, so
+ * every result comes with the bytes allocated per operation ({@code gc.alloc.rate.norm}).
+ * 
+ * @author AK Program Developers
+ *
+ */
+public final class BenchmarkRunner {
+	
+	private BenchmarkRunner() {
+		
+	}
+	
+	public static void main(String[] args) throws RunnerException, CommandLineOptionException {
+		
+		Options options = new OptionsBuilder()
+				.parent(new CommandLineOptions(args))
+				.addProfiler(GCProfiler.class)
+				.build();
+		
+		new Runner(options).run();
+	}
+
+}
@@ -0,0 +1,89 @@
+package org.akprogdevs.sconfig.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.akprogdevs.sconfig.classes.Configuration;
+import org.akprogdevs.sconfig.concurrent.ConcurrentConfiguration;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Several threads updating and reading a property of a module of their own, in a shared
+ * ConcurrentConfiguration and in a Configuration guarded by a single lock.
+ *
+ * @author AK Program Developers
+ *
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Threads(4)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class ConcurrentConfigurationBenchmark {
+	
+	private final static int MODULES = 64;
+	
+	private ConcurrentConfiguration concurrent;
+	private Configuration locked;
+	private final AtomicInteger nextModule = new AtomicInteger();
+	
+	@Setup
+	public void setup() {
+		locked = Fixtures.configuration(MODULES * 100, MODULES);
+		concurrent = new ConcurrentConfiguration(locked);
+	}
+	
+	/**
+	 * The module of each benchmark thread.
+	 */
+	@State(Scope.Thread)
+	public static class Tenant {
+		
+		String module;
+		String id;
+		
+		@Setup
+		public void setup(ConcurrentConfigurationBenchmark benchmark) {
+			int index = benchmark.nextModule.getAndIncrement() % MODULES;
+			module = "module" + index;
+			id = Fixtures.id(index);
+		}
+	}
+	
+	@Benchmark
+	public boolean concurrentSetValue(Tenant tenant) {
+		return concurrent.setValue(tenant.module, tenant.id, "value");
+	}
+	
+	@Benchmark
+	public String concurrentGetValue(Tenant tenant) {
+		return concurrent.getValue(tenant.module, tenant.id);
+	}
+	
+	@Benchmark
+	public void lockedSetValue(Tenant tenant) {
+		synchronized(locked) {
+			locked.getModule(tenant.module).getProperty(tenant.id).setValue("value");
+		}
+	}
+	
+	@Benchmark
+	public String lockedGetValue(Tenant tenant) {
+		synchronized(locked) {
+			return locked.getModule(tenant.module).getValue(tenant.id);
+		}
+	}
+
+}
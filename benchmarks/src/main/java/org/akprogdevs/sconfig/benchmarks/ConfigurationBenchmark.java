@@ -0,0 +1,100 @@
+package org.akprogdevs.sconfig.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.akprogdevs.sconfig.classes.ConfigKey;
+import org.akprogdevs.sconfig.classes.Configuration;
+import org.akprogdevs.sconfig.classes.Module;
+import org.akprogdevs.sconfig.classes.Property;
+import org.akprogdevs.sconfig.write.Builder;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Adding and looking up modules, looking up properties by path, and exporting a whole Configuration with {@code toString} and
+ * {@code Builder.toByteArray}, for Configurations of the sizes specified.
+ * 
+ * @author AK Program Developers
+ *
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class ConfigurationBenchmark {
+	
+	@Param({"10", "1000", "100000", "1000000"})
+	public int properties;
+	
+	@Param({"1", "100", "10000"})
+	public int modules;
+	
+	private Configuration config;
+	private Builder builder;
+	private String middleModule;
+	private String middlePath;
+	private ConfigKey middleKey;
+	
+	@Setup
+	public void setup() {
+		config = Fixtures.configuration(properties, modules);
+		builder = new Builder(config);
+		middleModule = "module" + (modules / 2);
+		
+		//Properties are placed round-robin, so module n holds property n first - with fewer properties
+		//than that the middle module is empty, and the path goes to the middle of the modules holding any
+		int pathModule = (properties > modules / 2) ? modules / 2 : properties / 2;
+		middlePath = "module" + pathModule + "." + Fixtures.id(pathModule);
+		middleKey = config.getKey(middlePath);
+	}
+	
+	/**
+	 * Adds a module with a new name and removes it again, which keeps the size stable.
+	 */
+	@Benchmark
+	@OutputTimeUnit(TimeUnit.NANOSECONDS)
+	public boolean addRemoveModule() {
+		config.addModule("benchmark");
+		return config.removeModule("benchmark");
+	}
+	
+	@Benchmark
+	@OutputTimeUnit(TimeUnit.NANOSECONDS)
+	public Module getModule() {
+		return config.getModule(middleModule);
+	}
+	
+	@Benchmark
+	@OutputTimeUnit(TimeUnit.NANOSECONDS)
+	public Property getPath() {
+		return config.get(middlePath);
+	}
+	
+	@Benchmark
+	@OutputTimeUnit(TimeUnit.NANOSECONDS)
+	public Property getKey() {
+		return middleKey.get();
+	}
+	
+	@Benchmark
+	public String serializeToString() {
+		return config.toString();
+	}
+	
+	@Benchmark
+	public byte[] builderToByteArray() {
+		return builder.toByteArray();
+	}
+
+}
@@ -0,0 +1,67 @@
+package org.akprogdevs.sconfig.benchmarks;
+
+import org.akprogdevs.sconfig.classes.Configuration;
+import org.akprogdevs.sconfig.classes.Module;
+
+/**
+ * Builds the Configurations the benchmarks run against.
+ * 
+ * @author AK Program Developers
+ *
+ */
+final class Fixtures {
+	
+	private Fixtures() {
+		
+	}
+	
+	/**
+	 * Creates a Configuration with the number of properties specified, spread round-robin over
+	 * the number of modules specified. Modules beyond the number of properties stay empty.
+	 * 
+	 * @param properties Total number of properties
+	 * @param modules Number of modules
+	 * @return The new Configuration
+	 */
+	static Configuration configuration(int properties, int modules) {
+		
+		Configuration config = new Configuration(0, modules);
+		Module[] created = new Module[modules];
+		
+		for(int i = 0; i < modules; i++) {
+			created[i] = new Module("module" + i, properties / modules + 1);
+			config.addExistingModule(created[i]);
+		}
+		
+		for(int i = 0; i < properties; i++) {
+			created[i % modules].addProperty(id(i), value(i));
+		}
+		
+		return config;
+	}
+	
+	/**
+	 * Creates a Module with the number of properties specified.
+	 * 
+	 * @param properties Number of properties
+	 * @return The new Module
+	 */
+	static Module module(int properties) {
+		
+		Module module = new Module("module", properties);
+		for(int i = 0; i < properties; i++) {
+			module.addProperty(id(i), value(i));
+		}
+		
+		return module;
+	}
+	
+	static String id(int i) {
+		return "property" + i;
+	}
+	
+	static String value(int i) {
+		return (i % 3 == 0) ? "true" : "value" + i;
+	}
+
+}
@@ -0,0 +1,88 @@
+package org.akprogdevs.sconfig.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.akprogdevs.sconfig.classes.Module;
+import org.akprogdevs.sconfig.classes.Property;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Adding, removing and looking up properties in a container (a Module) that already holds
+ * the number of properties specified, and filling a container from empty.
+ * 
+ * @author AK Program Developers
+ *
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class PropertyContainerBenchmark {
+	
+	@Param({"10", "1000", "100000", "1000000"})
+	public int size;
+	
+	private Module module;
+	private String middleID;
+	private String middleValue;
+	
+	@Setup
+	public void setup() {
+		module = Fixtures.module(size);
+		middleID = Fixtures.id(size / 2);
+		middleValue = Fixtures.value(size / 2);
+	}
+	
+	/**
+	 * Adds a property with a new ID and removes it again, which keeps the size stable.
+	 */
+	@Benchmark
+	public boolean addRemoveLast() {
+		module.addProperty("benchmark", "value");
+		return module.removeProperty("benchmark");
+	}
+	
+	/**
+	 * Removes a property from the middle of the container and adds it back at the end.
+	 */
+	@Benchmark
+	public boolean removeAddMiddle() {
+		module.removeProperty(middleID);
+		return module.addProperty(middleID, middleValue);
+	}
+	
+	/**
+	 * Adds a property with an ID that is already taken, which is rejected.
+	 */
+	@Benchmark
+	public boolean addDuplicate() {
+		return module.addProperty(middleID, middleValue);
+	}
+	
+	@Benchmark
+	public Property getProperty() {
+		return module.getProperty(middleID);
+	}
+	
+	/**
+	 * Fills an empty container with all properties, one {@code addProperty} at a time.
+	 */
+	@Benchmark
+	@OutputTimeUnit(TimeUnit.MICROSECONDS)
+	public Module fill() {
+		return Fixtures.module(size);
+	}
+
+}
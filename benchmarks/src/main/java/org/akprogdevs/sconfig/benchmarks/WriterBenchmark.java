@@ -0,0 +1,75 @@
+package org.akprogdevs.sconfig.benchmarks;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+import org.akprogdevs.sconfig.write.Writer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Writing a Configuration of the sizes specified to a file, through each of the Writer methods.
+ * The files go to a temporary directory, which is deleted afterwards.
+ * 
+ * @author AK Program Developers
+ *
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class WriterBenchmark {
+	
+	@Param({"10", "1000", "100000", "1000000"})
+	public int properties;
+	
+	@Param({"1", "100", "10000"})
+	public int modules;
+	
+	private Path directory;
+	private String path;
+	private Writer writer;
+	
+	@Setup
+	public void setup() throws IOException {
+		directory = Files.createTempDirectory("scnfg-benchmark");
+		path = directory.resolve("benchmark").toString();
+		writer = new Writer(Fixtures.configuration(properties, modules));
+	}
+	
+	@TearDown
+	public void tearDown() throws IOException {
+		Files.deleteIfExists(directory.resolve("benchmark.scnfg"));
+		Files.deleteIfExists(directory);
+	}
+	
+	@Benchmark
+	public void bufferedWriter() throws IOException {
+		writer.bufferedWriter(path);
+	}
+	
+	@Benchmark
+	public void printWriter() throws IOException {
+		writer.printWriter(path);
+	}
+	
+	@Benchmark
+	public void channelWriter() throws IOException {
+		writer.channelWriter(path);
+	}
+
+}
@@ -0,0 +1,364 @@
+package org.akprogdevs.sconfig.binary;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+
+import org.akprogdevs.sconfig.classes.Configuration;
+import org.akprogdevs.sconfig.classes.Module;
+import org.akprogdevs.sconfig.classes.Property;
+import org.akprogdevs.sconfig.write.Writer;
+
+/**
+ * A read-only view of a binary {@code .scnfgb} file written by {@link BinaryWriter}. The file is
+ * memory-mapped, and lookups go straight to the hash tables stored in it - opening the file does
+ * not decode any properties or modules, and only the strings actually looked at are decoded
+ * (once, then cached).
+ * 
+ * <p>Properties and modules can be read as values directly, or materialized into new Property and
+ * Module objects. A BinaryConfiguration can be queried from any number of threads.</p>
+ * 
+ * @author AK Program Developers
+ *
+ */
+public final class BinaryConfiguration {
+	
+	private final ByteBuffer bytes;
+	private final double version;
+	private final int stringTable;
+	private final int topLevelTable;
+	private final int moduleDirectory;
+	private final String[] stringCache;
+	
+	private BinaryConfiguration(ByteBuffer bytes) throws IOException {
+		
+		this.bytes = bytes;
+		
+		if(bytes.limit() < BinaryFormat.HEADER_SIZE || bytes.getInt(0) != BinaryFormat.MAGIC) {
+			throw new IOException("Not a binary configuration file");
+		}
+		if(bytes.getShort(4) > BinaryFormat.FORMAT_VERSION) {
+			throw new IOException("Binary format version " + bytes.getShort(4) + " is newer than the supported version " 
+					+ BinaryFormat.FORMAT_VERSION);
+		}
+		
+		this.version = bytes.getDouble(8);
+		this.stringCache = new String[bytes.getInt(BinaryFormat.OFFSET_STRING_COUNT)];
+		this.stringTable = bytes.getInt(BinaryFormat.OFFSET_STRING_TABLE);
+		this.topLevelTable = bytes.getInt(BinaryFormat.OFFSET_PROPERTIES);
+		this.moduleDirectory = bytes.getInt(BinaryFormat.OFFSET_MODULES);
+	}
+	
+	/**
+	 * Memory-maps the binary configuration file at the destination (path) specified. The file name
+	 * at the end of the path does not need an extension specified.
+	 * 
+	 * @param path Path of the binary configuration file
+	 * @return The BinaryConfiguration view of the file
+	 * @throws IOException If the file cannot be read or is not a binary configuration file
+	 */
+	public static BinaryConfiguration open(String path) throws IOException {
+		
+		if(!path.endsWith(BinaryFormat.EXTENSION)) {
+			path += BinaryFormat.EXTENSION;
+		}
+		
+		try(FileChannel channel = FileChannel.open(Paths.get(path), StandardOpenOption.READ)) {
+			
+			if(channel.size() > Integer.MAX_VALUE) {
+				throw new IOException("Binary configuration file is too large to map: " + path);
+			}
+			
+			return new BinaryConfiguration(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+		}
+	}
+	
+	/**
+	 * Wraps the bytes of a binary configuration, such as the output of {@code BinaryWriter.toByteBuffer()}.
+	 * 
+	 * @param bytes Buffer holding the binary configuration from index zero (0)
+	 * @return The BinaryConfiguration view of the bytes
+	 * @throws IOException If the bytes are not a binary configuration
+	 */
+	public static BinaryConfiguration wrap(ByteBuffer bytes) throws IOException {
+		return new BinaryConfiguration(bytes.duplicate());
+	}
+	
+	/**
+	 * Converts a binary configuration file back into a text configuration file. The paths do
+	 * not need their extensions specified. The text file is written the same way as by
+	 * {@code Writer.channelWriter}: through a temporary file, forced to the device and moved into
+	 * place atomically, so a crash never leaves a truncated text file behind.
+	 * 
+	 * @param binaryPath Path of the binary configuration file to be read
+	 * @param textPath Path of the text configuration file to be written
+	 * @throws IOException If the binary file cannot be read, or the text file cannot be written
+	 */
+	public static void convert(String binaryPath, String textPath) throws IOException {
+		
+		//The Writer adds the extension itself
+		if(textPath.endsWith(".scnfg")) {
+			textPath = textPath.substring(0, textPath.length() - ".scnfg".length());
+		}
+		
+		Configuration config = open(binaryPath).toConfiguration();
+		new Writer(config).channelWriter(textPath, true);
+	}
+	
+	/**
+	 * Retrieves the configuration version the file was compiled with.
+	 * 
+	 * @return The configuration version
+	 */
+	public double getVersion() {
+		return this.version;
+	}
+	
+	/**
+	 * Retrieves the value of the top-level property with the ID specified.
+	 * 
+	 * @param id The property ID to look for
+	 * @return The property value, or null if no matching ID was found
+	 */
+	public String getValue(String id) {
+		
+		int record = findProperty(topLevelTable, id);
+		return record < 0 ? null : string(bytes.getInt(record + 4));
+	}
+	
+	/**
+	 * Retrieves the value of a property of the module specified.
+	 * 
+	 * @param moduleID Name/ID of the module
+	 * @param id The property ID to look for
+	 * @return The property value, or null if the module or property does not exist
+	 */
+	public String getValue(String moduleID, String id) {
+		
+		int table = findModuleTable(moduleID);
+		if(table < 0) {
+			return null;
+		}
+		
+		int record = findProperty(table, id);
+		return record < 0 ? null : string(bytes.getInt(record + 4));
+	}
+	
+	/**
+	 * Checks whether a top-level property with the ID specified exists.
+	 * 
+	 * @param id The property ID to look for
+	 * @return True if a matching ID was found, false otherwise
+	 */
+	public boolean containsProperty(String id) {
+		return findProperty(topLevelTable, id) >= 0;
+	}
+	
+	/**
+	 * Checks whether a module with the name specified exists.
+	 * 
+	 * @param moduleID Name/ID of module to look for
+	 * @return True if the module exists, false otherwise
+	 */
+	public boolean hasModule(String moduleID) {
+		return findModuleTable(moduleID) >= 0;
+	}
+	
+	/**
+	 * Retrieves the number of modules in the file.
+	 * 
+	 * @return Number of modules
+	 */
+	public int getModuleCount() {
+		return bytes.getInt(moduleDirectory);
+	}
+	
+	/**
+	 * Materializes the top-level property with the ID specified.
+	 * 
+	 * @param id The property ID to look for
+	 * @return A new Property object, or null if no matching ID was found
+	 */
+	public Property getProperty(String id) {
+		
+		int record = findProperty(topLevelTable, id);
+		return record < 0 ? null : property(record);
+	}
+	
+	/**
+	 * Materializes a property of the module specified.
+	 * 
+	 * @param moduleID Name/ID of the module
+	 * @param id The property ID to look for
+	 * @return A new Property object, or null if the module or property does not exist
+	 */
+	public Property getProperty(String moduleID, String id) {
+		
+		int table = findModuleTable(moduleID);
+		if(table < 0) {
+			return null;
+		}
+		
+		int record = findProperty(table, id);
+		return record < 0 ? null : property(record);
+	}
+	
+	/**
+	 * Materializes the module with the name specified, along with its properties.
+	 * 
+	 * @param moduleID Name/ID of module to look for
+	 * @return A new Module object, or null if the module does not exist
+	 */
+	public Module getModule(String moduleID) {
+		
+		int table = findModuleTable(moduleID);
+		if(table < 0) {
+			return null;
+		}
+		
+		Module module = new Module(moduleID, bytes.getInt(table));
+		addProperties(table, module, null);
+		
+		return module;
+	}
+	
+	/**
+	 * Materializes the whole file into a new Configuration.
+	 * 
+	 * @return A new Configuration object
+	 */
+	public Configuration toConfiguration() {
+		
+		int moduleCount = bytes.getInt(moduleDirectory);
+		int records = moduleDirectory + 8 + bytes.getInt(moduleDirectory + 4) * BinaryFormat.SLOT_SIZE;
+		
+		Configuration config = new Configuration(bytes.getInt(topLevelTable), moduleCount);
+		addProperties(topLevelTable, null, config);
+		
+		for(int i = 0; i < moduleCount; i++) {
+			int record = records + i * BinaryFormat.MODULE_RECORD_SIZE;
+			int table = bytes.getInt(record + 4);
+			
+			Module module = new Module(string(bytes.getInt(record)), bytes.getInt(table));
+			addProperties(table, module, null);
+			config.addExistingModule(module);
+		}
+		
+		return config;
+	}
+	
+	@Override
+	public String toString() {
+		return toConfiguration().toString();
+	}
+	
+	//Offset of the property table of a module, or -1 if the module does not exist
+	private int findModuleTable(String moduleID) {
+		
+		int slotCount = bytes.getInt(moduleDirectory + 4);
+		int slots = moduleDirectory + 8;
+		int records = slots + slotCount * BinaryFormat.SLOT_SIZE;
+		
+		int index = find(slots, slotCount, moduleID, records, BinaryFormat.MODULE_RECORD_SIZE);
+		return index < 0 ? -1 : bytes.getInt(records + index * BinaryFormat.MODULE_RECORD_SIZE + 4);
+	}
+	
+	//Offset of the record of a property in the table, or -1 if no matching ID was found
+	private int findProperty(int table, String id) {
+		
+		int slotCount = bytes.getInt(table + 4);
+		int slots = table + 8;
+		int records = slots + slotCount * BinaryFormat.SLOT_SIZE;
+		
+		int index = find(slots, slotCount, id, records, BinaryFormat.PROPERTY_RECORD_SIZE);
+		return index < 0 ? -1 : records + index * BinaryFormat.PROPERTY_RECORD_SIZE;
+	}
+	
+	//Linear probing from the slot of the key, comparing the key (the first field of a record) only when the hash matches
+	private int find(int slots, int slotCount, String key, int records, int recordSize) {
+		
+		if(key == null) {
+			return -1;
+		}
+		
+		int hash = BinaryFormat.hash(key);
+		int slot = hash & (slotCount - 1);
+		
+		while(true) {
+			int entry = slots + slot * BinaryFormat.SLOT_SIZE;
+			int index = bytes.getInt(entry + 4) - 1;
+			
+			if(index < 0) {
+				return -1;
+			}
+			if(bytes.getInt(entry) == hash 
+					&& key.equals(string(bytes.getInt(records + index * recordSize)))) {
+				return index;
+			}
+			
+			slot = (slot + 1) & (slotCount - 1);
+		}
+	}
+	
+	private void addProperties(int table, Module module, Configuration config) {
+		
+		int count = bytes.getInt(table);
+		int records = table + 8 + bytes.getInt(table + 4) * BinaryFormat.SLOT_SIZE;
+		
+		for(int i = 0; i < count; i++) {
+			Property property = property(records + i * BinaryFormat.PROPERTY_RECORD_SIZE);
+			if(module != null) {
+				module.addExistingProperty(property);
+			}
+			else {
+				config.addExistingProperty(property);
+			}
+		}
+	}
+	
+	private Property property(int record) {
+		
+		String id = string(bytes.getInt(record));
+		String value = string(bytes.getInt(record + 4));
+		int validCount = bytes.getInt(record + 8);
+		
+		if(validCount == 0) {
+			return new Property(id, value);
+		}
+		
+		int list = bytes.getInt(record + 12);
+		String[] validValues = new String[validCount];
+		for(int i = 0; i < validCount; i++) {
+			validValues[i] = string(bytes.getInt(list + 4 * i));
+		}
+		
+		return new Property(id, value, validValues);
+	}
+	
+	//Decode a string of the string table, once - racing threads at worst decode it twice
+	private String string(int index) {
+		
+		if(index < 0) {
+			return null;
+		}
+		
+		String value = stringCache[index];
+		if(value == null) {
+			int offset = bytes.getInt(stringTable + 4 * index);
+			int length = bytes.getInt(offset);
+			
+			byte[] utf8 = new byte[length];
+			bytes.duplicate().position(offset + 4).get(utf8);
+			
+			value = new String(utf8, StandardCharsets.UTF_8);
+			stringCache[index] = value;
+		}
+		
+		return value;
+	}
+
+}
@@ -0,0 +1,78 @@
+package org.akprogdevs.sconfig.binary;
+
+/**
+ * Layout of the compiled {@code .scnfgb} format. All numbers are big-endian ints unless noted,
+ * and every offset is counted from the start of the file.
+ * 
+ * <pre>
+ * Header
+ *   int    magic ("SCFB")
+ *   short  format version
+ *   short  flags (unused, zero)
+ *   double configuration version
+ *   int    number of strings
+ *   int    offset of the string table
+ *   int    offset of the top-level property table
+ *   int    offset of the module directory
+ * 
+ * String table - every ID, value and valid value is stored once
+ *   int[number of strings]  offset of each string
+ *   each string: int length in bytes, followed by its UTF-8 bytes
+ * 
+ * Property table - one for the top-level properties, one per module
+ *   int    number of properties
+ *   int    number of hash slots (a power of two)
+ *   slots: int hash of the ID, int index of the property + 1 (zero for an empty slot)
+ *   properties, in file order: int ID string, int value string (-1 for null),
+ *                              int number of valid values, int offset of the valid values
+ *   valid values: int[number of valid values] strings, for each property that has any
+ * 
+ * Module directory
+ *   int    number of modules
+ *   int    number of hash slots (a power of two)
+ *   slots: int hash of the name, int index of the module + 1 (zero for an empty slot)
+ *   modules, in file order: int name string, int offset of the property table
+ * </pre>
+ * 
+ * Lookups hash the ID or name, probe the slots linearly and only compare strings whose hash
+ * matches - nothing has to be decoded up front.
+ * 
+ * @author AK Program Developers
+ *
+ */
+final class BinaryFormat {
+	
+	final static int MAGIC = 0x53434642;
+	final static short FORMAT_VERSION = 1;
+	final static String EXTENSION = ".scnfgb";
+	
+	final static int HEADER_SIZE = 4 + 2 + 2 + 8 + 4 + 4 + 4 + 4;
+	final static int OFFSET_STRING_COUNT = 16;
+	final static int OFFSET_STRING_TABLE = 20;
+	final static int OFFSET_PROPERTIES = 24;
+	final static int OFFSET_MODULES = 28;
+	
+	final static int SLOT_SIZE = 8;
+	final static int PROPERTY_RECORD_SIZE = 16;
+	final static int MODULE_RECORD_SIZE = 8;
+	
+	private BinaryFormat() {
+		
+	}
+	
+	//Spread the bits of a String hash code, as the slot index only uses the low bits
+	static int hash(String key) {
+		int h = key.hashCode();
+		return h ^ (h >>> 16);
+	}
+	
+	//Power of two number of slots, at most half of them used
+	static int slotCount(int entries) {
+		int slots = 1;
+		while(slots < entries * 2) {
+			slots <<= 1;
+		}
+		return slots;
+	}
+
+}
@@ -0,0 +1,299 @@
+package org.akprogdevs.sconfig.binary;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.concurrent.ThreadLocalRandom;
+
+import org.akprogdevs.sconfig.classes.Configuration;
+import org.akprogdevs.sconfig.classes.Module;
+import org.akprogdevs.sconfig.classes.Property;
+import org.akprogdevs.sconfig.read.Reader;
+
+/**
+ * This class compiles a Configuration into the binary {@code .scnfgb} format, which can be
+ * memory-mapped and queried through a {@link BinaryConfiguration} without parsing the whole
+ * file. The text format stays the one for humans to edit - the binary file is meant to be built
+ * from it ahead of time, see {@link #convert(String, String)}.
+ * 
+ * @author AK Program Developers
+ *
+ */
+public class BinaryWriter {
+	
+	private Configuration config = null;
+	
+	//String table, built for each export
+	private HashMap<String, Integer> stringIndex = null;
+	private ArrayList<byte[]> strings = null;
+	
+	/**
+	 * Constructor that accepts the Configuration to be compiled.
+	 * 
+	 * @param config The Configuration object
+	 */
+	public BinaryWriter(Configuration config) {
+		this.config = config;
+	}
+	
+	/**
+	 * Compiles a text configuration file into a binary one. The paths follow the same rules as
+	 * {@code Writer}: the file names do not need their extensions specified.
+	 * 
+	 * @param textPath Path of the text configuration file to be read
+	 * @param binaryPath Path of the binary configuration file to be written
+	 * @throws IOException If the text file cannot be read or parsed, or the binary file cannot be written
+	 */
+	public static void convert(String textPath, String binaryPath) throws IOException {
+		new BinaryWriter(new Reader().read(textPath)).write(binaryPath);
+	}
+	
+	/**
+	 * Compiles the Configuration into an array of bytes in the binary format.
+	 * 
+	 * @return Byte array of the compiled Configuration
+	 */
+	public byte[] toByteArray() {
+		return toByteBuffer().array();
+	}
+	
+	/**
+	 * Compiles the Configuration into a buffer in the binary format.
+	 * 
+	 * @return Heap ByteBuffer holding the compiled Configuration, from position zero (0) to its limit
+	 */
+	public ByteBuffer toByteBuffer() {
+		
+		ArrayList<Module> modules = config.retrieveModules();
+		
+		//Gather every distinct string, in the order they are found, retrieving the properties
+		//of the Configuration and of each module only once
+		this.stringIndex = new HashMap<>();
+		this.strings = new ArrayList<>();
+		Table properties = table(config.retrieveProperties());
+		Table[] moduleTables = new Table[modules.size()];
+		for(int i = 0; i < modules.size(); i++) {
+			intern(modules.get(i).getModuleName());
+			moduleTables[i] = table(modules.get(i).retrieveProperties());
+		}
+		
+		//Size of every section, to allocate the buffer once
+		int stringTable = BinaryFormat.HEADER_SIZE;
+		int size = stringTable + 4 * strings.size();
+		for(int i = 0; i < strings.size(); i++) {
+			size += 4 + strings.get(i).length;
+		}
+		
+		int[] tableOffsets = new int[modules.size()];
+		int topLevelTable = size;
+		size += properties.size;
+		for(int i = 0; i < modules.size(); i++) {
+			tableOffsets[i] = size;
+			size += moduleTables[i].size;
+		}
+		
+		int moduleDirectory = size;
+		int moduleSlots = BinaryFormat.slotCount(modules.size());
+		size += 8 + moduleSlots * BinaryFormat.SLOT_SIZE + modules.size() * BinaryFormat.MODULE_RECORD_SIZE;
+		
+		ByteBuffer out = ByteBuffer.allocate(size);
+		
+		//Header
+		out.putInt(BinaryFormat.MAGIC);
+		out.putShort(BinaryFormat.FORMAT_VERSION);
+		out.putShort((short) 0);
+		out.putDouble(Configuration.version);
+		out.putInt(strings.size());
+		out.putInt(stringTable);
+		out.putInt(topLevelTable);
+		out.putInt(moduleDirectory);
+		
+		//String table
+		int stringData = stringTable + 4 * strings.size();
+		for(int i = 0; i < strings.size(); i++) {
+			out.putInt(stringData);
+			stringData += 4 + strings.get(i).length;
+		}
+		for(int i = 0; i < strings.size(); i++) {
+			out.putInt(strings.get(i).length);
+			out.put(strings.get(i));
+		}
+		
+		//Property tables
+		writeTable(out, properties);
+		for(int i = 0; i < modules.size(); i++) {
+			writeTable(out, moduleTables[i]);
+		}
+		
+		//Module directory
+		out.putInt(modules.size());
+		out.putInt(moduleSlots);
+		int slots = out.position();
+		out.position(slots + moduleSlots * BinaryFormat.SLOT_SIZE);
+		for(int i = 0; i < modules.size(); i++) {
+			String name = modules.get(i).getModuleName();
+			putSlot(out, slots, moduleSlots, BinaryFormat.hash(name), i);
+			out.putInt(stringIndex.get(name));
+			out.putInt(tableOffsets[i]);
+		}
+		
+		this.stringIndex = null;
+		this.strings = null;
+		
+		out.flip();
+		return out;
+	}
+	
+	/**
+	 * Writes the compiled Configuration to the destination (path) specified, replacing any existing
+	 * file atomically. The path should meet the following conditions:
+	 * 
+	 * <ul>
+	 * 	<li>The path can be either relative or absolute,</li>
+	 * 	<li>The path must specify the file name,</li>
+	 *	<li>The file name at the end of the path does not need an extension specified</li>
+	 * </ul>
+	 * 
+	 * @param path Path of the destination binary configuration file
+	 * @throws IOException
+	 */
+	public void write(String path) throws IOException {
+		
+		if(!path.endsWith(BinaryFormat.EXTENSION)) {
+			path += BinaryFormat.EXTENSION;
+		}
+		
+		Path target = Paths.get(path).toAbsolutePath();
+		Files.createDirectories(target.getParent());
+		Path temp = target.resolveSibling("." + target.getFileName() + "."
+				+ Long.toHexString(ThreadLocalRandom.current().nextLong()) + ".tmp");
+		
+		try {
+			ByteBuffer bytes = toByteBuffer();
+			try(FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE)) {
+				while(bytes.hasRemaining()) {
+					channel.write(bytes);
+				}
+			}
+			
+			try {
+				Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+			} catch (AtomicMoveNotSupportedException e) {
+				Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING);
+			}
+		} finally {
+			Files.deleteIfExists(temp);
+		}
+	}
+	
+	//Intern the strings of the properties and size their table, in a single pass over them
+	private Table table(ArrayList<Property> properties) {
+		
+		String[][] validValues = new String[properties.size()][];
+		int validValueCount = 0;
+		
+		for(int i = 0; i < properties.size(); i++) {
+			Property property = properties.get(i);
+			intern(property.getID());
+			intern(property.getValue());
+			validValues[i] = property.getValidValues();
+			for(int j = 0; j < validValues[i].length; j++) {
+				intern(validValues[i][j]);
+			}
+			validValueCount += validValues[i].length;
+		}
+		
+		int size = 8 + BinaryFormat.slotCount(properties.size()) * BinaryFormat.SLOT_SIZE 
+				+ properties.size() * BinaryFormat.PROPERTY_RECORD_SIZE + validValueCount * 4;
+		
+		return new Table(properties, validValues, size);
+	}
+	
+	//Index of the string in the string table, added if missing; -1 for null
+	private int intern(String value) {
+		
+		if(value == null) {
+			return -1;
+		}
+		
+		Integer index = stringIndex.get(value);
+		if(index == null) {
+			index = strings.size();
+			stringIndex.put(value, index);
+			strings.add(value.getBytes(StandardCharsets.UTF_8));
+		}
+		
+		return index;
+	}
+	
+	private void writeTable(ByteBuffer out, Table table) {
+		
+		ArrayList<Property> properties = table.properties;
+		int slotCount = BinaryFormat.slotCount(properties.size());
+		out.putInt(properties.size());
+		out.putInt(slotCount);
+		
+		int slots = out.position();
+		int records = slots + slotCount * BinaryFormat.SLOT_SIZE;
+		int validValues = records + properties.size() * BinaryFormat.PROPERTY_RECORD_SIZE;
+		
+		out.position(records);
+		for(int i = 0; i < properties.size(); i++) {
+			
+			Property property = properties.get(i);
+			String[] valid = table.validValues[i];
+			
+			putSlot(out, slots, slotCount, BinaryFormat.hash(property.getID()), i);
+			out.putInt(intern(property.getID()));
+			out.putInt(intern(property.getValue()));
+			out.putInt(valid.length);
+			out.putInt(valid.length == 0 ? -1 : validValues);
+			
+			for(int j = 0; j < valid.length; j++) {
+				out.putInt(validValues + 4 * j, intern(valid[j]));
+			}
+			validValues += 4 * valid.length;
+		}
+		
+		out.position(validValues);
+	}
+	
+	//Store the entry in the first free slot from its hash onwards
+	private static void putSlot(ByteBuffer out, int slots, int slotCount, int hash, int index) {
+		
+		int slot = hash & (slotCount - 1);
+		while(out.getInt(slots + slot * BinaryFormat.SLOT_SIZE + 4) != 0) {
+			slot = (slot + 1) & (slotCount - 1);
+		}
+		
+		out.putInt(slots + slot * BinaryFormat.SLOT_SIZE, hash);
+		out.putInt(slots + slot * BinaryFormat.SLOT_SIZE + 4, index + 1);
+	}
+	
+	/*
+	 * The properties of one table with their valid values, and the size of the table in bytes.
+	 */
+	private static final class Table {
+		
+		final ArrayList<Property> properties;
+		final String[][] validValues;
+		final int size;
+		
+		Table(ArrayList<Property> properties, String[][] validValues, int size) {
+			this.properties = properties;
+			this.validValues = validValues;
+			this.size = size;
+		}
+		
+	}
+
+}
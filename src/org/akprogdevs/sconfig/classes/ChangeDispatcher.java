@@ -0,0 +1,236 @@
+package org.akprogdevs.sconfig.classes;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Turns the changes reported to a MutationListener into calls to the ChangeListeners registered
+ * through {@code Configuration.onChange}. The thread making a change only marks the keys it
+ * affects as changed, which takes a few lookups and never waits for a listener. The marked keys
+ * are gathered for a short while (10 ms, or the number of milliseconds in the system property
+ * {@code org.akprogdevs.sconfig.changes.delay}) and then dispatched as one batch on a small pool
+ * of daemon threads shared by all Configurations. A key marked several times before its batch
+ * is dispatched is dispatched once.
+ *
+ * <p>The batches of one Configuration are dispatched one after another, so its listeners are
+ * never called concurrently with each other. Listeners of different Configurations may be.</p>
+ *
+ * @author AK Program Developers
+ *
+ */
+final class ChangeDispatcher implements MutationListener {
+	
+	private final static long DELAY_MILLIS = Long.getLong("org.akprogdevs.sconfig.changes.delay", 10);
+	private final static ScheduledThreadPoolExecutor EXECUTOR = createExecutor();
+	
+	private final Configuration config;
+	//Subscriptions by key, and by what a key may name - a top-level property, a module, or a module property
+	private final ConcurrentHashMap<String, Subscription> subscriptions = new ConcurrentHashMap<>();
+	private final ConcurrentHashMap<String, Subscription> properties = new ConcurrentHashMap<>();
+	private final ConcurrentHashMap<String, Subscription> modules = new ConcurrentHashMap<>();
+	private final ConcurrentHashMap<String, ConcurrentHashMap<String, Subscription>> moduleProperties = new ConcurrentHashMap<>();
+	//Subscriptions with changes not dispatched yet
+	private final Set<Subscription> changed = ConcurrentHashMap.newKeySet();
+	private final AtomicBoolean scheduled = new AtomicBoolean(false);
+	
+	ChangeDispatcher(Configuration config) {
+		this.config = config;
+	}
+	
+	/**
+	 * Registers a listener for the key specified. A key without a dot names both the top-level
+	 * property and the module of that name, a key of the form {@code "module.property"} names
+	 * both the property of the module and a top-level property with the whole key as its ID.
+	 */
+	synchronized void subscribe(String key, ChangeListener listener) {
+		
+		Subscription subscription = subscriptions.get(key);
+		
+		if(subscription == null) {
+			
+			subscription = new Subscription(key);
+			subscriptions.put(key, subscription);
+			properties.put(key, subscription);
+			
+			int dot = key.indexOf('.');
+			if(dot < 0) {
+				modules.put(key, subscription);
+			}
+			else {
+				moduleProperties.computeIfAbsent(key.substring(0, dot), name -> new ConcurrentHashMap<>())
+						.put(key.substring(dot + 1), subscription);
+			}
+		}
+		
+		subscription.listeners.add(listener);
+	}
+	
+	/**
+	 * Removes a listener registered for the key specified.
+	 */
+	synchronized boolean unsubscribe(String key, ChangeListener listener) {
+		
+		Subscription subscription = subscriptions.get(key);
+		if(subscription == null || !subscription.listeners.remove(listener)) {
+			return false;
+		}
+		
+		if(subscription.listeners.isEmpty()) {
+			
+			subscriptions.remove(key);
+			properties.remove(key);
+			
+			int dot = key.indexOf('.');
+			if(dot < 0) {
+				modules.remove(key);
+			}
+			else {
+				String moduleName = key.substring(0, dot);
+				ConcurrentHashMap<String, Subscription> byID = moduleProperties.get(moduleName);
+				byID.remove(key.substring(dot + 1));
+				if(byID.isEmpty()) {
+					moduleProperties.remove(moduleName);
+				}
+			}
+		}
+		
+		return true;
+	}
+	
+	boolean isEmpty() {
+		return subscriptions.isEmpty();
+	}
+	
+	@Override
+	public void propertyAdded(Module module, Property property) {
+		markProperty(module, property.getID());
+	}
+	
+	@Override
+	public void propertyRemoved(Module module, Property property) {
+		markProperty(module, property.getID());
+	}
+	
+	@Override
+	public void propertyChanged(Module module, Property property) {
+		markProperty(module, property.getID());
+	}
+	
+	@Override
+	public void propertyRenamed(Module module, Property property, String oldID) {
+		markProperty(module, oldID);
+		markProperty(module, property.getID());
+	}
+	
+	@Override
+	public void moduleAdded(Module module) {
+		markModule(module.getModuleName());
+	}
+	
+	@Override
+	public void moduleRemoved(Module module) {
+		markModule(module.getModuleName());
+	}
+	
+	@Override
+	public void moduleRenamed(Module module, String oldName) {
+		markModule(oldName);
+		markModule(module.getModuleName());
+	}
+	
+	private void markProperty(Module module, String id) {
+		
+		if(module == null) {
+			mark(properties.get(id));
+			return;
+		}
+		
+		mark(modules.get(module.getModuleName()));
+		
+		ConcurrentHashMap<String, Subscription> byID = moduleProperties.get(module.getModuleName());
+		if(byID != null) {
+			mark(byID.get(id));
+		}
+	}
+	
+	//Adding, removing or renaming a module changes the module and every property in it
+	private void markModule(String moduleName) {
+		
+		mark(modules.get(moduleName));
+		
+		ConcurrentHashMap<String, Subscription> byID = moduleProperties.get(moduleName);
+		if(byID != null) {
+			for(Subscription subscription : byID.values()) {
+				mark(subscription);
+			}
+		}
+	}
+	
+	private void mark(Subscription subscription) {
+		
+		//A subscription already marked is part of a batch that has not been dispatched yet
+		if(subscription != null && changed.add(subscription) && scheduled.compareAndSet(false, true)) {
+			EXECUTOR.schedule(this::dispatch, DELAY_MILLIS, TimeUnit.MILLISECONDS);
+		}
+	}
+	
+	private void dispatch() {
+		
+		for(Subscription subscription : changed) {
+			if(changed.remove(subscription)) {
+				subscription.call(config);
+			}
+		}
+		
+		//Keys marked while the listeners ran were not scheduled, as this batch was still running
+		scheduled.set(false);
+		if(!changed.isEmpty() && scheduled.compareAndSet(false, true)) {
+			EXECUTOR.schedule(this::dispatch, DELAY_MILLIS, TimeUnit.MILLISECONDS);
+		}
+	}
+	
+	private static ScheduledThreadPoolExecutor createExecutor() {
+		
+		AtomicInteger count = new AtomicInteger();
+		int threads = Math.max(1, Math.min(4, Runtime.getRuntime().availableProcessors() / 2));
+		
+		return new ScheduledThreadPoolExecutor(threads, task -> {
+			Thread thread = new Thread(task, "scnfg-changes-" + count.incrementAndGet());
+			thread.setDaemon(true);
+			return thread;
+		});
+	}
+	
+	/*
+	 * The listeners of one key.
+	 */
+	private static final class Subscription {
+		
+		final String key;
+		final CopyOnWriteArrayList<ChangeListener> listeners = new CopyOnWriteArrayList<>();
+		
+		Subscription(String key) {
+			this.key = key;
+		}
+		
+		void call(Configuration config) {
+			
+			for(ChangeListener listener : listeners) {
+				try {
+					listener.changed(config, key);
+				} catch (RuntimeException e) {
+					//One failing listener must not keep the others from being called
+					Thread thread = Thread.currentThread();
+					thread.getUncaughtExceptionHandler().uncaughtException(thread, e);
+				}
+			}
+		}
+		
+	}
+
+}
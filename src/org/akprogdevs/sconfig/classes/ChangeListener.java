@@ -0,0 +1,24 @@
+package org.akprogdevs.sconfig.classes;
+
+/**
+ * Receives notice of changes to a key of a Configuration, once registered through
+ * {@code Configuration.onChange}. Changes are coalesced: however many times a key changed since
+ * the listener was last called, the listener is called once, on a thread of its own some time
+ * after the changes were made. Listeners should therefore read the current state of the key
+ * from the Configuration rather than expect one call per change.
+ *
+ * @author AK Program Developers
+ *
+ */
+@FunctionalInterface
+public interface ChangeListener {
+	
+	/**
+	 * Called after the key specified changed at least once.
+	 *
+	 * @param config The Configuration the key belongs to
+	 * @param key The key, as given to {@code Configuration.onChange}
+	 */
+	void changed(Configuration config, String key);
+
+}
@@ -0,0 +1,100 @@
+package org.akprogdevs.sconfig.classes;
+
+import org.akprogdevs.sconfig.metrics.Metrics;
+
+/**
+ * A path to a property of a Configuration, as accepted by {@code Configuration.get}, resolved
+ * ahead of time. The Property found is kept, and only looked up again once a property or module
+ * of the Configuration has been added, removed or renamed since - any such change increments the
+ * structural version of the Configuration, so checking whether the Property kept is still valid
+ * takes a single comparison, and changes to other Configurations do not invalidate it.
+ *
+ * <p>Values are always read from the Property itself, so changes to the value are seen right
+ * away. Like the Configuration it belongs to, a ConfigKey is not thread-safe.</p>
+ *
+ * @author AK Program Developers
+ *
+ */
+public final class ConfigKey {
+	
+	private final Configuration config;
+	private final String path;
+	//Module name and property ID of the path, the module name is null for a top-level property
+	private final String moduleID;
+	private final String propertyID;
+	
+	private Property property;
+	//Structural version of the Configuration when the path was last resolved
+	private int resolvedVersion;
+	
+	ConfigKey(Configuration config, String path) {
+		
+		int dot = path.indexOf('.');
+		
+		this.config = config;
+		this.path = path;
+		this.moduleID = (dot < 0) ? null : path.substring(0, dot);
+		this.propertyID = (dot < 0) ? path : path.substring(dot + 1);
+		resolve();
+	}
+	
+	/**
+	 * Retrieves the Property at the path of this key.
+	 *
+	 * @return The Property object, or null if no property exists at the path
+	 */
+	public Property get() {
+		
+		long start = Metrics.start();
+		
+		//Properties or modules were added, removed or renamed since the path was resolved
+		if(resolvedVersion != config.structureVersion) {
+			resolve();
+		}
+		
+		Metrics.stop(Metrics.Operation.PROPERTY_LOOKUP, start);
+		return this.property;
+	}
+	
+	/**
+	 * Retrieves the value of the Property at the path of this key.
+	 *
+	 * @return The property value, or null if no property exists at the path
+	 */
+	public String getValue() {
+		
+		Property property = get();
+		return property == null ? null : property.getValue();
+	}
+	
+	/**
+	 * Retrieves the path of this key.
+	 *
+	 * @return The path, as given to {@code Configuration.getKey}
+	 */
+	public String getPath() {
+		return this.path;
+	}
+	
+	/**
+	 * Retrieves the Configuration the path of this key is resolved in.
+	 *
+	 * @return The Configuration of this key
+	 */
+	public Configuration getConfiguration() {
+		return this.config;
+	}
+	
+	@Override
+	public String toString() {
+		return this.path;
+	}
+	
+	private void resolve() {
+		
+		//Read first, a change made while resolving is then picked up by the next call
+		this.resolvedVersion = config.structureVersion;
+		this.property = config.resolve(moduleID, propertyID, path);
+	}
+
+}
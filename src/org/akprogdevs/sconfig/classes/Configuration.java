@@ -1,6 +1,17 @@
 package org.akprogdevs.sconfig.classes;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+import org.akprogdevs.sconfig.metrics.Metrics;
+import org.akprogdevs.sconfig.metrics.SerializeEvent;
 
 /**
  * The main Configuration class (SrivasConfig), with methods to add, remove, and search for properties and modules.
@@ -17,7 +28,24 @@ public final class Configuration extends PropertyContainer {
 	protected String header = "{SrivasConfig-scnfg-version:" + version + "}";
 	protected String footer = "{scnfg:end}";
 	private ArrayList<Module> modules;
+	//Index of the same modules by name, the list above keeps the insertion order
+	private HashMap<String, Module> moduleIndex;
+	//Whether the list holds several modules with the same name, of which the index only holds the first
+	private boolean duplicateNames;
+	//Supplies the modules not loaded yet, null once every module is loaded
+	private ModuleLoader loader;
+	//Names of the modules not loaded yet, with their position in the order of the loader
+	private HashMap<String, Integer> unloaded;
+	//Position of the modules loaded so far, to restore the order of the loader later on
+	private IdentityHashMap<Module, Integer> loadedPositions;
+	private int loaderModuleCount;
+	//Dispatches changes to the listeners registered through onChange, null while there are none
+	private ChangeDispatcher changes;
+	//Incremented whenever a property or module of this Configuration is added, removed or renamed
+	int structureVersion = 0;
 	private final static int DEFAULT_CAPACITY = 0;
+	//Modules converted per thread of the pool before the text is written out, when exporting in parallel
+	private final static int EXPORT_WINDOW = 256;
 	
 	
 	/**
@@ -51,14 +79,50 @@ public final class Configuration extends PropertyContainer {
 	public boolean addModule(String moduleID) {
 		
 		//Check to find any duplicate module IDs, return false if duplicate is found
-		for(int i = 0; i < modules.size(); i++) {
-			if(modules.get(i).getModuleName().equals(moduleID)) {
-				return false;
-			}
+		if(findModule(moduleID) != null) {
+			return false;
 		}
 		
-		this.modules.add((this.modules.size()),new Module(moduleID));
+		return addExistingModule(new Module(moduleID));
+		
+	}
+	
+	/**
+	 * Adds an existing Module object to the list of modules for this Configuration. A Module
+	 * belongs to the Configuration it was last added to - changing its name through
+	 * {@code setModuleName} only updates the index of that Configuration.
+	 * 
+	 * @param module Module object to be added
+	 * 
+	 * @return True if module was successfully added or false if duplicate module ID was found
+	 */
+	public boolean addExistingModule(Module module) {
+		
+		//Check to find any duplicate module IDs, return false if duplicate is found
+		if(findModule(module.getModuleName()) != null) {
+			return false;
+		}
+		
+		long start = Metrics.start();
+		
+		if(this.symbols != null) {
+			module.internAll(this.symbols);
+		}
+		
+		this.modules.add((this.modules.size()), module);
+		this.moduleIndex.put(module.getModuleName(), module);
+		module.configuration = this;
+		structureChanged();
+		
+		MutationListener[] listeners = this.listeners;
+		if(listeners != null) {
+			module.attach(listeners);
+			for(int i = 0; i < listeners.length; i++) {
+				listeners[i].moduleAdded(module);
+			}
+		}
 		
+		Metrics.stop(Metrics.Operation.MODULE_MUTATION, start);
 		return true;
 		
 	}
@@ -77,15 +141,212 @@ public final class Configuration extends PropertyContainer {
 		
 		//Search for an module ID, if found remove module and return true to caller
 		//else return false
-		for(int i = 0; i < modules.size(); i++) {
-			if(modules.get(i).getModuleName().equals(moduleID)) {
+		Module module = findModule(moduleID);
+		if(module == null) {
+			return false;
+		}
+		
+		long start = Metrics.start();
+		
+		for(int i = modules.size() - 1; i >= 0; i--) {
+			if(modules.get(i) == module) {
 				modules.remove(i);
-				return true;
+				break;
 			}
 		}
-				
-		return false;
+		release(module);
+		
+		//Another module with the same name takes the place of the one removed
+		if(duplicateNames) {
+			reindexModules();
+		}
+		else {
+			moduleIndex.remove(moduleID);
+		}
+		structureChanged();
+		
+		if(this.listeners != null) {
+			modulesRemoved(module);
+		}
+		
+		Metrics.stop(Metrics.Operation.MODULE_MUTATION, start);
+		return true;
+		
+	}
+	
+	/**
+	 * Retrieves the Module with the name specified, without searching through or
+	 * copying the list of modules.
+	 * 
+	 * @param moduleID Name/ID of module to look for
+	 * 
+	 * @return The Module object, or null if the module does not exist
+	 */
+	public Module getModule(String moduleID) {
+		
+		long start = Metrics.start();
+		Module module = findModule(moduleID);
+		Metrics.stop(Metrics.Operation.MODULE_LOOKUP, start);
+		
+		return module;
+	}
+	
+	/**
+	 * Retrieves the Property at the path specified. A path of the form {@code "module.property"}
+	 * names a property of a module, the part before the first dot being the module name. A path
+	 * without a dot, or whose part before the first dot is not the name of a module, names a
+	 * top-level property.
+	 * 
+	 * <p>Code that looks up the same path repeatedly should use a {@link ConfigKey} instead.</p>
+	 * 
+	 * @param path Path of the property to look for
+	 * 
+	 * @return The Property object, or null if no property exists at the path
+	 */
+	public Property get(String path) {
+		
+		long start = Metrics.start();
+		
+		int dot = path.indexOf('.');
+		Property property = (dot < 0) ? findProperty(path)
+				: resolve(path.substring(0, dot), path.substring(dot + 1), path);
+		
+		Metrics.stop(Metrics.Operation.PROPERTY_LOOKUP, start);
+		return property;
+	}
+	
+	/**
+	 * Creates a ConfigKey for the path specified, which resolves the path once and keeps the
+	 * Property found until properties or modules are added, removed or renamed. The path is
+	 * interpreted the same way as by {@code get}.
+	 * 
+	 * @param path Path of the property
+	 * 
+	 * @return The ConfigKey of the path
+	 */
+	public ConfigKey getKey(String path) {
+		return new ConfigKey(this, path);
+	}
+	
+	/**
+	 * Checks whether a Module with the name specified is part of this Configuration.
+	 * 
+	 * @param moduleID Name/ID of module to look for
+	 * 
+	 * @return True if the module exists, false otherwise
+	 */
+	public boolean hasModule(String moduleID) {
+		
+		long start = Metrics.start();
+		boolean found = indexedModule(moduleID) != null || (unloaded != null && unloaded.containsKey(moduleID));
+		Metrics.stop(Metrics.Operation.MODULE_LOOKUP, start);
+		
+		return found;
+	}
+	
+	/**
+	 * Retrieves the number of modules in this Configuration, including the modules of a
+	 * loader that have not been loaded yet, without copying the list of modules.
+	 * 
+	 * @return Number of modules
+	 */
+	public int getModuleCount() {
+		return modules.size() + getUnloadedModuleCount();
+	}
+	
+	/**
+	 * Makes room for the number of modules specified, so that adding modules up to that
+	 * number grows neither the list nor the index of modules. Meant to be called once before
+	 * adding many modules.
+	 * 
+	 * @param capacity Total number of modules to make room for
+	 */
+	public void ensureModuleCapacity(int capacity) {
+		
+		if(capacity <= modules.size()) {
+			return;
+		}
+		
+		modules.ensureCapacity(capacity);
+		
+		HashMap<String, Module> index = new HashMap<>(indexCapacity(capacity));
+		index.putAll(moduleIndex);
+		this.moduleIndex = index;
+	}
+	
+	/**
+	 * Sets the loader supplying modules of this Configuration on demand. The modules of the
+	 * loader are listed first, in the order of the loader, followed by the modules added to this
+	 * Configuration directly. A module is only loaded once it is looked up through
+	 * {@code getModule}, or once every module is needed, for example by {@code retrieveModules}
+	 * or an export. Modules of the loader with the same name as a module of this Configuration
+	 * are ignored.
+	 * 
+	 * <p>Errors of the loader are thrown as an {@code UncheckedIOException} by the method
+	 * that needed the module.</p>
+	 * 
+	 * @param loader The loader to be used
+	 */
+	public void setModuleLoader(ModuleLoader loader) {
+		
+		loadAll();
+		
+		String[] names = loader.getModuleNames();
+		HashMap<String, Integer> unloaded = new HashMap<>(indexCapacity(names.length));
+		for(int i = 0; i < names.length; i++) {
+			if(findModule(names[i]) == null) {
+				unloaded.put(names[i], i);
+			}
+		}
+		
+		if(unloaded.isEmpty()) {
+			return;
+		}
 		
+		this.loader = loader;
+		this.unloaded = unloaded;
+		this.loadedPositions = new IdentityHashMap<>();
+		this.loaderModuleCount = names.length;
+		structureChanged();
+	}
+	
+	/**
+	 * Retrieves the number of modules of the loader set through {@code setModuleLoader}
+	 * that have not been loaded yet.
+	 * 
+	 * @return Number of modules not loaded yet
+	 */
+	public int getUnloadedModuleCount() {
+		return (unloaded == null) ? 0 : unloaded.size();
+	}
+	
+	/**
+	 * Sets the SymbolTable used to deduplicate the IDs, module names and short values of this
+	 * Configuration. The properties and modules already added are switched over to the
+	 * canonical instances of the table, and so is everything added afterwards. A null table
+	 * stops the deduplication of new properties and modules.
+	 * 
+	 * @param symbols The SymbolTable to be used, can be shared between Configurations
+	 */
+	public void setSymbolTable(SymbolTable symbols) {
+		
+		loadAll();
+		internAll(symbols);
+		
+		for(int i = 0; i < modules.size(); i++) {
+			modules.get(i).internAll(symbols);
+		}
+		reindexModules();
+		
+	}
+	
+	/**
+	 * Retrieves the SymbolTable used to deduplicate the strings of this Configuration.
+	 * 
+	 * @return The SymbolTable, or null if none was set
+	 */
+	public SymbolTable getSymbolTable() {
+		return this.symbols;
 	}
 	
 	/**
@@ -99,6 +360,8 @@ public final class Configuration extends PropertyContainer {
 		
 		String[] configModules = null;
 		
+		loadAll();
+		
 		if(modules.size()==0 || modules == null) {
 			configModules = new String[0];
 		}
@@ -115,6 +378,28 @@ public final class Configuration extends PropertyContainer {
 		return configModules;
 	}
 	
+	/**
+	 * Retrieves the same listing as {@code retrieveConfigModules()}, with the modules
+	 * converted concurrently on the pool specified.
+	 * 
+	 * @param pool The pool to convert the modules on, for example {@code ForkJoinPool.commonPool()}
+	 * 
+	 * @return String array of all modules, or empty string array if there are no
+	 * modules for this Configuration
+	 */
+	public String[] retrieveConfigModules(ForkJoinPool pool) {
+		
+		loadAll();
+		StringBuilder[] parts = exportModules(pool, 0, modules.size(), false);
+		
+		String[] configModules = new String[parts.length];
+		for(int i = 0; i < parts.length; i++) {
+			configModules[i] = parts[i].toString();
+		}
+		
+		return configModules;
+	}
+	
 	/**
 	 * Retrieve the pointer to the set of modules and it's data as a list of 
 	 * Module objects. Any modifications to the returned ArrayList will affect 
@@ -127,6 +412,8 @@ public final class Configuration extends PropertyContainer {
 		
 		ArrayList<Module> moduleList = null;
 		
+		loadAll();
+		
 		//If empty, return an empty ArrayList
 		if(modules.size()==0 || modules == null) {
 			moduleList = new ArrayList<>(0);
@@ -148,47 +435,460 @@ public final class Configuration extends PropertyContainer {
 	 * Clears all the properties in this configuration.
 	 */
 	public void clearModules() {
+		
+		//Modules not loaded yet are only loaded when listeners need to be told about them
+		if(this.listeners != null) {
+			loadAll();
+		}
+		else {
+			dropLoader();
+		}
+		
+		ArrayList<Module> removed = this.modules;
+		for(int i = 0; i < removed.size(); i++) {
+			release(removed.get(i));
+		}
+		
 		createModules(DEFAULT_CAPACITY);
+		structureChanged();
+		
+		if(this.listeners != null) {
+			modulesRemoved(removed.toArray(new Module[removed.size()]));
+		}
 	}
 	
-	@Override
-	public String toString() {
+	/**
+	 * Registers a listener to be called after every change to this Configuration, its
+	 * modules and their properties. Properties shared with another Configuration report
+	 * their changes to the Configuration they were last added to.
+	 * 
+	 * @param listener The listener to be added
+	 */
+	public void addMutationListener(MutationListener listener) {
 		
-		//Add header
-		String returnValue = String.format(this.header + "%n%n");
+		MutationListener[] listeners = (this.listeners == null) ? new MutationListener[1]
+				: Arrays.copyOf(this.listeners, this.listeners.length + 1);
+		listeners[listeners.length - 1] = listener;
+		
+		attachAll(listeners);
+	}
+	
+	/**
+	 * Removes a listener registered through {@code addMutationListener}.
+	 * 
+	 * @param listener The listener to be removed
+	 * @return True if the listener was removed, false if it was not registered
+	 */
+	public boolean removeMutationListener(MutationListener listener) {
+		
+		MutationListener[] listeners = this.listeners;
+		if(listeners == null) {
+			return false;
+		}
+		
+		for(int i = 0; i < listeners.length; i++) {
+			if(listeners[i] == listener) {
+				
+				MutationListener[] remaining = null;
+				if(listeners.length > 1) {
+					remaining = new MutationListener[listeners.length - 1];
+					System.arraycopy(listeners, 0, remaining, 0, i);
+					System.arraycopy(listeners, i + 1, remaining, i, listeners.length - i - 1);
+				}
+				
+				attachAll(remaining);
+				return true;
+			}
+		}
+		
+		return false;
+	}
+	
+	/**
+	 * Registers a listener to be called after the key specified changes. A key of the form
+	 * {@code "module.property"} names a property of a module, a key without a dot names both
+	 * the top-level property and the module of that name - a module changes whenever it is
+	 * added, removed or renamed, or any of its properties changes. As with {@code get}, a key
+	 * with a dot also names the top-level property with the whole key as its ID.
+	 * 
+	 * <p>Changes are coalesced and dispatched in batches on a background thread, the thread
+	 * making a change never waits for a listener - see {@link ChangeListener}.</p>
+	 * 
+	 * @param key The key to watch
+	 * @param listener The listener to be called
+	 */
+	public void onChange(String key, ChangeListener listener) {
+		
+		if(this.changes == null) {
+			this.changes = new ChangeDispatcher(this);
+			addMutationListener(this.changes);
+		}
+		
+		this.changes.subscribe(key, listener);
+	}
+	
+	/**
+	 * Removes a listener registered through {@code onChange}.
+	 * 
+	 * @param key The key the listener was registered for
+	 * @param listener The listener to be removed
+	 * @return True if the listener was removed, false if it was not registered for the key
+	 */
+	public boolean removeChangeListener(String key, ChangeListener listener) {
 		
-		if( !(properties.size() == 0 || properties == null) ) {
-			returnValue += super.toString();
+		if(this.changes == null || !this.changes.unsubscribe(key, listener)) {
+			return false;
 		}
 		
+		//Without any listener left, changes are not reported at all
+		if(this.changes.isEmpty()) {
+			removeMutationListener(this.changes);
+			this.changes = null;
+		}
+		return true;
+	}
+	
+	/**
+	 * Writes this Configuration, in the same format as {@code toString}, directly to the
+	 * destination specified (for example a {@code java.io.Writer} or a {@code StringBuilder}).
+	 * No intermediate Strings are created for the modules or properties.
+	 * 
+	 * @param out Destination of the exported Configuration
+	 * @throws IOException If the destination cannot be written to
+	 */
+	public void serializeTo(Appendable out) throws IOException {
+		
+		//Add header
+		out.append(this.header).append(NEW_LINE).append(NEW_LINE);
+		
+		serializeProperties(out, 2);
+		
 		//Extra line between the properties and modules
-		returnValue += String.format("%n");
+		out.append(NEW_LINE);
 		
-		if( !(modules.size() == 0 || modules == null) ) {
-			String[] mods = this.retrieveConfigModules();
-			for (int i = 0; i < mods.length; i++) {
-				returnValue += String.format(mods[i] + "%n%n");
-			}			
+		loadAll();
+		for(int i = 0; i < modules.size(); i++) {
+			modules.get(i).serializeTo(out);
+			out.append(NEW_LINE).append(NEW_LINE);
 		}
 		
 		//Add the footer
-		returnValue += String.format("%n" + this.footer);
+		out.append(NEW_LINE).append(this.footer);
+		
+	}
+	
+	/**
+	 * Writes this Configuration the same way as {@code serializeTo(Appendable)}, with the
+	 * modules converted concurrently on the pool specified. Each module is converted into a
+	 * buffer of its own, and the buffers are written to the destination in order, so the output
+	 * is identical to the sequential one. Modules are converted a window at a time, which keeps
+	 * only part of the Configuration in memory as text. The Configuration must not be changed
+	 * while it is being written.
+	 * 
+	 * @param out Destination of the exported Configuration
+	 * @param pool The pool to convert the modules on, for example {@code ForkJoinPool.commonPool()}
+	 * @throws IOException If the destination cannot be written to
+	 */
+	public void serializeTo(Appendable out, ForkJoinPool pool) throws IOException {
 		
+		out.append(this.header).append(NEW_LINE).append(NEW_LINE);
+		serializeProperties(out, 2);
+		out.append(NEW_LINE);
+		
+		loadAll();
+		int window = Math.max(1, pool.getParallelism()) * EXPORT_WINDOW;
+		for(int from = 0; from < modules.size(); from += window) {
+			
+			StringBuilder[] parts = exportModules(pool, from, Math.min(modules.size(), from + window), true);
+			for(int i = 0; i < parts.length; i++) {
+				out.append(parts[i]);
+			}
+		}
 		
-		return returnValue;
+		out.append(NEW_LINE).append(this.footer);
+	}
+	
+	@Override
+	public String toString() {
+		
+		SerializeEvent event = new SerializeEvent();
+		event.begin();
+		long start = Metrics.start();
+		
+		StringBuilder returnValue = new StringBuilder();
+		try {
+			serializeTo(returnValue);
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+		
+		Metrics.stop(Metrics.Operation.SERIALIZE, start);
+		if(event.shouldCommit()) {
+			event.characters = returnValue.length();
+			event.modules = modules.size();
+			event.commit();
+		}
+		
+		return returnValue.toString();
+	}
+	
+	@Override
+	void structureChanged() {
+		structureVersion++;
 	}
 	
 	//Create the list of modules, can be used to clear the set as well
 	private void createModules(int capacity) {
 						
 		this.modules = new ArrayList<>(capacity);
+		this.moduleIndex = new HashMap<>(indexCapacity(capacity));
+		this.duplicateNames = false;
+		
+	}
+	
+	//Convert the modules in the range specified on the pool, each into a buffer of its own
+	private StringBuilder[] exportModules(ForkJoinPool pool, int from, int to, boolean separated) {
+		
+		StringBuilder[] parts = new StringBuilder[to - from];
+		if(parts.length > 0) {
+			pool.invoke(new ModuleExport(modules, parts, from, from, to, separated));
+		}
+		
+		return parts;
+	}
+	
+	//Look up the property of a module, or the top-level property of the whole path if there is no such module
+	Property resolve(String moduleID, String propertyID, String path) {
+		
+		Module module = (moduleID == null) ? null : findModule(moduleID);
+		return (module == null) ? findProperty(path) : module.findProperty(propertyID);
+	}
+	
+	//Retrieves the modules loaded so far, without loading the others
+	ArrayList<Module> loadedModules() {
+		return this.modules;
+	}
+	
+	//Look up a module without recording it in the metrics, loading it if needed
+	private Module findModule(String moduleID) {
+		
+		Module module = indexedModule(moduleID);
+		if(module == null && unloaded != null) {
+			module = loadModule(moduleID);
+		}
+		
+		return module;
+	}
+	
+	//Look up a module among the modules loaded so far
+	private Module indexedModule(String moduleID) {
+		return moduleIndex.get(moduleID);
+	}
+	
+	//Called by a Module of this Configuration after its name changed
+	void moduleRenamed(Module module, String oldName) {
+		
+		//Only the entries of the two names change, unless a name is held by several modules
+		if(!duplicateNames && moduleIndex.get(oldName) == module && !moduleIndex.containsKey(module.getModuleName())) {
+			moduleIndex.remove(oldName);
+			moduleIndex.put(module.getModuleName(), module);
+		}
+		else {
+			reindexModules();
+		}
+		structureChanged();
+	}
+	
+	//Load a single module of the loader, which is added at the end of the list for now
+	private Module loadModule(String moduleID) {
+		
+		Integer position = unloaded.get(moduleID);
+		if(position == null) {
+			return null;
+		}
+		
+		Module module = load(moduleID);
+		unloaded.remove(moduleID);
+		this.modules.add(module);
+		this.moduleIndex.put(module.getModuleName(), module);
+		module.configuration = this;
+		this.loadedPositions.put(module, position);
+		
+		if(unloaded.isEmpty()) {
+			loadAll();
+		}
+		
+		return module;
+	}
+	
+	//Load every remaining module of the loader and put the modules back in the order of the loader
+	private void loadAll() {
+		
+		if(this.loader == null) {
+			return;
+		}
+		
+		Module[] ordered = new Module[loaderModuleCount];
+		ArrayList<Module> added = new ArrayList<>();
+		
+		for(int i = 0; i < modules.size(); i++) {
+			Integer position = loadedPositions.get(modules.get(i));
+			if(position == null) {
+				added.add(modules.get(i));
+			}
+			else {
+				ordered[position] = modules.get(i);
+			}
+		}
+		
+		for(Map.Entry<String, Integer> entry : unloaded.entrySet()) {
+			ordered[entry.getValue()] = load(entry.getKey());
+		}
+		
+		ArrayList<Module> list = new ArrayList<>(loaderModuleCount + added.size());
+		for(int i = 0; i < ordered.length; i++) {
+			//Modules removed after they were loaded leave a gap
+			if(ordered[i] != null) {
+				list.add(ordered[i]);
+			}
+		}
+		list.addAll(added);
+		
+		this.modules = list;
+		dropLoader();
+		reindexModules();
+	}
+	
+	private Module load(String moduleID) {
+		
+		Module module;
+		try {
+			module = loader.load(moduleID);
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+		
+		if(this.symbols != null) {
+			module.internAll(this.symbols);
+		}
+		if(this.listeners != null) {
+			module.attach(this.listeners);
+		}
+		
+		return module;
+	}
+	
+	private void dropLoader() {
+		this.loader = null;
+		this.unloaded = null;
+		this.loadedPositions = null;
+		this.loaderModuleCount = 0;
+	}
+	
+	//Attach the listeners to this Configuration and every module, the array is never modified afterwards
+	private void attachAll(MutationListener[] listeners) {
+		
+		attach(listeners);
+		for(int i = 0; i < modules.size(); i++) {
+			modules.get(i).attach(listeners);
+		}
+	}
+	
+	private void modulesRemoved(Module... removed) {
+		
+		MutationListener[] listeners = this.listeners;
+		for(int i = 0; i < removed.length; i++) {
+			removed[i].attach(null);
+			for(int j = 0; j < listeners.length; j++) {
+				listeners[j].moduleRemoved(removed[i]);
+			}
+		}
+	}
+	
+	//Rebuild the index from the list of modules, the first of any duplicate names is kept
+	private void reindexModules() {
+		
+		//Filled completely before it replaces the index, which readers may still be using
+		HashMap<String, Module> index = new HashMap<>(indexCapacity(modules.size()));
+		boolean duplicateNames = false;
+		
+		for(int i = 0; i < modules.size(); i++) {
+			Module module = modules.get(i);
+			if(index.putIfAbsent(module.getModuleName(), module) != null) {
+				duplicateNames = true;
+			}
+			module.configuration = this;
+		}
 		
+		this.moduleIndex = index;
+		this.duplicateNames = duplicateNames;
 	}
 	
+	//A module removed from this Configuration no longer belongs to it, unless it was added elsewhere since
+	private void release(Module module) {
+		
+		if(module.configuration == this) {
+			module.configuration = null;
+		}
+	}
 	
 	
 	
 	
 	
 	
+	/*
+	 * Converts a range of modules into text, splitting the range in halves until it is small
+	 * enough to be converted by a single thread.
+	 */
+	private static final class ModuleExport extends RecursiveAction {
+		
+		private static final long serialVersionUID = 1L;
+		private final static int THRESHOLD = 8;
+		
+		private final ArrayList<Module> modules;
+		private final StringBuilder[] parts;
+		private final int offset;
+		private final int from;
+		private final int to;
+		private final boolean separated;
+		
+		ModuleExport(ArrayList<Module> modules, StringBuilder[] parts, int offset, int from, int to, boolean separated) {
+			this.modules = modules;
+			this.parts = parts;
+			this.offset = offset;
+			this.from = from;
+			this.to = to;
+			this.separated = separated;
+		}
+		
+		@Override
+		protected void compute() {
+			
+			if(to - from > THRESHOLD) {
+				int middle = (from + to) >>> 1;
+				invokeAll(new ModuleExport(modules, parts, offset, from, middle, separated),
+						new ModuleExport(modules, parts, offset, middle, to, separated));
+				return;
+			}
+			
+			for(int i = from; i < to; i++) {
+				
+				StringBuilder part = new StringBuilder();
+				try {
+					modules.get(i).serializeTo(part);
+				} catch (IOException e) {
+					throw new UncheckedIOException(e);
+				}
+				
+				//The same blank lines the sequential export writes after every module
+				if(separated) {
+					part.append(NEW_LINE).append(NEW_LINE);
+				}
+				parts[i - offset] = part;
+			}
+		}
+		
+	}
+	
 }
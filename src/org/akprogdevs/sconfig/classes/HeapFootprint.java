@@ -0,0 +1,231 @@
+package org.akprogdevs.sconfig.classes;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+
+/**
+ * An estimate of the heap used by a Configuration - its Property and Module objects, their lists
+ * and indexes, and the Strings they refer to. Strings are counted once per instance, and the
+ * report also shows how much would be left if equal Strings shared a single instance, which is
+ * what a {@link SymbolTable} does.
+ * 
+ * <p>The sizes are estimates for a 64-bit JVM with compressed references and compact Strings;
+ * they are meant to compare configurations and settings, not to match a heap dump exactly.</p>
+ * 
+ * @author AK Program Developers
+ *
+ */
+public final class HeapFootprint {
+	
+	private final static int OBJECT_HEADER = 12;
+	private final static int REFERENCE = 4;
+	private final static int ARRAY_HEADER = 16;
+	
+	private final static long PROPERTY_SIZE = align(OBJECT_HEADER + 5 * REFERENCE + 1);
+	private final static long CONTAINER_SIZE = align(OBJECT_HEADER + 6 * REFERENCE + 4);
+	private final static long ARRAY_LIST_SIZE = align(OBJECT_HEADER + 4 + 4 + REFERENCE);
+	private final static long HASH_MAP_SIZE = align(OBJECT_HEADER + 4 * REFERENCE + 4 * 4);
+	private final static long HASH_NODE_SIZE = align(OBJECT_HEADER + 4 + 3 * REFERENCE);
+	
+	private long propertyCount = 0;
+	private long moduleCount = 0;
+	private long objectBytes = 0;
+	private long stringCount = 0;
+	private long stringBytes = 0;
+	private long distinctStringBytes = 0;
+	
+	private final IdentityHashMap<String, Boolean> instances = new IdentityHashMap<>();
+	private final HashSet<String> values = new HashSet<>();
+	
+	private HeapFootprint() {
+		
+	}
+	
+	/**
+	 * Estimates the heap used by the Configuration specified, including all of its modules
+	 * loaded so far.
+	 * 
+	 * @param config The Configuration to be measured
+	 * @return The HeapFootprint of the Configuration
+	 */
+	public static HeapFootprint of(Configuration config) {
+		
+		HeapFootprint footprint = new HeapFootprint();
+		
+		footprint.addContainer(config);
+		footprint.addString(config.header);
+		footprint.addString(config.footer);
+		
+		//Modules not loaded yet take up no memory
+		ArrayList<Module> modules = config.loadedModules();
+		footprint.objectBytes += ARRAY_LIST_SIZE + align(ARRAY_HEADER + REFERENCE * modules.size()) 
+				+ hashTableSize(modules.size());
+		
+		for(int i = 0; i < modules.size(); i++) {
+			Module module = modules.get(i);
+			footprint.moduleCount++;
+			footprint.addContainer(module);
+			footprint.addString(module.getModuleName());
+			footprint.addString(module.getHeader());
+			footprint.addString(module.getFooter());
+		}
+		
+		//Only needed while measuring
+		footprint.instances.clear();
+		footprint.values.clear();
+		
+		return footprint;
+	}
+	
+	/**
+	 * Estimates the heap used by a single String, including its backing array.
+	 * 
+	 * @param value The String to be measured
+	 * @return Estimated number of bytes
+	 */
+	public static long stringSize(String value) {
+		
+		//Strings with characters beyond Latin-1 use two bytes per character
+		int bytesPerChar = 1;
+		for(int i = 0; i < value.length(); i++) {
+			if(value.charAt(i) > 0xFF) {
+				bytesPerChar = 2;
+				break;
+			}
+		}
+		
+		return align(OBJECT_HEADER + REFERENCE + 4 + 1 + 1) + align(ARRAY_HEADER + (long) value.length() * bytesPerChar);
+	}
+	
+	/**
+	 * Retrieves the number of properties, top-level and in modules.
+	 * 
+	 * @return Number of properties
+	 */
+	public long getPropertyCount() {
+		return this.propertyCount;
+	}
+	
+	/**
+	 * Retrieves the number of modules.
+	 * 
+	 * @return Number of modules
+	 */
+	public long getModuleCount() {
+		return this.moduleCount;
+	}
+	
+	/**
+	 * Retrieves the number of String references held by properties and modules.
+	 * 
+	 * @return Number of String references
+	 */
+	public long getStringCount() {
+		return this.stringCount;
+	}
+	
+	/**
+	 * Estimates the heap used by the Property and Module objects, their lists and indexes.
+	 * 
+	 * @return Estimated number of bytes
+	 */
+	public long getObjectBytes() {
+		return this.objectBytes;
+	}
+	
+	/**
+	 * Estimates the heap used by the String instances, each instance counted once.
+	 * 
+	 * @return Estimated number of bytes
+	 */
+	public long getStringBytes() {
+		return this.stringBytes;
+	}
+	
+	/**
+	 * Estimates the heap that duplicate Strings use - the String bytes that would be saved if
+	 * equal Strings shared a single instance.
+	 * 
+	 * @return Estimated number of bytes
+	 */
+	public long getDuplicateStringBytes() {
+		return this.stringBytes - this.distinctStringBytes;
+	}
+	
+	/**
+	 * Estimates the total heap used by the Configuration.
+	 * 
+	 * @return Estimated number of bytes
+	 */
+	public long getTotalBytes() {
+		return this.objectBytes + this.stringBytes;
+	}
+	
+	/**
+	 * Summarizes the estimated heap use of the Configuration.
+	 * 
+	 * @return A readable report
+	 */
+	@Override
+	public String toString() {
+		return "HeapFootprint: " + getTotalBytes() + " bytes total, " + moduleCount + " modules, " 
+				+ propertyCount + " properties (" + objectBytes + " bytes), " + stringCount + " strings (" 
+				+ stringBytes + " bytes, " + getDuplicateStringBytes() + " bytes in duplicates)";
+	}
+	
+	//Table size, in bytes, of a HashMap holding the number of entries specified
+	static long hashTableSize(int entries) {
+		
+		int capacity = 1;
+		while(capacity * 0.75 < entries) {
+			capacity <<= 1;
+		}
+		
+		return HASH_MAP_SIZE + align(ARRAY_HEADER + (long) REFERENCE * capacity) + HASH_NODE_SIZE * entries;
+	}
+	
+	private void addContainer(PropertyContainer container) {
+		
+		ArrayList<Property> properties = container.properties;
+		objectBytes += CONTAINER_SIZE + ARRAY_LIST_SIZE + align(ARRAY_HEADER + REFERENCE * properties.size())
+				+ hashTableSize(properties.size());
+		
+		for(int i = 0; i < properties.size(); i++) {
+			
+			Property property = properties.get(i);
+			String[] validValues = property.getValidValues();
+			
+			propertyCount++;
+			objectBytes += PROPERTY_SIZE + ARRAY_LIST_SIZE + align(ARRAY_HEADER + REFERENCE * validValues.length);
+			
+			addString(property.getID());
+			addString(property.getValue());
+			for(int j = 0; j < validValues.length; j++) {
+				addString(validValues[j]);
+			}
+		}
+	}
+	
+	private void addString(String value) {
+		
+		if(value == null) {
+			return;
+		}
+		
+		stringCount++;
+		
+		if(instances.put(value, Boolean.TRUE) == null) {
+			long size = stringSize(value);
+			stringBytes += size;
+			if(values.add(value)) {
+				distinctStringBytes += size;
+			}
+		}
+	}
+	
+	private static long align(long size) {
+		return (size + 7) & ~7L;
+	}
+
+}
@@ -1,5 +1,8 @@
 package org.akprogdevs.sconfig.classes;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+
 /**
  * The Module class can contain a unique subset of Properties independent from the parent
  * Configuration that a Module is part of. Included are methods to get/set private attributes, toString, etc.
@@ -14,6 +17,9 @@ public final class Module extends PropertyContainer {
 	private String header = null;
 	private String footer = null;
 	
+	//Configuration this module was last added to, which indexes it by name
+	Configuration configuration = null;
+	
 	/**
 	 * Default constructor that initializes a set of properties of size zero (0) 
 	 * for this Module. Spaces, if any, will be eliminated automatically from the module
@@ -70,8 +76,24 @@ public final class Module extends PropertyContainer {
 	 * @param moduleName The module name to be set or changed.
 	 */
 	public void setModuleName(String moduleName) {
-		this.moduleName = moduleName.replaceAll(" ", "");
+		
+		String newName = SymbolTable.normalize(moduleName);
+		String oldName = this.moduleName;
+		boolean renamed = !newName.equals(oldName);
+		
+		this.moduleName = newName;
 		updateModuleIdentifier();
+		
+		if(configuration != null && renamed) {
+			configuration.moduleRenamed(this, oldName);
+		}
+		
+		MutationListener[] listeners = this.listeners;
+		if(listeners != null && renamed) {
+			for(int i = 0; i < listeners.length; i++) {
+				listeners[i].moduleRenamed(this, oldName);
+			}
+		}
 	}
 		
 	/**
@@ -82,17 +104,57 @@ public final class Module extends PropertyContainer {
 	@Override
 	public String toString() {
 		
-		//Return the identifier only if there are no properties
-		if(properties.size() == 0 || properties == null) {
-			return String.format("  " + this.header + "%n%n" + "  " + this.footer);
+		StringBuilder returnValue = new StringBuilder();
+		try {
+			serializeTo(returnValue);
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+		
+		return returnValue.toString();
+	}
+	
+	/**
+	 * Writes this Module, in the same format as {@code toString}, directly to the
+	 * destination specified without creating intermediate Strings.
+	 * 
+	 * @param out Destination of the module identifier and child properties
+	 * @throws IOException If the destination cannot be written to
+	 */
+	public void serializeTo(Appendable out) throws IOException {
+		
+		indent(out, 2);
+		out.append(this.header).append(NEW_LINE).append(NEW_LINE);
+		
+		//Write the identifier only if there are no properties
+		if(properties.size() > 0) {
+			serializeProperties(out, 4);
+			out.append(NEW_LINE);
 		}
 		
-		else {
-			String returnValue = String.format("  " + this.header + "%n%n");
-			returnValue += super.moreSpaces(4);
-			returnValue += String.format("%n" + "  " + this.footer);
-			
-			return returnValue;
+		indent(out, 2);
+		out.append(this.footer);
+	}
+	
+	@Override
+	Module asModule() {
+		return this;
+	}
+	
+	@Override
+	void internAll(SymbolTable symbols) {
+		
+		if(symbols != null) {
+			this.moduleName = symbols.intern(this.moduleName);
+		}
+		super.internAll(symbols);
+	}
+	
+	//A module on its own has no ConfigKeys, those of the Configuration it belongs to are told instead
+	@Override
+	void structureChanged() {
+		if(configuration != null) {
+			configuration.structureChanged();
 		}
 	}
 	
@@ -0,0 +1,34 @@
+package org.akprogdevs.sconfig.classes;
+
+import java.io.IOException;
+
+/**
+ * Supplies the modules of a Configuration on demand, once set through
+ * {@code Configuration.setModuleLoader}. A module is only loaded the first time it is looked
+ * up, or when every module is needed at once - for example by {@code retrieveModules} or when
+ * the Configuration is exported.
+ *
+ * @author AK Program Developers
+ *
+ */
+public interface ModuleLoader {
+	
+	/**
+	 * Retrieves the names of the modules this loader can load, in the order they should be
+	 * listed in the Configuration.
+	 *
+	 * @return The module names, without duplicates
+	 */
+	String[] getModuleNames();
+	
+	/**
+	 * Creates the Module of the name specified, along with its properties. Each name is
+	 * loaded at most once.
+	 *
+	 * @param moduleName Name of one of the modules of this loader
+	 * @return The new Module
+	 * @throws IOException If the module cannot be read
+	 */
+	Module load(String moduleName) throws IOException;
+
+}
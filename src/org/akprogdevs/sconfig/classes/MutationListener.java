@@ -0,0 +1,89 @@
+package org.akprogdevs.sconfig.classes;
+
+/**
+ * Receives the changes made to a Configuration, its modules and their properties, once
+ * registered through {@code Configuration.addMutationListener}. Listeners are called on the
+ * thread making the change, right after the change is made, so they should be quick - for
+ * example by recording the change and handling it later.
+ * 
+ * <p>The module argument is the Module the property belongs to, or null for the top-level
+ * properties of the Configuration. All methods do nothing by default.</p>
+ * 
+ * @author AK Program Developers
+ *
+ */
+public interface MutationListener {
+	
+	/**
+	 * Called after a property was added, through {@code addProperty}, {@code addExistingProperty}
+	 * or {@code setProperties}.
+	 * 
+	 * @param module The Module of the property, or null for a top-level property
+	 * @param property The Property added
+	 */
+	default void propertyAdded(Module module, Property property) {
+		
+	}
+	
+	/**
+	 * Called after a property was removed, through {@code removeProperty}, {@code clearProperties}
+	 * or {@code setProperties}.
+	 * 
+	 * @param module The Module of the property, or null for a top-level property
+	 * @param property The Property removed
+	 */
+	default void propertyRemoved(Module module, Property property) {
+		
+	}
+	
+	/**
+	 * Called after the value or the valid values of a property were changed.
+	 * 
+	 * @param module The Module of the property, or null for a top-level property
+	 * @param property The Property changed
+	 */
+	default void propertyChanged(Module module, Property property) {
+		
+	}
+	
+	/**
+	 * Called after the ID of a property was changed through {@code setID}.
+	 * 
+	 * @param module The Module of the property, or null for a top-level property
+	 * @param property The Property renamed
+	 * @param oldID The ID of the property before the change
+	 */
+	default void propertyRenamed(Module module, Property property, String oldID) {
+		
+	}
+	
+	/**
+	 * Called after a module was added, through {@code addModule} or {@code addExistingModule}.
+	 * The properties the Module already holds are not reported separately.
+	 * 
+	 * @param module The Module added
+	 */
+	default void moduleAdded(Module module) {
+		
+	}
+	
+	/**
+	 * Called after a module was removed, through {@code removeModule} or {@code clearModules}.
+	 * 
+	 * @param module The Module removed
+	 */
+	default void moduleRemoved(Module module) {
+		
+	}
+	
+	/**
+	 * Called after the name of a module was changed through {@code setModuleName}.
+	 * 
+	 * @param module The Module renamed
+	 * @param oldName The name of the module before the change
+	 */
+	default void moduleRenamed(Module module, String oldName) {
+		
+	}
+
+}
@@ -1,6 +1,11 @@
 package org.akprogdevs.sconfig.classes;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.ArrayList;
+import java.util.HashMap;
+
+import org.akprogdevs.sconfig.metrics.Metrics;
 
 /**
  * The Property class, contains a matching pair of property name/ID and its corresponding
@@ -8,14 +13,44 @@ import java.util.ArrayList;
  * a method to set valid values, and a toString to format
  * the output property in the configuration file. 
  * 
+ * <p>A Property is not thread-safe while its valid values change - the list and the hashed
+ * form of the valid values are updated in place, so other threads must not read the Property
+ * until the change is complete.</p>
+ * 
  * @author AK Program Developers
  *
  */
 public final class Property {
 
+	/**
+	 * Keyword for a property without a value.
+	 */
+	public final static String NO_VALUE = "novalue";
+	
+	/**
+	 * Keyword that enforces the use of the default valid value.
+	 */
+	public final static String USE_DEFAULT = "usedefault";
+	
+	/**
+	 * Prefix that marks the default in a list of valid values.
+	 */
+	public final static String DEFAULT_PREFIX = "default.";
+	
 	private String propertyID;
 	private String value;
 	private ArrayList<String> validValues = new ArrayList<>(0);
+	//Slots of the list above emptied by removeValidValue, until the list is compacted
+	private int removedValues = 0;
+	
+	//Typed representations of the value, parsed on first use and dropped by setValue
+	private TypedValue typed = null;
+	
+	//Hashed form of the valid values, built on first use and dropped when the list changes
+	private CompiledValues compiled = null;
+	
+	//Container this property was last added to, which indexes it by ID and reports its changes
+	PropertyContainer owner = null;
 	
 	/**
 	 * Constructor that accepts an ID and its corresponding value. Spaces, if any, in the
@@ -26,7 +61,7 @@ public final class Property {
 	public Property(String id, String value) {
 	
 		this.setID(id);;
-		this.setValue(value);;
+		this.value = value;
 		
 	}
 	
@@ -40,7 +75,7 @@ public final class Property {
 	public Property(String id, String value, String[] validValues) {
 	
 		this.setID(id);;
-		this.setValue(value);;
+		this.value = value;
 		setValidValues(validValues);
 	}
 	
@@ -60,7 +95,15 @@ public final class Property {
 	 */
 	public void setID(String id) {
 		
-		this.propertyID = id.replaceAll(" ", "");
+		String newID = SymbolTable.normalize(id);
+		String oldID = this.propertyID;
+		boolean renamed = !newID.equals(oldID);
+		
+		this.propertyID = newID;
+		
+		if(owner != null && renamed) {
+			owner.propertyRenamed(this, oldID);
+		}
 	}
 	
 	/**
@@ -77,7 +120,136 @@ public final class Property {
 	 * @param value The property value to be set
 	 */
 	public void setValue(String value) {
+		
+		long start = Metrics.start();
+		
 		this.value = value;
+		this.typed = null;
+		
+		if(owner != null) {
+			owner.propertyChanged(this);
+		}
+		
+		Metrics.stop(Metrics.Operation.PROPERTY_MUTATION, start);
+	}
+	
+	/**
+	 * Retrieves the value of this property as an int. The value is only parsed the first
+	 * time, until it is changed through {@code setValue}.
+	 * 
+	 * @return The property value as an int
+	 * @throws NumberFormatException If the value is not a valid int
+	 */
+	public int getInt() {
+		
+		long longValue = getLong();
+		if(longValue < Integer.MIN_VALUE || longValue > Integer.MAX_VALUE) {
+			throw new NumberFormatException("Value out of range for an int: \"" + this.value + "\"");
+		}
+		
+		return (int) longValue;
+	}
+	
+	/**
+	 * Retrieves the value of this property as a long. The value is only parsed the first
+	 * time, until it is changed through {@code setValue}.
+	 * 
+	 * @return The property value as a long
+	 * @throws NumberFormatException If the value is not a valid long
+	 */
+	public long getLong() {
+		
+		TypedValue typed = typedValue(TypedValue.LONG);
+		if((typed.flags & TypedValue.LONG_INVALID) != 0) {
+			throw new NumberFormatException("For input string: \"" + typed.source + "\"");
+		}
+		
+		return typed.longValue;
+	}
+	
+	/**
+	 * Retrieves the value of this property as a double. The value is only parsed the first
+	 * time, until it is changed through {@code setValue}.
+	 * 
+	 * @return The property value as a double
+	 * @throws NumberFormatException If the value is not a valid double
+	 */
+	public double getDouble() {
+		
+		TypedValue typed = typedValue(TypedValue.DOUBLE);
+		if((typed.flags & TypedValue.DOUBLE_INVALID) != 0) {
+			throw new NumberFormatException("For input string: \"" + typed.source + "\"");
+		}
+		
+		return typed.doubleValue;
+	}
+	
+	/**
+	 * Retrieves the value of this property as a boolean, the same way as 
+	 * {@code Boolean.parseBoolean} - only "true", ignoring case, is true. The value is only
+	 * parsed the first time, until it is changed through {@code setValue}.
+	 * 
+	 * @return The property value as a boolean
+	 */
+	public boolean getBoolean() {
+		return typedValue(TypedValue.BOOLEAN).booleanValue;
+	}
+	
+	/**
+	 * Retrieves the value of this property as a constant of the enum type specified, the
+	 * value must match the name of the constant exactly. The constant is only looked up the
+	 * first time, until the value is changed through {@code setValue}.
+	 * 
+	 * @param <E> The enum type
+	 * @param type The class of the enum type
+	 * @return The enum constant named by the property value
+	 * @throws IllegalArgumentException If the enum type has no constant of that name
+	 */
+	public <E extends Enum<E>> E getEnum(Class<E> type) {
+		
+		TypedValue typed = this.typed;
+		
+		if(typed == null || typed.source != this.value || typed.enumValue == null 
+				|| typed.enumValue.getDeclaringClass() != type) {
+			
+			String source = this.value;
+			typed = new TypedValue(typed, source, 0, 0, 0, false, Enum.valueOf(type, source));
+			this.typed = typed;
+		}
+		
+		return type.cast(typed.enumValue);
+	}
+	
+	//The cached typed value, after parsing the representation specified if it is missing
+	private TypedValue typedValue(int kind) {
+		
+		TypedValue typed = this.typed;
+		String source = this.value;
+		
+		if(typed != null && typed.source == source && (typed.flags & kind) != 0) {
+			return typed;
+		}
+		
+		if(kind == TypedValue.LONG) {
+			try {
+				typed = new TypedValue(typed, source, TypedValue.LONG, Long.parseLong(source), 0, false, null);
+			} catch (NumberFormatException e) {
+				typed = new TypedValue(typed, source, TypedValue.LONG | TypedValue.LONG_INVALID, 0, 0, false, null);
+			}
+		}
+		else if(kind == TypedValue.DOUBLE) {
+			try {
+				typed = new TypedValue(typed, source, TypedValue.DOUBLE, 0, Double.parseDouble(source), false, null);
+			} catch (NumberFormatException | NullPointerException e) {
+				typed = new TypedValue(typed, source, TypedValue.DOUBLE | TypedValue.DOUBLE_INVALID, 0, 0, false, null);
+			}
+		}
+		else {
+			typed = new TypedValue(typed, source, TypedValue.BOOLEAN, 0, 0, Boolean.parseBoolean(source), null);
+		}
+		
+		this.typed = typed;
+		return typed;
 	}
 	
 	/**
@@ -86,10 +258,13 @@ public final class Property {
 	 */
 	public String[] getValidValues() {
 		
-		String[] returnArray = new String[this.validValues.size()];
+		String[] returnArray = new String[this.validValues.size() - this.removedValues];
+		int count = 0;
 		
 		for(int i = 0; i < this.validValues.size(); i++) {
-			returnArray[i] = this.validValues.get(i);
+			if(this.validValues.get(i) != null) {
+				returnArray[count++] = this.validValues.get(i);
+			}
 			//System.out.println(this.validValues.get(i));
 		}
 		
@@ -103,12 +278,17 @@ public final class Property {
 	 * @param validValues String array of valid values for this property value
 	 */
 	public void setValidValues(String[] validValues) {
-		clearValidValues();
+		this.validValues = new ArrayList<>(validValues.length);
+		this.removedValues = 0;
+		this.compiled = null;
 		
 		for(int i = 0; i < validValues.length; i++) {
 			this.validValues.add(validValues[i]);
 		}		
 		
+		if(owner != null) {
+			owner.propertyChanged(this);
+		}
 	}
 	
 	/**
@@ -121,13 +301,17 @@ public final class Property {
 	 */
 	public boolean addValidValue(String validValue) {
 		
-		for(int i = 0; i < validValues.size(); i++) {
-			if(validValues.get(i).equals(validValue)) {
-				return false;
-			}
+		CompiledValues compiled = compiledValues();
+		if(compiled.positions.containsKey(validValue)) {
+			return false;
 		}
 		
 		validValues.add(validValue);
+		this.compiled = compiled.add(validValue, validValues.size() - 1);
+		
+		if(owner != null) {
+			owner.propertyChanged(this);
+		}
 		return true;
 		
 	}
@@ -141,14 +325,34 @@ public final class Property {
 	 */
 	public boolean removeValidValue(String validValue) {
 		
-		for(int i = 0; i < validValues.size(); i++) {
-			if(validValues.get(i).equals(validValue)) {
-				this.validValues.remove(i);
-				return true;
+		CompiledValues compiled = compiledValues();
+		Integer position = compiled.positions.get(validValue);
+		if(position == null) {
+			return false;
+		}
+		
+		//Empty the slot instead of shifting the rest of the list, the positions stay valid
+		this.validValues.set(position, null);
+		this.removedValues++;
+		this.compiled = compiled.remove(this.validValues, validValue, position);
+		
+		//Compact the list once half of it is empty slots
+		if(this.removedValues > this.validValues.size() / 2) {
+			ArrayList<String> remaining = new ArrayList<>(this.validValues.size() - this.removedValues);
+			for(int i = 0; i < this.validValues.size(); i++) {
+				if(this.validValues.get(i) != null) {
+					remaining.add(this.validValues.get(i));
+				}
 			}
+			this.validValues = remaining;
+			this.removedValues = 0;
+			this.compiled = new CompiledValues(remaining);
 		}
 		
-		return false;
+		if(owner != null) {
+			owner.propertyChanged(this);
+		}
+		return true;
 		
 	}
 	
@@ -158,6 +362,99 @@ public final class Property {
 	 */
 	public void clearValidValues() {
 		this.validValues = new ArrayList<>(0);
+		this.removedValues = 0;
+		this.compiled = null;
+		
+		if(owner != null) {
+			owner.propertyChanged(this);
+		}
+	}
+	
+	/**
+	 * Checks whether a value is one of the valid values of this Property, a valid value marked
+	 * as the default (with the {@code default.} prefix) counts without its prefix. Any value
+	 * is valid if there is no list of valid values.
+	 * 
+	 * @param value The value to be checked
+	 * @return True if the value is valid, false otherwise
+	 */
+	public boolean isValidValue(String value) {
+		return !hasValidValues() || compiledValues().allowed.containsKey(value);
+	}
+	
+	/**
+	 * Retrieves the default value, marked with the {@code default.} prefix in the list of 
+	 * valid values. If several values are marked, the first one is returned.
+	 * 
+	 * @return The default value without its prefix, or null if there is no default
+	 */
+	public String getDefaultValue() {
+		return !hasValidValues() ? null : compiledValues().defaultValue;
+	}
+	
+	/**
+	 * Retrieves the number of valid values marked as the default, which should be at most one (1).
+	 * 
+	 * @return Number of default values
+	 */
+	public int getDefaultValueCount() {
+		return !hasValidValues() ? 0 : compiledValues().defaultCount;
+	}
+	
+	/**
+	 * Retrieves the value this Property stands for after applying the keywords of the
+	 * format: {@code usedefault} resolves to the default valid value, and {@code novalue}
+	 * to no value at all.
+	 * 
+	 * @return The effective value, or null for {@code novalue} or a missing default
+	 */
+	public String getEffectiveValue() {
+		
+		if(NO_VALUE.equals(this.value)) {
+			return null;
+		}
+		if(USE_DEFAULT.equals(this.value)) {
+			return getDefaultValue();
+		}
+		
+		return this.value;
+	}
+	
+	//Replace the ID, value and valid values with the canonical instances of the table
+	void intern(SymbolTable symbols) {
+		
+		this.propertyID = symbols.intern(this.propertyID);
+		
+		String value = symbols.internValue(this.value);
+		if(value != this.value) {
+			this.value = value;
+			this.typed = null;
+		}
+		
+		for(int i = 0; i < validValues.size(); i++) {
+			if(validValues.get(i) != null) {
+				validValues.set(i, symbols.internValue(validValues.get(i)));
+			}
+		}
+		//The hashed values would otherwise keep the duplicates alive
+		this.compiled = null;
+	}
+	
+	//Whether there are valid values, not counting the slots emptied by removeValidValue
+	private boolean hasValidValues() {
+		return validValues.size() > removedValues;
+	}
+	
+	//The hashed valid values, compiled from the list if the list was replaced since last time
+	private CompiledValues compiledValues() {
+		
+		CompiledValues compiled = this.compiled;
+		if(compiled == null) {
+			compiled = new CompiledValues(this.validValues);
+			this.compiled = compiled;
+		}
+		
+		return compiled;
 	}
 	
 	/**
@@ -169,28 +466,217 @@ public final class Property {
 	@Override
 	public String toString() {
 		
-		if(validValues == null || validValues.size() <= 0) {
-			return "<"+ this.propertyID + ":" + this.value +">";
+		StringBuilder returnValue = new StringBuilder();
+		try {
+			serializeTo(returnValue);
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
 		}
-		else {
+		
+		return returnValue.toString();
+	}
+	
+	/**
+	 * Writes this Property, in the same format as {@code toString}, directly to the
+	 * destination specified without creating an intermediate String.
+	 * 
+	 * @param out Destination of the export property
+	 * @throws IOException If the destination cannot be written to
+	 */
+	public void serializeTo(Appendable out) throws IOException {
+		
+		out.append('<').append(this.propertyID).append(':').append(this.value);
+		
+		if(validValues != null && hasValidValues()) {
+			
+			out.append('[');
+			
+			boolean first = true;
+			for(int i = 0; i < validValues.size(); i++) {
+				if(validValues.get(i) == null) {
+					continue;
+				}
+				if(!first) {
+					out.append(',');
+				}
+				out.append(validValues.get(i));
+				first = false;
+			}
 			
-			String returnValue = "<"+ this.propertyID + ":" + this.value + "[";
+			out.append(']');
+		}
+		
+		out.append('>');
+	}
+	
+	/*
+	 * Hashed form of a list of valid values - the position of each entry in the list, and the
+	 * values the entries allow once the default prefix is removed. Unlike TypedValue, a holder is
+	 * not immutable: adding or removing a valid value updates the maps in place, and the new
+	 * holder only carries the new default along with the same maps. Like the list of valid
+	 * values itself, it must therefore not be read by other threads while valid values change.
+	 */
+	private static final class CompiledValues {
+		
+		//Position in the list of each entry, the first one if an entry is listed more than once
+		final HashMap<String, Integer> positions;
+		//Values allowed, with the number of entries allowing each
+		final HashMap<String, Integer> allowed;
+		final boolean duplicateEntries;
+		final String defaultValue;
+		final int defaultPosition;
+		final int defaultCount;
+		
+		CompiledValues(ArrayList<String> validValues) {
+			
+			int capacity = (int) (validValues.size() / 0.75f) + 1;
+			this.positions = new HashMap<>(capacity);
+			this.allowed = new HashMap<>(capacity);
+			
+			boolean duplicateEntries = false;
+			String defaultValue = null;
+			int defaultPosition = -1;
+			int defaultCount = 0;
 			
 			for(int i = 0; i < validValues.size(); i++) {
 				
-				if(i < validValues.size()- 1) {
-					returnValue += validValues.get(i) + ",";
+				String entry = validValues.get(i);
+				if(entry == null) {
+					continue;
 				}
-				else if(i == validValues.size() - 1) {
-					returnValue += validValues.get(i) + "]>";
+				
+				if(positions.putIfAbsent(entry, i) != null) {
+					duplicateEntries = true;
 				}
+				allowed.merge(allowedValue(entry), 1, Integer::sum);
 				
+				if(entry.startsWith(DEFAULT_PREFIX) && defaultCount++ == 0) {
+					defaultValue = allowedValue(entry);
+					defaultPosition = i;
+				}
 			}
 			
-			return returnValue;
+			this.duplicateEntries = duplicateEntries;
+			this.defaultValue = defaultValue;
+			this.defaultPosition = defaultPosition;
+			this.defaultCount = defaultCount;
+		}
+		
+		private CompiledValues(CompiledValues previous, boolean duplicateEntries, String defaultValue,
+				int defaultPosition, int defaultCount) {
+			
+			this.positions = previous.positions;
+			this.allowed = previous.allowed;
+			this.duplicateEntries = duplicateEntries;
+			this.defaultValue = defaultValue;
+			this.defaultPosition = defaultPosition;
+			this.defaultCount = defaultCount;
+		}
+		
+		//Holder after the entry specified was added to the end of the list
+		CompiledValues add(String entry, int position) {
+			
+			boolean duplicateEntries = positions.putIfAbsent(entry, position) != null || this.duplicateEntries;
+			allowed.merge(allowedValue(entry), 1, Integer::sum);
+			
+			if(!entry.startsWith(DEFAULT_PREFIX)) {
+				return new CompiledValues(this, duplicateEntries, defaultValue, defaultPosition, defaultCount);
+			}
+			if(defaultCount == 0) {
+				return new CompiledValues(this, duplicateEntries, allowedValue(entry), position, 1);
+			}
+			return new CompiledValues(this, duplicateEntries, defaultValue, defaultPosition, defaultCount + 1);
+		}
+		
+		//Holder after the entry specified was emptied from its position in the list
+		CompiledValues remove(ArrayList<String> validValues, String entry, int position) {
+			
+			positions.remove(entry);
+			
+			//Another listing of the same entry further down takes its place
+			if(duplicateEntries) {
+				for(int i = position + 1; i < validValues.size(); i++) {
+					if(entry.equals(validValues.get(i))) {
+						positions.put(entry, i);
+						break;
+					}
+				}
+			}
+			
+			allowed.merge(allowedValue(entry), -1, (count, change) -> (count + change == 0) ? null : count + change);
+			
+			if(!entry.startsWith(DEFAULT_PREFIX)) {
+				return new CompiledValues(this, duplicateEntries, defaultValue, defaultPosition, defaultCount);
+			}
+			if(position != defaultPosition) {
+				return new CompiledValues(this, duplicateEntries, defaultValue, defaultPosition, defaultCount - 1);
+			}
+			
+			//The default was removed, the next default listed becomes the default
+			for(int i = position + 1; i < validValues.size(); i++) {
+				String next = validValues.get(i);
+				if(next != null && next.startsWith(DEFAULT_PREFIX)) {
+					return new CompiledValues(this, duplicateEntries, allowedValue(next), i, defaultCount - 1);
+				}
+			}
+			return new CompiledValues(this, duplicateEntries, null, -1, defaultCount - 1);
+		}
+		
+		//The value an entry allows, without the default prefix
+		private static String allowedValue(String entry) {
+			return entry.startsWith(DEFAULT_PREFIX) ? entry.substring(DEFAULT_PREFIX.length()) : entry;
 		}
 		
 	}
 	
+	/*
+	 * Immutable holder of the parsed forms of one value. A new holder, which keeps the forms
+	 * already parsed from the same value, replaces the old one whenever another form is parsed -
+	 * threads reading a Property concurrently therefore never see a half-filled holder.
+	 */
+	private static final class TypedValue {
+		
+		final static int LONG = 1;
+		final static int LONG_INVALID = 2;
+		final static int DOUBLE = 4;
+		final static int DOUBLE_INVALID = 8;
+		final static int BOOLEAN = 16;
+		
+		final String source;
+		final int flags;
+		final long longValue;
+		final double doubleValue;
+		final boolean booleanValue;
+		final Enum<?> enumValue;
+		
+		TypedValue(TypedValue previous, String source, int flags, long longValue, double doubleValue,
+				boolean booleanValue, Enum<?> enumValue) {
+			
+			//Keep what was already parsed from the same value
+			if(previous != null && previous.source == source) {
+				if((flags & LONG) == 0) {
+					longValue = previous.longValue;
+				}
+				if((flags & DOUBLE) == 0) {
+					doubleValue = previous.doubleValue;
+				}
+				if((flags & BOOLEAN) == 0) {
+					booleanValue = previous.booleanValue;
+				}
+				if(enumValue == null) {
+					enumValue = previous.enumValue;
+				}
+				flags |= previous.flags;
+			}
+			
+			this.source = source;
+			this.flags = flags;
+			this.longValue = longValue;
+			this.doubleValue = doubleValue;
+			this.booleanValue = booleanValue;
+			this.enumValue = enumValue;
+		}
+		
+	}
 	
 }
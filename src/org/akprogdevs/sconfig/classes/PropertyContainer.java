@@ -1,12 +1,28 @@
 package org.akprogdevs.sconfig.classes;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.ArrayList;
+import java.util.HashMap;
+
+import org.akprogdevs.sconfig.metrics.Metrics;
 
 class PropertyContainer {
 
 	//List of properties ArrayList
 	protected ArrayList<Property> properties;
+	//Index of the same properties by ID, the list above keeps the insertion order
+	private HashMap<String, Property> propertyIndex;
+	//Whether the list holds several properties with the same ID, of which the index only holds the first
+	private boolean duplicateIDs;
+	//Table of canonical IDs and values, null unless set on the Configuration
+	SymbolTable symbols = null;
+	//Listeners of the Configuration this container belongs to, null while there are none
+	MutationListener[] listeners = null;
 	private final static int DEFAULT_CAPACITY = 0;
+	//Line separator written between the lines of the configuration file
+	final static String NEW_LINE = System.lineSeparator();
+	private final static String SPACES = "        ";
 
 	PropertyContainer() {
 		createProperties(DEFAULT_CAPACITY);
@@ -27,20 +43,14 @@ class PropertyContainer {
 	 */
 	public boolean addProperty(String id, String value) {
 		
-		//Check to find any duplicate property IDs
-		for(int i = 0; i < properties.size(); i++) {
-			if(properties.get(i).getID().equals(id)) {
-				return false;
-			}
-		}
-		
-		//Add the property, provided it passes above no-duplicate property test
-		properties.add((properties.size()), (new Property(id, value)));
-		return true;
+		//Add the property, provided it passes the no-duplicate property test
+		return addExistingProperty(new Property(id, value));
 	}
 	
 	/**
-	 * Adds an existing Property object to the list of properties.
+	 * Adds an existing Property object to the list of properties. A Property belongs to the
+	 * container it was last added to - changing its ID through {@code setID} only updates the
+	 * index of that container.
 	 * 
 	 * @param property Property object to be added
 	 * @return True if the property was added to the set successfully, 
@@ -49,14 +59,30 @@ class PropertyContainer {
 	public boolean addExistingProperty(Property property) {
 		
 		//Check to find any duplicate property IDs
-		for(int i = 0; i < properties.size(); i++) {
-			if(properties.get(i).getID().equals(property.getID())) {
-				return false;
-			}
+		if(findProperty(property.getID()) != null) {
+			return false;
+		}
+		
+		long start = Metrics.start();
+		
+		if(symbols != null) {
+			property.intern(symbols);
 		}
 		
 		//Add the property, provided it passes above no-duplicate property test
 		properties.add((properties.size()), property);
+		propertyIndex.put(property.getID(), property);
+		property.owner = this;
+		structureChanged();
+		
+		MutationListener[] listeners = this.listeners;
+		if(listeners != null) {
+			for(int i = 0; i < listeners.length; i++) {
+				listeners[i].propertyAdded(asModule(), property);
+			}
+		}
+		
+		Metrics.stop(Metrics.Operation.PROPERTY_MUTATION, start);
 		return true;
 	}
 	
@@ -70,17 +96,106 @@ class PropertyContainer {
 		
 		//Search for an property ID, if found remove property and return true to caller
 		//else return false
-		for(int i = 0; i < properties.size(); i++) {
-			if(properties.get(i).getID().equals(id)) {
+		Property property = findProperty(id);
+		if(property == null) {
+			return false;
+		}
+		
+		long start = Metrics.start();
+		
+		for(int i = properties.size() - 1; i >= 0; i--) {
+			if(properties.get(i) == property) {
 				properties.remove(i);
-				return true;
+				break;
 			}
 		}
+		release(property);
 		
-		return false;
+		//Another property with the same ID takes the place of the one removed
+		if(duplicateIDs) {
+			reindexProperties();
+		}
+		else {
+			propertyIndex.remove(id);
+		}
+		structureChanged();
+		
+		if(this.listeners != null) {
+			propertiesRemoved(property);
+		}
+		
+		Metrics.stop(Metrics.Operation.PROPERTY_MUTATION, start);
+		return true;
 		
 	}
 	
+	/**
+	 * Retrieves the Property with the ID specified, without searching through the
+	 * list of properties.
+	 * 
+	 * @param id The property ID to look for
+	 * @return The Property object, or null if no matching ID was found
+	 */
+	public Property getProperty(String id) {
+		
+		long start = Metrics.start();
+		Property property = findProperty(id);
+		Metrics.stop(Metrics.Operation.PROPERTY_LOOKUP, start);
+		
+		return property;
+	}
+	
+	/**
+	 * Retrieves the value of the Property with the ID specified.
+	 * 
+	 * @param id The property ID to look for
+	 * @return The property value, or null if no matching ID was found
+	 */
+	public String getValue(String id) {
+		
+		Property property = getProperty(id);
+		return property == null ? null : property.getValue();
+	}
+	
+	/**
+	 * Checks whether a Property with the ID specified is part of this container.
+	 * 
+	 * @param id The property ID to look for
+	 * @return True if a matching ID was found, false otherwise
+	 */
+	public boolean containsProperty(String id) {
+		return getProperty(id) != null;
+	}
+	
+	/**
+	 * Retrieves the number of properties in this container, without copying the list of properties.
+	 * 
+	 * @return Number of properties
+	 */
+	public int getPropertyCount() {
+		return properties.size();
+	}
+	
+	/**
+	 * Makes room for the number of properties specified, so that adding properties up to that
+	 * number grows neither the list nor the index of properties. Meant to be called once before
+	 * adding many properties.
+	 * 
+	 * @param capacity Total number of properties to make room for
+	 */
+	public void ensurePropertyCapacity(int capacity) {
+		
+		if(capacity <= properties.size()) {
+			return;
+		}
+		
+		properties.ensureCapacity(capacity);
+		
+		HashMap<String, Property> index = new HashMap<>(indexCapacity(capacity));
+		index.putAll(propertyIndex);
+		this.propertyIndex = index;
+	}
+	
 	/**
 	 * Retrieves the full list of properties and the corresponding data (ID, value, and valid values) 
 	 * in a format to write in the configuration file. 
@@ -142,14 +257,43 @@ class PropertyContainer {
 	 * @param properties Input ArrayList of properties to be set
 	 */
 	public void setProperties(ArrayList<Property> properties) {
+		
+		ArrayList<Property> removed = this.properties;
+		for(int i = 0; i < removed.size(); i++) {
+			release(removed.get(i));
+		}
+		
 		this.properties = properties;
+		internAll(this.symbols);
+		structureChanged();
+		
+		if(this.listeners != null) {
+			propertiesRemoved(removed.toArray(new Property[removed.size()]));
+			attach(this.listeners);
+			for(int i = 0; i < properties.size(); i++) {
+				for(int j = 0; j < listeners.length; j++) {
+					listeners[j].propertyAdded(asModule(), properties.get(i));
+				}
+			}
+		}
 	}
 	
 	/**
 	 * Clears all the properties in this module.
 	 */
 	public void clearProperties() {
+		
+		ArrayList<Property> removed = this.properties;
+		for(int i = 0; i < removed.size(); i++) {
+			release(removed.get(i));
+		}
+		
 		createProperties(DEFAULT_CAPACITY);
+		structureChanged();
+		
+		if(this.listeners != null) {
+			propertiesRemoved(removed.toArray(new Property[removed.size()]));
+		}
 	}
 	
 	@Override
@@ -162,25 +306,160 @@ class PropertyContainer {
 	 * @param numOfSpaces Number of spaces to be added BEFORE each property.
 	 */
 	String moreSpaces(int numOfSpaces) {
-		String spaces = "";
-		for(int i = 0; i < numOfSpaces; i++) {
-			spaces += " ";
+		
+		StringBuilder returnValue = new StringBuilder();
+		try {
+			serializeProperties(returnValue, numOfSpaces);
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
 		}
+		return returnValue.toString();
+	}
+	
+	/**
+	 * Writes each property, in the format of the configuration file, directly to the
+	 * destination specified - one property per line.
+	 * 
+	 * @param out Destination of the export properties
+	 * @param numOfSpaces Number of spaces to be added BEFORE each property.
+	 * @throws IOException If the destination cannot be written to
+	 */
+	void serializeProperties(Appendable out, int numOfSpaces) throws IOException {
 		
-		String returnValue = "";
-		String[] props = this.retrieveExportProperties();
-		for (int i = 0; i < props.length; i++) {
-			
-			returnValue += (String.format(spaces + props[i] + "%n"));			
+		for(int i = 0; i < properties.size(); i++) {
+			indent(out, numOfSpaces);
+			properties.get(i).serializeTo(out);
+			out.append(NEW_LINE);
+		}
+	}
+	
+	//Append the number of spaces specified, without building a String of spaces
+	static void indent(Appendable out, int numOfSpaces) throws IOException {
+		
+		while(numOfSpaces > 0) {
+			int count = Math.min(numOfSpaces, SPACES.length());
+			out.append(SPACES, 0, count);
+			numOfSpaces -= count;
 		}
-		return returnValue;
 	}
 	
 	//Create the list of properties, can be used to clear the set as well
 	private void createProperties(int capacity) {
 					
 		this.properties = new ArrayList<>(capacity);
+		this.propertyIndex = new HashMap<>(indexCapacity(capacity));
+		this.duplicateIDs = false;
 				
 	}
 	
+	//The Module reported to listeners for the properties of this container, null for the Configuration
+	Module asModule() {
+		return null;
+	}
+	
+	//Report changes to the listeners specified from now on, or stop reporting them for null
+	void attach(MutationListener[] listeners) {
+		this.listeners = listeners;
+	}
+	
+	//Called by a Property of this container after its value or valid values changed
+	void propertyChanged(Property property) {
+		
+		MutationListener[] listeners = this.listeners;
+		if(listeners != null) {
+			for(int i = 0; i < listeners.length; i++) {
+				listeners[i].propertyChanged(asModule(), property);
+			}
+		}
+	}
+	
+	//Called after a property or module was added, removed or renamed in this container, so that
+	//the ConfigKeys of the Configuration it belongs to know the property they resolved may have changed
+	void structureChanged() {
+	}
+	
+	//Called by a Property of this container after its ID changed
+	void propertyRenamed(Property property, String oldID) {
+		
+		//Only this container needs its index updated, and only the entries of the two IDs unless
+		//an ID is held by several properties, in which case the first in the list must win
+		if(!duplicateIDs && propertyIndex.get(oldID) == property && !propertyIndex.containsKey(property.getID())) {
+			propertyIndex.remove(oldID);
+			propertyIndex.put(property.getID(), property);
+		}
+		else {
+			reindexProperties();
+		}
+		structureChanged();
+		
+		MutationListener[] listeners = this.listeners;
+		if(listeners != null) {
+			for(int i = 0; i < listeners.length; i++) {
+				listeners[i].propertyRenamed(asModule(), property, oldID);
+			}
+		}
+	}
+	
+	private void propertiesRemoved(Property... removed) {
+		
+		MutationListener[] listeners = this.listeners;
+		for(int i = 0; i < removed.length; i++) {
+			for(int j = 0; j < listeners.length; j++) {
+				listeners[j].propertyRemoved(asModule(), removed[i]);
+			}
+		}
+	}
+	
+	//Use the table specified from now on, and replace the strings already held with canonical instances
+	void internAll(SymbolTable symbols) {
+		
+		this.symbols = symbols;
+		
+		if(symbols != null) {
+			for(int i = 0; i < properties.size(); i++) {
+				properties.get(i).intern(symbols);
+			}
+		}
+		
+		//The index keys must be the canonical IDs as well
+		reindexProperties();
+	}
+	
+	//Look up a property without recording it in the metrics
+	Property findProperty(String id) {
+		return propertyIndex.get(id);
+	}
+	
+	//Rebuild the index from the list of properties, the first of any duplicate IDs is kept
+	private void reindexProperties() {
+		
+		//Filled completely before it replaces the index, which readers may still be using
+		HashMap<String, Property> index = new HashMap<>(indexCapacity(properties.size()));
+		boolean duplicateIDs = false;
+		
+		for(int i = 0; i < properties.size(); i++) {
+			Property property = properties.get(i);
+			if(index.putIfAbsent(property.getID(), property) != null) {
+				duplicateIDs = true;
+			}
+			property.owner = this;
+		}
+		
+		this.propertyIndex = index;
+		this.duplicateIDs = duplicateIDs;
+	}
+	
+	//A property removed from this container no longer reports to it, unless it was added elsewhere since
+	private void release(Property property) {
+		
+		if(property.owner == this) {
+			property.owner = null;
+		}
+	}
+	
+	//Table size that holds the number of entries specified without rehashing
+	static int indexCapacity(int entries) {
+		return (int) (entries / 0.75f) + 1;
+	}
+	
 } //End Class
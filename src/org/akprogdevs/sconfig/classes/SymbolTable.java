@@ -0,0 +1,247 @@
+package org.akprogdevs.sconfig.classes;
+
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A table of canonical String instances for property IDs, module names and short values.
+ * Configurations with many modules repeat the same IDs and values (for example {@code enabled}
+ * and {@code true}) thousands of times - once a SymbolTable is set on a Configuration, every
+ * repeat refers to a single String instead of a copy of its own.
+ * 
+ * <p>Values longer than the limit given at construction are left alone, as long values are rarely
+ * repeated and would only grow the table. A SymbolTable can be used from several threads at once.</p>
+ * 
+ * <p>The table only holds weak references to its symbols. A symbol no longer used by any
+ * Configuration is dropped from the table once it is garbage collected, so the table does not
+ * keep the strings of discarded Configurations alive and does not grow with every Configuration
+ * that ever used it.</p>
+ * 
+ * @author AK Program Developers
+ *
+ */
+public final class SymbolTable {
+	
+	private final static int DEFAULT_MAX_VALUE_LENGTH = 32;
+	
+	//Object header, four references and the hash of a Symbol
+	private final static long SYMBOL_SIZE = 32;
+	
+	private final ConcurrentHashMap<Symbol, Symbol> symbols = new ConcurrentHashMap<>();
+	private final ReferenceQueue<String> collected = new ReferenceQueue<>();
+	private final int maxValueLength;
+	private final LongAdder lookups = new LongAdder();
+	private final LongAdder hits = new LongAdder();
+	private final LongAdder savedBytes = new LongAdder();
+	
+	/**
+	 * Default constructor, values of up to 32 characters are interned.
+	 */
+	public SymbolTable() {
+		this(DEFAULT_MAX_VALUE_LENGTH);
+	}
+	
+	/**
+	 * Constructor that accepts the length of the longest value to be interned.
+	 * 
+	 * @param maxValueLength Longest value, in characters, to be interned - IDs and names are interned regardless
+	 */
+	public SymbolTable(int maxValueLength) {
+		this.maxValueLength = maxValueLength;
+	}
+	
+	/**
+	 * Removes the spaces from an ID or module name, the same way as {@code Property.setID} and
+	 * {@code Module.setModuleName}. No regular expression is used, and an ID without spaces is
+	 * returned as-is, without creating a new String.
+	 * 
+	 * @param id The ID or name to be normalized
+	 * @return The ID without spaces
+	 */
+	public static String normalize(String id) {
+		
+		int space = id.indexOf(' ');
+		if(space < 0) {
+			return id;
+		}
+		
+		char[] chars = new char[id.length() - 1];
+		id.getChars(0, space, chars, 0);
+		int length = space;
+		
+		for(int i = space + 1; i < id.length(); i++) {
+			char c = id.charAt(i);
+			if(c != ' ') {
+				chars[length++] = c;
+			}
+		}
+		
+		return new String(chars, 0, length);
+	}
+	
+	/**
+	 * Retrieves the canonical instance of an ID or module name, which becomes the canonical
+	 * instance if it is the first of its kind.
+	 * 
+	 * @param symbol The ID or name
+	 * @return The canonical String equal to the symbol, or null for null
+	 */
+	public String intern(String symbol) {
+		
+		if(symbol == null) {
+			return null;
+		}
+		
+		expunge();
+		lookups.increment();
+		Symbol entry = new Symbol(symbol, collected);
+		
+		while(true) {
+			Symbol existing = symbols.putIfAbsent(entry, entry);
+			if(existing == null) {
+				return symbol;
+			}
+			
+			String canonical = existing.get();
+			if(canonical != null) {
+				if(canonical != symbol) {
+					hits.increment();
+					savedBytes.add(HeapFootprint.stringSize(symbol));
+				}
+				return canonical;
+			}
+			
+			//Collected since it was looked up, replace it with this one
+			symbols.remove(existing, existing);
+		}
+	}
+	
+	/**
+	 * Retrieves the canonical instance of a value, if the value is short enough to be interned.
+	 * 
+	 * @param value The property value or valid value
+	 * @return The canonical String equal to the value, the value itself if it is too long, or null for null
+	 */
+	public String internValue(String value) {
+		
+		if(value == null || value.length() > maxValueLength) {
+			return value;
+		}
+		return intern(value);
+	}
+	
+	/**
+	 * Retrieves the number of distinct symbols in this table.
+	 * 
+	 * @return Number of symbols
+	 */
+	public int size() {
+		expunge();
+		return symbols.size();
+	}
+	
+	/**
+	 * Retrieves the number of Strings looked up in this table.
+	 * 
+	 * @return Number of lookups
+	 */
+	public long getLookupCount() {
+		return lookups.sum();
+	}
+	
+	/**
+	 * Retrieves the number of lookups that replaced a duplicate String with the canonical one.
+	 * 
+	 * @return Number of duplicates replaced
+	 */
+	public long getHitCount() {
+		return hits.sum();
+	}
+	
+	/**
+	 * Estimates the heap no longer needed by the duplicates replaced so far, once they are
+	 * garbage collected.
+	 * 
+	 * @return Estimated number of bytes saved
+	 */
+	public long getSavedBytes() {
+		return savedBytes.sum();
+	}
+	
+	/**
+	 * Estimates the heap used by this table - the canonical Strings and the table entries.
+	 * The Strings are counted even though they are shared with the Configurations using them.
+	 * 
+	 * @return Estimated number of bytes used
+	 */
+	public long getTableBytes() {
+		
+		expunge();
+		long bytes = HeapFootprint.hashTableSize(symbols.size()) + SYMBOL_SIZE * symbols.size();
+		for(Symbol entry : symbols.keySet()) {
+			String symbol = entry.get();
+			if(symbol != null) {
+				bytes += HeapFootprint.stringSize(symbol);
+			}
+		}
+		return bytes;
+	}
+	
+	/**
+	 * Summarizes the symbols, lookups and estimated heap use and savings of this table.
+	 * 
+	 * @return A readable report
+	 */
+	@Override
+	public String toString() {
+		return "SymbolTable: " + size() + " symbols (" + getTableBytes() + " bytes), " 
+				+ getLookupCount() + " lookups, " + getHitCount() + " duplicates replaced, " 
+				+ getSavedBytes() + " bytes saved";
+	}
+	
+	//Drops the entries of the symbols garbage collected since the last call
+	private void expunge() {
+		
+		Symbol entry;
+		while((entry = (Symbol) collected.poll()) != null) {
+			symbols.remove(entry, entry);
+		}
+	}
+	
+	/*
+	 * A weak reference to a symbol, equal to any other reference to an equal String as long as
+	 * both are not collected. A collected entry is only equal to itself, so it can still be removed.
+	 */
+	private static final class Symbol extends WeakReference<String> {
+		
+		private final int hash;
+		
+		Symbol(String symbol, ReferenceQueue<String> queue) {
+			super(symbol, queue);
+			this.hash = symbol.hashCode();
+		}
+		
+		@Override
+		public int hashCode() {
+			return hash;
+		}
+		
+		@Override
+		public boolean equals(Object other) {
+			
+			if(this == other) {
+				return true;
+			}
+			if(!(other instanceof Symbol)) {
+				return false;
+			}
+			
+			String symbol = get();
+			return symbol != null && symbol.equals(((Symbol) other).get());
+		}
+		
+	}
+
+}
@@ -0,0 +1,461 @@
+package org.akprogdevs.sconfig.concurrent;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.akprogdevs.sconfig.classes.Configuration;
+import org.akprogdevs.sconfig.classes.Module;
+import org.akprogdevs.sconfig.classes.Property;
+import org.akprogdevs.sconfig.classes.SymbolTable;
+
+/**
+ * A configuration that any number of threads can read and change at the same time. It offers
+ * the operations of a Configuration, with the properties of a module addressed through the
+ * module name, and hands out immutable {@link PropertySnapshot}s and {@link ModuleSnapshot}s
+ * rather than the mutable Property and Module objects.
+ *
+ * <p>Every module has a lock of its own, and the top-level properties have another one, so
+ * threads changing different modules never wait for each other. Modules are found through a
+ * {@code ConcurrentHashMap}, and adding or removing a module only locks the module itself.
+ * The properties of a module are published as an immutable map, which a change replaces with
+ * a new map sharing most of the old one - reads take no lock at all, and a snapshot of a
+ * module costs no copy.</p>
+ *
+ * <p>Reads of a single module are always consistent. Operations that span several modules, such
+ * as {@code retrieveModules} or {@code toConfiguration}, lock one module at a time and may see
+ * the changes made to one module but not those made to another meanwhile.</p>
+ *
+ * @author AK Program Developers
+ *
+ */
+public final class ConcurrentConfiguration {
+	
+	private final Container properties = new Container(null, 0);
+	private final ConcurrentHashMap<String, Container> modules = new ConcurrentHashMap<>();
+	//Gives every module its position, modules are listed in the order they were added
+	private final AtomicLong moduleOrder = new AtomicLong();
+	
+	/**
+	 * Default constructor that starts without any properties or modules.
+	 */
+	public ConcurrentConfiguration() {
+		
+	}
+	
+	/**
+	 * Constructor that copies the properties and modules of a Configuration, later changes
+	 * to the Configuration do not affect this one.
+	 *
+	 * @param config The Configuration to be copied
+	 */
+	public ConcurrentConfiguration(Configuration config) {
+		
+		ArrayList<Property> properties = config.retrieveProperties();
+		for(int i = 0; i < properties.size(); i++) {
+			addExistingProperty(properties.get(i));
+		}
+		
+		ArrayList<Module> modules = config.retrieveModules();
+		for(int i = 0; i < modules.size(); i++) {
+			addExistingModule(modules.get(i));
+		}
+	}
+	
+	/**
+	 * Creates a new top-level property.
+	 *
+	 * @param id The property's name, i.e. the ID
+	 * @param value The property's value, i.e. the setting
+	 * @return True if the property was added, or false if a duplicate ID was found
+	 */
+	public boolean addProperty(String id, String value) {
+		return this.properties.add(new PropertySnapshot(id, value));
+	}
+	
+	/**
+	 * Adds a copy of an existing Property as a top-level property, later changes to the
+	 * Property do not affect this configuration.
+	 *
+	 * @param property Property object to be copied
+	 * @return True if the property was added, or false if a duplicate ID was found
+	 */
+	public boolean addExistingProperty(Property property) {
+		return this.properties.add(new PropertySnapshot(property));
+	}
+	
+	/**
+	 * Removes the top-level property with the ID specified.
+	 *
+	 * @param id The property ID to be removed
+	 * @return True if ID was found and removed, false if no matching ID was found
+	 */
+	public boolean removeProperty(String id) {
+		return this.properties.remove(id);
+	}
+	
+	/**
+	 * Retrieves the top-level property with the ID specified.
+	 *
+	 * @param id The property ID to look for
+	 * @return The PropertySnapshot, or null if no matching ID was found
+	 */
+	public PropertySnapshot getProperty(String id) {
+		return this.properties.get(id);
+	}
+	
+	/**
+	 * Retrieves the value of the top-level property with the ID specified.
+	 *
+	 * @param id The property ID to look for
+	 * @return The property value, or null if no matching ID was found
+	 */
+	public String getValue(String id) {
+		PropertySnapshot property = this.properties.get(id);
+		return property == null ? null : property.getValue();
+	}
+	
+	/**
+	 * Changes the value of the top-level property with the ID specified.
+	 *
+	 * @param id The property ID to look for
+	 * @param value The new value
+	 * @return True if the value was changed, false if no matching ID was found
+	 */
+	public boolean setValue(String id, String value) {
+		return this.properties.setValue(id, value);
+	}
+	
+	/**
+	 * Checks whether a top-level property with the ID specified exists.
+	 *
+	 * @param id The property ID to look for
+	 * @return True if a matching ID was found, false otherwise
+	 */
+	public boolean containsProperty(String id) {
+		return this.properties.get(id) != null;
+	}
+	
+	/**
+	 * Retrieves the number of top-level properties.
+	 *
+	 * @return Number of properties
+	 */
+	public int getPropertyCount() {
+		return this.properties.size();
+	}
+	
+	/**
+	 * Retrieves a copy of the list of top-level properties.
+	 *
+	 * @return An ArrayList of PropertySnapshots, in the order they were added
+	 */
+	public ArrayList<PropertySnapshot> retrieveProperties() {
+		return this.properties.retrieve();
+	}
+	
+	/**
+	 * Clears all the top-level properties.
+	 */
+	public void clearProperties() {
+		this.properties.clear();
+	}
+	
+	/**
+	 * Adds a new, empty module. Spaces, if any, will be eliminated automatically from the
+	 * module name specified.
+	 *
+	 * @param moduleID Name of module to be added
+	 * @return True if module was added, or false if a duplicate module name was found
+	 */
+	public boolean addModule(String moduleID) {
+		
+		String name = SymbolTable.normalize(moduleID);
+		if(modules.containsKey(name)) {
+			return false;
+		}
+		
+		return modules.putIfAbsent(name, new Container(name, moduleOrder.incrementAndGet())) == null;
+	}
+	
+	/**
+	 * Adds a copy of an existing Module and its properties, later changes to the Module
+	 * do not affect this configuration.
+	 *
+	 * @param module Module object to be copied
+	 * @return True if module was added, or false if a duplicate module name was found
+	 */
+	public boolean addExistingModule(Module module) {
+		
+		if(modules.containsKey(module.getModuleName())) {
+			return false;
+		}
+		
+		//Filled before it is published, so no thread sees the module half copied
+		Container container = new Container(module.getModuleName(), moduleOrder.incrementAndGet());
+		ArrayList<Property> properties = module.retrieveProperties();
+		for(int i = 0; i < properties.size(); i++) {
+			container.add(new PropertySnapshot(properties.get(i)));
+		}
+		
+		return modules.putIfAbsent(container.name, container) == null;
+	}
+	
+	/**
+	 * Removes a module along with its properties.
+	 *
+	 * @param moduleID Name of module to be removed
+	 * @return True if module was removed, or false if the module does not exist
+	 */
+	public boolean removeModule(String moduleID) {
+		
+		Container module = modules.remove(moduleID);
+		if(module == null) {
+			return false;
+		}
+		
+		module.markRemoved();
+		return true;
+	}
+	
+	/**
+	 * Checks whether a module with the name specified exists.
+	 *
+	 * @param moduleID Name of module to look for
+	 * @return True if the module exists, false otherwise
+	 */
+	public boolean hasModule(String moduleID) {
+		return modules.containsKey(moduleID);
+	}
+	
+	/**
+	 * Retrieves a snapshot of the module with the name specified.
+	 *
+	 * @param moduleID Name of module to look for
+	 * @return The ModuleSnapshot, or null if the module does not exist
+	 */
+	public ModuleSnapshot getModule(String moduleID) {
+		
+		Container module = modules.get(moduleID);
+		return module == null ? null : module.snapshot();
+	}
+	
+	/**
+	 * Retrieves the number of modules.
+	 *
+	 * @return Number of modules
+	 */
+	public int getModuleCount() {
+		return modules.size();
+	}
+	
+	/**
+	 * Retrieves a snapshot of every module.
+	 *
+	 * @return An ArrayList of ModuleSnapshots, in the order the modules were added
+	 */
+	public ArrayList<ModuleSnapshot> retrieveModules() {
+		
+		ArrayList<Container> containers = orderedModules();
+		ArrayList<ModuleSnapshot> snapshots = new ArrayList<>(containers.size());
+		for(int i = 0; i < containers.size(); i++) {
+			snapshots.add(containers.get(i).snapshot());
+		}
+		
+		return snapshots;
+	}
+	
+	/**
+	 * Removes every module.
+	 */
+	public void clearModules() {
+		
+		for(String moduleID : modules.keySet()) {
+			removeModule(moduleID);
+		}
+	}
+	
+	/**
+	 * Creates a new property in the module specified.
+	 *
+	 * @param moduleID Name of the module
+	 * @param id The property's name, i.e. the ID
+	 * @param value The property's value, i.e. the setting
+	 * @return True if the property was added, or false if the module does not exist or a
+	 * 			duplicate ID was found
+	 */
+	public boolean addProperty(String moduleID, String id, String value) {
+		
+		Container module = modules.get(moduleID);
+		return module != null && module.add(new PropertySnapshot(id, value));
+	}
+	
+	/**
+	 * Removes the property with the ID specified from the module specified.
+	 *
+	 * @param moduleID Name of the module
+	 * @param id The property ID to be removed
+	 * @return True if ID was found and removed, false if the module or ID was not found
+	 */
+	public boolean removeProperty(String moduleID, String id) {
+		
+		Container module = modules.get(moduleID);
+		return module != null && module.remove(id);
+	}
+	
+	/**
+	 * Retrieves the property with the ID specified from the module specified.
+	 *
+	 * @param moduleID Name of the module
+	 * @param id The property ID to look for
+	 * @return The PropertySnapshot, or null if the module or ID was not found
+	 */
+	public PropertySnapshot getProperty(String moduleID, String id) {
+		
+		Container module = modules.get(moduleID);
+		return module == null ? null : module.get(id);
+	}
+	
+	/**
+	 * Retrieves the value of the property with the ID specified from the module specified.
+	 *
+	 * @param moduleID Name of the module
+	 * @param id The property ID to look for
+	 * @return The property value, or null if the module or ID was not found
+	 */
+	public String getValue(String moduleID, String id) {
+		
+		PropertySnapshot property = getProperty(moduleID, id);
+		return property == null ? null : property.getValue();
+	}
+	
+	/**
+	 * Changes the value of the property with the ID specified in the module specified.
+	 *
+	 * @param moduleID Name of the module
+	 * @param id The property ID to look for
+	 * @param value The new value
+	 * @return True if the value was changed, false if the module or ID was not found
+	 */
+	public boolean setValue(String moduleID, String id, String value) {
+		
+		Container module = modules.get(moduleID);
+		return module != null && module.setValue(id, value);
+	}
+	
+	/**
+	 * Creates a new, mutable Configuration with copies of the properties and modules of this
+	 * configuration.
+	 *
+	 * @return The new Configuration object
+	 */
+	public Configuration toConfiguration() {
+		
+		ArrayList<PropertySnapshot> properties = retrieveProperties();
+		ArrayList<ModuleSnapshot> modules = retrieveModules();
+		
+		Configuration config = new Configuration(properties.size(), modules.size());
+		for(int i = 0; i < properties.size(); i++) {
+			config.addExistingProperty(properties.get(i).toProperty());
+		}
+		for(int i = 0; i < modules.size(); i++) {
+			config.addExistingModule(modules.get(i).toModule());
+		}
+		
+		return config;
+	}
+	
+	/**
+	 * Converts this configuration into the format of the configuration file.
+	 *
+	 * @return The exported configuration
+	 */
+	@Override
+	public String toString() {
+		return toConfiguration().toString();
+	}
+	
+	private ArrayList<Container> orderedModules() {
+		
+		ArrayList<Container> ordered = new ArrayList<>(modules.values());
+		ordered.sort(Comparator.comparingLong(module -> module.order));
+		return ordered;
+	}
+	
+	/*
+	 * The properties of a module, or the top-level properties. Writers replace the map under the
+	 * lock of the container, readers only load the volatile field - the map is immutable, and so
+	 * are the PropertySnapshots it holds, so they can be handed out as they are.
+	 */
+	private static final class Container {
+		
+		//Module name, or null for the top-level properties
+		final String name;
+		final long order;
+		private volatile PersistentMap<PropertySnapshot> properties = PersistentMap.empty();
+		//Set once the module is removed, so writers that found it earlier leave it alone
+		private boolean removed = false;
+		
+		Container(String name, long order) {
+			this.name = name;
+			this.order = order;
+		}
+		
+		PropertySnapshot get(String id) {
+			return properties.get(id);
+		}
+		
+		int size() {
+			return properties.size();
+		}
+		
+		synchronized boolean add(PropertySnapshot property) {
+			
+			if(removed || properties.containsKey(property.getID())) {
+				return false;
+			}
+			properties = properties.with(property.getID(), property);
+			return true;
+		}
+		
+		synchronized boolean remove(String id) {
+			
+			PersistentMap<PropertySnapshot> current = properties;
+			if(removed || !current.containsKey(id)) {
+				return false;
+			}
+			properties = current.without(id);
+			return true;
+		}
+		
+		synchronized boolean setValue(String id, String value) {
+			
+			PropertySnapshot property = properties.get(id);
+			if(removed || property == null) {
+				return false;
+			}
+			//Replacing the value of an existing key keeps its position
+			properties = properties.with(id, property.withValue(value));
+			return true;
+		}
+		
+		synchronized void clear() {
+			properties = PersistentMap.empty();
+		}
+		
+		synchronized void markRemoved() {
+			removed = true;
+		}
+		
+		ArrayList<PropertySnapshot> retrieve() {
+			return new ArrayList<>(properties.values());
+		}
+		
+		ModuleSnapshot snapshot() {
+			return new ModuleSnapshot(name, properties);
+		}
+		
+	}
+
+}
@@ -0,0 +1,222 @@
+package org.akprogdevs.sconfig.concurrent;
+
+import java.util.ArrayList;
+import java.util.Collection;
+
+import org.akprogdevs.sconfig.classes.Configuration;
+import org.akprogdevs.sconfig.classes.Module;
+
+/**
+ * An immutable copy of a Configuration, its properties and its modules. A snapshot can be 
+ * read from any number of threads without locking, and is meant to be published through a
+ * {@link SnapshotPublisher}.
+ * 
+ * <p>Changing a snapshot creates a new one, which shares everything that did not change with
+ * this one. The properties and modules are held in persistent maps, so changing a property of
+ * one module copies a few small nodes of that module's properties and of the modules, however
+ * many there are, and no other module.</p>
+ * 
+ * @author AK Program Developers
+ *
+ */
+public final class ConfigurationSnapshot {
+	
+	/**
+	 * Snapshot without any properties or modules.
+	 */
+	public final static ConfigurationSnapshot EMPTY = new ConfigurationSnapshot(
+			PersistentMap.<PropertySnapshot>empty(), PersistentMap.<ModuleSnapshot>empty());
+	
+	private final PersistentMap<PropertySnapshot> properties;
+	private final PersistentMap<ModuleSnapshot> modules;
+	
+	/**
+	 * Constructor that copies the current state of a Configuration, along with its modules and
+	 * properties. Later changes to the Configuration do not affect this snapshot.
+	 * 
+	 * @param config The Configuration to be copied
+	 */
+	public ConfigurationSnapshot(Configuration config) {
+		this(ModuleSnapshot.copy(config.retrieveProperties()), copy(config.retrieveModules()));
+	}
+	
+	private ConfigurationSnapshot(PersistentMap<PropertySnapshot> properties, PersistentMap<ModuleSnapshot> modules) {
+		this.properties = properties;
+		this.modules = modules;
+	}
+	
+	/**
+	 * Retrieves the top-level property with the ID specified.
+	 * 
+	 * @param id The property ID to look for
+	 * @return The PropertySnapshot, or null if no matching ID was found
+	 */
+	public PropertySnapshot getProperty(String id) {
+		return this.properties.get(id);
+	}
+	
+	/**
+	 * Retrieves the value of the top-level property with the ID specified.
+	 * 
+	 * @param id The property ID to look for
+	 * @return The property value, or null if no matching ID was found
+	 */
+	public String getValue(String id) {
+		PropertySnapshot property = this.properties.get(id);
+		return property == null ? null : property.getValue();
+	}
+	
+	/**
+	 * Checks whether a top-level property with the ID specified is part of this snapshot.
+	 * 
+	 * @param id The property ID to look for
+	 * @return True if a matching ID was found, false otherwise
+	 */
+	public boolean containsProperty(String id) {
+		return this.properties.containsKey(id);
+	}
+	
+	/**
+	 * Retrieves the top-level properties in their original order. The returned collection
+	 * is an unmodifiable view, no copy is made.
+	 * 
+	 * @return Collection of PropertySnapshots
+	 */
+	public Collection<PropertySnapshot> retrieveProperties() {
+		return this.properties.values();
+	}
+	
+	/**
+	 * Retrieves the module with the name specified.
+	 * 
+	 * @param moduleID Name/ID of module to look for
+	 * @return The ModuleSnapshot, or null if the module does not exist
+	 */
+	public ModuleSnapshot getModule(String moduleID) {
+		return this.modules.get(moduleID);
+	}
+	
+	/**
+	 * Checks whether a module with the name specified is part of this snapshot.
+	 * 
+	 * @param moduleID Name/ID of module to look for
+	 * @return True if the module exists, false otherwise
+	 */
+	public boolean hasModule(String moduleID) {
+		return this.modules.containsKey(moduleID);
+	}
+	
+	/**
+	 * Retrieves the modules in their original order. The returned collection is an
+	 * unmodifiable view, no copy is made.
+	 * 
+	 * @return Collection of ModuleSnapshots
+	 */
+	public Collection<ModuleSnapshot> retrieveModules() {
+		return this.modules.values();
+	}
+	
+	/**
+	 * Creates a snapshot with the top-level property added, or replaced if the ID is 
+	 * already present.
+	 * 
+	 * @param property The property to be added or replaced
+	 * @return The new ConfigurationSnapshot
+	 */
+	public ConfigurationSnapshot withProperty(PropertySnapshot property) {
+		return new ConfigurationSnapshot(this.properties.with(property.getID(), property), this.modules);
+	}
+	
+	/**
+	 * Creates a snapshot without the top-level property specified.
+	 * 
+	 * @param id The property ID to be removed
+	 * @return The new ConfigurationSnapshot, or this one if no matching ID was found
+	 */
+	public ConfigurationSnapshot withoutProperty(String id) {
+		
+		PersistentMap<PropertySnapshot> remaining = this.properties.without(id);
+		return remaining == this.properties ? this : new ConfigurationSnapshot(remaining, this.modules);
+	}
+	
+	/**
+	 * Creates a snapshot with the module added, or replaced if the name is already present.
+	 * 
+	 * @param module The module to be added or replaced
+	 * @return The new ConfigurationSnapshot
+	 */
+	public ConfigurationSnapshot withModule(ModuleSnapshot module) {
+		return new ConfigurationSnapshot(this.properties, this.modules.with(module.getModuleName(), module));
+	}
+	
+	/**
+	 * Creates a snapshot without the module specified.
+	 * 
+	 * @param moduleID Name/ID of module to be removed
+	 * @return The new ConfigurationSnapshot, or this one if the module does not exist
+	 */
+	public ConfigurationSnapshot withoutModule(String moduleID) {
+		
+		PersistentMap<ModuleSnapshot> remaining = this.modules.without(moduleID);
+		return remaining == this.modules ? this : new ConfigurationSnapshot(this.properties, remaining);
+	}
+	
+	/**
+	 * Creates a snapshot with the property added to, or replaced in, the module specified.
+	 * The module is created if it does not exist.
+	 * 
+	 * @param moduleID Name/ID of the module
+	 * @param property The property to be added or replaced
+	 * @return The new ConfigurationSnapshot
+	 */
+	public ConfigurationSnapshot withModuleProperty(String moduleID, PropertySnapshot property) {
+		
+		ModuleSnapshot module = this.modules.get(moduleID);
+		if(module == null) {
+			module = new ModuleSnapshot(moduleID);
+		}
+		
+		return withModule(module.withProperty(property));
+	}
+	
+	/**
+	 * Creates a new, mutable Configuration with copies of the properties and modules
+	 * of this snapshot.
+	 * 
+	 * @return The new Configuration object
+	 */
+	public Configuration toConfiguration() {
+		
+		Configuration config = new Configuration(this.properties.size(), this.modules.size());
+		for(PropertySnapshot property : this.properties.values()) {
+			config.addExistingProperty(property.toProperty());
+		}
+		for(ModuleSnapshot module : this.modules.values()) {
+			config.addExistingModule(module.toModule());
+		}
+		
+		return config;
+	}
+	
+	/**
+	 * Converts this snapshot into the format of the configuration file.
+	 * 
+	 * @return The exported configuration
+	 */
+	@Override
+	public String toString() {
+		return toConfiguration().toString();
+	}
+	
+	//Snapshot of each module, keyed by name in the original order
+	private static PersistentMap<ModuleSnapshot> copy(ArrayList<Module> modules) {
+		
+		ArrayList<ModuleSnapshot> copy = new ArrayList<>(modules.size());
+		for(int i = 0; i < modules.size(); i++) {
+			copy.add(new ModuleSnapshot(modules.get(i)));
+		}
+		
+		return PersistentMap.of(copy, ModuleSnapshot::getModuleName);
+	}
+
+}
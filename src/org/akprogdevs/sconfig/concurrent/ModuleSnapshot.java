@@ -0,0 +1,158 @@
+package org.akprogdevs.sconfig.concurrent;
+
+import java.util.ArrayList;
+import java.util.Collection;
+
+import org.akprogdevs.sconfig.classes.Module;
+import org.akprogdevs.sconfig.classes.Property;
+import org.akprogdevs.sconfig.classes.SymbolTable;
+
+/**
+ * An immutable copy of a Module and its child properties, which can be read from any number
+ * of threads without locking. Changing a ModuleSnapshot creates a new one that shares the
+ * unchanged PropertySnapshots with this one, and all but a few small nodes of the map that
+ * holds them.
+ * 
+ * @author AK Program Developers
+ *
+ */
+public final class ModuleSnapshot {
+	
+	private final String moduleName;
+	private final PersistentMap<PropertySnapshot> properties;
+	
+	/**
+	 * Constructor that creates an empty module snapshot. Spaces, if any, will be eliminated 
+	 * automatically from the module name specified.
+	 * 
+	 * @param moduleName The name/ID of the module
+	 */
+	public ModuleSnapshot(String moduleName) {
+		this(SymbolTable.normalize(moduleName), PersistentMap.<PropertySnapshot>empty());
+	}
+	
+	/**
+	 * Constructor that copies the current state of a Module and its child properties, later
+	 * changes to the Module do not affect this snapshot.
+	 * 
+	 * @param module The Module to be copied
+	 */
+	public ModuleSnapshot(Module module) {
+		this(module.getModuleName(), copy(module.retrieveProperties()));
+	}
+	
+	ModuleSnapshot(String moduleName, PersistentMap<PropertySnapshot> properties) {
+		this.moduleName = moduleName;
+		this.properties = properties;
+	}
+	
+	/**
+	 * Retrieves the name of this module.
+	 * 
+	 * @return The module name/ID
+	 */
+	public String getModuleName() {
+		return this.moduleName;
+	}
+	
+	/**
+	 * Retrieves the property with the ID specified.
+	 * 
+	 * @param id The property ID to look for
+	 * @return The PropertySnapshot, or null if no matching ID was found
+	 */
+	public PropertySnapshot getProperty(String id) {
+		return this.properties.get(id);
+	}
+	
+	/**
+	 * Retrieves the value of the property with the ID specified.
+	 * 
+	 * @param id The property ID to look for
+	 * @return The property value, or null if no matching ID was found
+	 */
+	public String getValue(String id) {
+		PropertySnapshot property = this.properties.get(id);
+		return property == null ? null : property.getValue();
+	}
+	
+	/**
+	 * Checks whether a property with the ID specified is part of this module.
+	 * 
+	 * @param id The property ID to look for
+	 * @return True if a matching ID was found, false otherwise
+	 */
+	public boolean containsProperty(String id) {
+		return this.properties.containsKey(id);
+	}
+	
+	/**
+	 * Retrieves the properties of this module in their original order. The returned
+	 * collection is an unmodifiable view, no copy is made.
+	 * 
+	 * @return Collection of PropertySnapshots
+	 */
+	public Collection<PropertySnapshot> retrieveProperties() {
+		return this.properties.values();
+	}
+	
+	/**
+	 * Creates a snapshot of this module with the property added, or replaced if the ID
+	 * is already present.
+	 * 
+	 * @param property The property to be added or replaced
+	 * @return The new ModuleSnapshot
+	 */
+	public ModuleSnapshot withProperty(PropertySnapshot property) {
+		return new ModuleSnapshot(this.moduleName, this.properties.with(property.getID(), property));
+	}
+	
+	/**
+	 * Creates a snapshot of this module without the property specified.
+	 * 
+	 * @param id The property ID to be removed
+	 * @return The new ModuleSnapshot, or this one if no matching ID was found
+	 */
+	public ModuleSnapshot withoutProperty(String id) {
+		
+		PersistentMap<PropertySnapshot> remaining = this.properties.without(id);
+		return remaining == this.properties ? this : new ModuleSnapshot(this.moduleName, remaining);
+	}
+	
+	/**
+	 * Creates a new, mutable Module with copies of the properties of this snapshot.
+	 * 
+	 * @return The new Module object
+	 */
+	public Module toModule() {
+		
+		Module module = new Module(this.moduleName, this.properties.size());
+		for(PropertySnapshot property : this.properties.values()) {
+			module.addExistingProperty(property.toProperty());
+		}
+		
+		return module;
+	}
+	
+	/**
+	 * Converts this module into a readable listing for the configuration file.
+	 * 
+	 * @return This module's identifier and child properties, if applicable
+	 */
+	@Override
+	public String toString() {
+		return toModule().toString();
+	}
+	
+	//Snapshot of each property, keyed by ID in the original order
+	static PersistentMap<PropertySnapshot> copy(ArrayList<Property> properties) {
+		
+		ArrayList<PropertySnapshot> copy = new ArrayList<>(properties.size());
+		for(int i = 0; i < properties.size(); i++) {
+			copy.add(new PropertySnapshot(properties.get(i)));
+		}
+		
+		return PersistentMap.of(copy, PropertySnapshot::getID);
+	}
+
+}
@@ -0,0 +1,511 @@
+package org.akprogdevs.sconfig.concurrent;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.function.Function;
+
+/**
+ * An immutable map of Strings that keeps its keys in insertion order, held by the snapshot
+ * classes. Adding, replacing or removing a key creates a new map that shares all but a few
+ * small nodes with this one, so a change costs about the same whatever the size of the map.
+ *
+ * <p>The entries are held twice: in a hash trie that finds them by key, and in a trie of
+ * their insertion sequence numbers that lists them in order. Both tries branch 32 ways, and a
+ * change copies one path of each. A removed key leaves a gap in the sequence numbers, which
+ * is closed by rebuilding the map once there are more gaps than entries.</p>
+ *
+ * @author AK Program Developers
+ *
+ */
+final class PersistentMap<V> extends AbstractMap<String, V> {
+	
+	private final static int BITS = 5;
+	private final static int WIDTH = 1 << BITS;
+	private final static int MASK = WIDTH - 1;
+	
+	@SuppressWarnings("rawtypes")
+	private final static PersistentMap EMPTY = new PersistentMap<>(null, null, 0, 0, 0);
+	
+	//Entries by hash
+	private final Node keys;
+	//Entries by sequence number, levels of WIDTH slots with the entries in the lowest level
+	private final Object[] order;
+	private final int orderShift;
+	private final int size;
+	//Sequence number of the next key added
+	private final int nextSequence;
+	
+	private PersistentMap(Node keys, Object[] order, int orderShift, int size, int nextSequence) {
+		this.keys = keys;
+		this.order = order;
+		this.orderShift = orderShift;
+		this.size = size;
+		this.nextSequence = nextSequence;
+	}
+	
+	@SuppressWarnings("unchecked")
+	static <V> PersistentMap<V> empty() {
+		return EMPTY;
+	}
+	
+	//Map of the values specified by the key of each, in their order - a later value replaces an earlier one with the same key
+	static <V> PersistentMap<V> of(Collection<? extends V> values, Function<? super V, String> key) {
+		
+		if(values.isEmpty()) {
+			return empty();
+		}
+		
+		HashMap<String, Integer> positions = new HashMap<>((int) (values.size() / 0.75f) + 1);
+		Entry<?>[] entries = new Entry<?>[values.size()];
+		int count = 0;
+		
+		for(V value : values) {
+			String id = key.apply(value);
+			Integer position = positions.putIfAbsent(id, count);
+			if(position == null) {
+				entries[count] = new Entry<>(id, value, count);
+				count++;
+			}
+			else {
+				entries[position] = new Entry<>(id, value, position);
+			}
+		}
+		
+		Entry<?>[] distinct = new Entry<?>[count];
+		System.arraycopy(entries, 0, distinct, 0, count);
+		
+		return build(distinct);
+	}
+	
+	@Override
+	public V get(Object key) {
+		Entry<V> entry = find(key);
+		return entry == null ? null : entry.getValue();
+	}
+	
+	@Override
+	public boolean containsKey(Object key) {
+		return find(key) != null;
+	}
+	
+	@Override
+	public int size() {
+		return this.size;
+	}
+	
+	@Override
+	public Set<Map.Entry<String, V>> entrySet() {
+		
+		return new AbstractSet<Map.Entry<String, V>>() {
+			
+			@Override
+			public Iterator<Map.Entry<String, V>> iterator() {
+				return new OrderIterator();
+			}
+			
+			@Override
+			public int size() {
+				return PersistentMap.this.size;
+			}
+		};
+	}
+	
+	//Map with the key added at the end, or its value replaced in its original position
+	PersistentMap<V> with(String key, V value) {
+		
+		Entry<V> existing = find(key);
+		if(existing != null && existing.getValue() == value) {
+			return this;
+		}
+		
+		int sequence = (existing == null) ? nextSequence : existing.sequence;
+		Entry<V> entry = new Entry<>(key, value, sequence);
+		
+		//Add a level on top of the order trie once it is full
+		Object[] order = this.order;
+		int orderShift = this.orderShift;
+		if(order == null) {
+			order = new Object[WIDTH];
+		}
+		while(sequence >= (1L << (orderShift + BITS))) {
+			Object[] root = new Object[WIDTH];
+			root[0] = order;
+			order = root;
+			orderShift += BITS;
+		}
+		
+		return new PersistentMap<>(put(this.keys, 0, entry), set(order, orderShift, sequence, entry), orderShift,
+				existing == null ? size + 1 : size, existing == null ? nextSequence + 1 : nextSequence);
+	}
+	
+	//Map without the key, or this map if the key is missing
+	PersistentMap<V> without(String key) {
+		
+		Entry<V> existing = find(key);
+		if(existing == null) {
+			return this;
+		}
+		
+		if(size == 1) {
+			return empty();
+		}
+		
+		PersistentMap<V> map = new PersistentMap<>((Node) remove(this.keys, 0, existing.hash, key),
+				set(this.order, this.orderShift, existing.sequence, null), this.orderShift, size - 1, nextSequence);
+		
+		//Renumber the entries once the gaps outnumber them, so the order trie does not keep growing
+		if(map.nextSequence - map.size > map.size + WIDTH) {
+			return build(map.entries());
+		}
+		
+		return map;
+	}
+	
+	@SuppressWarnings("unchecked")
+	private Entry<V> find(Object key) {
+		
+		if(!(key instanceof String) || this.keys == null) {
+			return null;
+		}
+		
+		int hash = hash((String) key);
+		Object slot = this.keys;
+		int shift = 0;
+		
+		while(slot instanceof Node) {
+			Node node = (Node) slot;
+			int bit = bit(hash, shift);
+			if((node.bitmap & bit) == 0) {
+				return null;
+			}
+			slot = node.slots[index(node.bitmap, bit)];
+			shift += BITS;
+		}
+		
+		if(slot instanceof Entry) {
+			Entry<V> entry = (Entry<V>) slot;
+			return entry.getKey().equals(key) ? entry : null;
+		}
+		
+		Entry<?>[] bucket = (Entry<?>[]) slot;
+		for(int i = 0; i < bucket.length; i++) {
+			if(bucket[i].getKey().equals(key)) {
+				return (Entry<V>) bucket[i];
+			}
+		}
+		return null;
+	}
+	
+	//Entries in order, without gaps in their sequence numbers
+	private Entry<?>[] entries() {
+		
+		Entry<?>[] entries = new Entry<?>[size];
+		int count = 0;
+		for(Map.Entry<String, V> entry : entrySet()) {
+			entries[count] = new Entry<>(entry.getKey(), entry.getValue(), count);
+			count++;
+		}
+		
+		return entries;
+	}
+	
+	//Map of entries numbered 0 to length - 1, built without copying any node
+	private static <V> PersistentMap<V> build(Entry<?>[] entries) {
+		
+		Object keys = build(entries, 0);
+		if(!(keys instanceof Node)) {
+			keys = new Node(bit(entries[0].hash, 0), new Object[] {keys});
+		}
+		
+		//Fill the lowest level of the order trie, then the levels above it
+		Object[] level = entries;
+		int shift = 0;
+		do {
+			Object[] parents = new Object[(level.length + MASK) >>> BITS];
+			for(int i = 0; i < parents.length; i++) {
+				Object[] node = new Object[WIDTH];
+				System.arraycopy(level, i << BITS, node, 0, Math.min(WIDTH, level.length - (i << BITS)));
+				parents[i] = node;
+			}
+			level = parents;
+			shift += BITS;
+		} while(level.length > 1);
+		
+		return new PersistentMap<>((Node) keys, (Object[]) level[0], shift - BITS, entries.length, entries.length);
+	}
+	
+	//Hash trie of the entries specified, from the level of the shift specified down
+	private static Object build(Entry<?>[] entries, int shift) {
+		
+		if(entries.length == 1) {
+			return entries[0];
+		}
+		
+		boolean sameHash = true;
+		for(int i = 1; i < entries.length && sameHash; i++) {
+			sameHash = entries[i].hash == entries[0].hash;
+		}
+		if(sameHash) {
+			return entries.clone();
+		}
+		
+		int[] counts = new int[WIDTH];
+		for(int i = 0; i < entries.length; i++) {
+			counts[(entries[i].hash >>> shift) & MASK]++;
+		}
+		
+		int bitmap = 0;
+		Entry<?>[][] groups = new Entry<?>[WIDTH][];
+		for(int i = 0; i < WIDTH; i++) {
+			if(counts[i] > 0) {
+				bitmap |= 1 << i;
+				groups[i] = new Entry<?>[counts[i]];
+				counts[i] = 0;
+			}
+		}
+		for(int i = 0; i < entries.length; i++) {
+			int slot = (entries[i].hash >>> shift) & MASK;
+			groups[slot][counts[slot]++] = entries[i];
+		}
+		
+		Object[] slots = new Object[Integer.bitCount(bitmap)];
+		int index = 0;
+		for(int i = 0; i < WIDTH; i++) {
+			if(groups[i] != null) {
+				slots[index++] = build(groups[i], shift + BITS);
+			}
+		}
+		
+		return new Node(bitmap, slots);
+	}
+	
+	//Copy of the path to the entry's hash with the entry added or replaced
+	private static Node put(Node node, int shift, Entry<?> entry) {
+		
+		int bit = bit(entry.hash, shift);
+		if(node == null) {
+			return new Node(bit, new Object[] {entry});
+		}
+		
+		int index = index(node.bitmap, bit);
+		if((node.bitmap & bit) == 0) {
+			Object[] slots = new Object[node.slots.length + 1];
+			System.arraycopy(node.slots, 0, slots, 0, index);
+			slots[index] = entry;
+			System.arraycopy(node.slots, index, slots, index + 1, node.slots.length - index);
+			return new Node(node.bitmap | bit, slots);
+		}
+		
+		Object slot = node.slots[index];
+		Object replaced;
+		
+		if(slot instanceof Node) {
+			replaced = put((Node) slot, shift + BITS, entry);
+		}
+		else if(slot instanceof Entry) {
+			Entry<?> existing = (Entry<?>) slot;
+			if(existing.getKey().equals(entry.getKey())) {
+				replaced = entry;
+			}
+			else if(existing.hash == entry.hash) {
+				replaced = new Entry<?>[] {existing, entry};
+			}
+			else {
+				replaced = put(new Node(bit(existing.hash, shift + BITS), new Object[] {existing}), shift + BITS, entry);
+			}
+		}
+		else {
+			Entry<?>[] bucket = (Entry<?>[]) slot;
+			if(bucket[0].hash != entry.hash) {
+				replaced = put(new Node(bit(bucket[0].hash, shift + BITS), new Object[] {bucket}), shift + BITS, entry);
+			}
+			else {
+				replaced = putInBucket(bucket, entry);
+			}
+		}
+		
+		Object[] slots = node.slots.clone();
+		slots[index] = replaced;
+		return new Node(node.bitmap, slots);
+	}
+	
+	private static Entry<?>[] putInBucket(Entry<?>[] bucket, Entry<?> entry) {
+		
+		for(int i = 0; i < bucket.length; i++) {
+			if(bucket[i].getKey().equals(entry.getKey())) {
+				Entry<?>[] copy = bucket.clone();
+				copy[i] = entry;
+				return copy;
+			}
+		}
+		
+		Entry<?>[] copy = new Entry<?>[bucket.length + 1];
+		System.arraycopy(bucket, 0, copy, 0, bucket.length);
+		copy[bucket.length] = entry;
+		return copy;
+	}
+	
+	//Copy of the path to a key known to be present, without it - a node left with a single entry is replaced by the entry
+	private static Object remove(Node node, int shift, int hash, String key) {
+		
+		int bit = bit(hash, shift);
+		int index = index(node.bitmap, bit);
+		Object slot = node.slots[index];
+		Object replaced = null;
+		
+		if(slot instanceof Node) {
+			replaced = remove((Node) slot, shift + BITS, hash, key);
+		}
+		else if(slot instanceof Entry[]) {
+			Entry<?>[] bucket = (Entry<?>[]) slot;
+			Entry<?>[] remaining = new Entry<?>[bucket.length - 1];
+			int count = 0;
+			for(int i = 0; i < bucket.length; i++) {
+				if(!bucket[i].getKey().equals(key)) {
+					remaining[count++] = bucket[i];
+				}
+			}
+			replaced = (remaining.length == 1) ? remaining[0] : remaining;
+		}
+		
+		if(replaced != null) {
+			Object[] slots = node.slots.clone();
+			slots[index] = replaced;
+			return new Node(node.bitmap, slots);
+		}
+		
+		if(node.slots.length == 1) {
+			return null;
+		}
+		
+		Object[] slots = new Object[node.slots.length - 1];
+		System.arraycopy(node.slots, 0, slots, 0, index);
+		System.arraycopy(node.slots, index + 1, slots, index, slots.length - index);
+		
+		//The root stays a Node, a lower level with a single entry or bucket left is not needed
+		if(shift > 0 && slots.length == 1 && !(slots[0] instanceof Node)) {
+			return slots[0];
+		}
+		return new Node(node.bitmap & ~bit, slots);
+	}
+	
+	//Copy of the path to the sequence number specified, with the entry set or cleared
+	private static Object[] set(Object[] node, int shift, int sequence, Object entry) {
+		
+		Object[] copy = (node == null) ? new Object[WIDTH] : node.clone();
+		int slot = (sequence >>> shift) & MASK;
+		copy[slot] = (shift == 0) ? entry : set((Object[]) copy[slot], shift - BITS, sequence, entry);
+		
+		return copy;
+	}
+	
+	private static int hash(String key) {
+		int hash = key.hashCode();
+		return hash ^ (hash >>> 16);
+	}
+	
+	private static int bit(int hash, int shift) {
+		return 1 << ((hash >>> shift) & MASK);
+	}
+	
+	private static int index(int bitmap, int bit) {
+		return Integer.bitCount(bitmap & (bit - 1));
+	}
+	
+	/*
+	 * A level of the hash trie. Each slot holds an Entry, a Node of the next level, or an array of
+	 * the entries whose keys have the same hash.
+	 */
+	private static final class Node {
+		
+		final int bitmap;
+		final Object[] slots;
+		
+		Node(int bitmap, Object[] slots) {
+			this.bitmap = bitmap;
+			this.slots = slots;
+		}
+		
+	}
+	
+	/*
+	 * A key and value with the hash of the key and its position in the insertion order.
+	 */
+	private static final class Entry<V> extends AbstractMap.SimpleImmutableEntry<String, V> {
+		
+		private static final long serialVersionUID = 1L;
+		
+		final int hash;
+		final int sequence;
+		
+		Entry(String key, V value, int sequence) {
+			super(key, value);
+			this.hash = hash(key);
+			this.sequence = sequence;
+		}
+		
+	}
+	
+	/*
+	 * Walks the lowest level of the order trie, skipping the gaps left by removed keys.
+	 */
+	private final class OrderIterator implements Iterator<Map.Entry<String, V>> {
+		
+		private int sequence = 0;
+		private Object[] leaf = null;
+		private Entry<V> next = advance();
+		
+		@Override
+		public boolean hasNext() {
+			return next != null;
+		}
+		
+		@Override
+		public Map.Entry<String, V> next() {
+			
+			if(next == null) {
+				throw new NoSuchElementException();
+			}
+			
+			Entry<V> entry = next;
+			next = advance();
+			return entry;
+		}
+		
+		@SuppressWarnings("unchecked")
+		private Entry<V> advance() {
+			
+			while(sequence < nextSequence) {
+				
+				if((sequence & MASK) == 0 || leaf == null) {
+					leaf = order;
+					for(int shift = orderShift; shift > 0 && leaf != null; shift -= BITS) {
+						leaf = (Object[]) leaf[(sequence >>> shift) & MASK];
+					}
+					
+					//A whole leaf of removed keys is never created, but its slot may be empty
+					if(leaf == null) {
+						sequence = (sequence | MASK) + 1;
+						continue;
+					}
+				}
+				
+				Object entry = leaf[sequence & MASK];
+				sequence++;
+				if(entry != null) {
+					return (Entry<V>) entry;
+				}
+			}
+			
+			return null;
+		}
+		
+	}
+
+}
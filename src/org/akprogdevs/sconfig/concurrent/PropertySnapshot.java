@@ -0,0 +1,98 @@
+package org.akprogdevs.sconfig.concurrent;
+
+import org.akprogdevs.sconfig.classes.Property;
+
+/**
+ * An immutable copy of a Property - its ID, value and valid values can be read from any
+ * number of threads without locking. Changing a PropertySnapshot creates a new one.
+ * 
+ * @author AK Program Developers
+ *
+ */
+public final class PropertySnapshot {
+	
+	private final static String[] NO_VALID_VALUES = new String[0];
+	
+	private final String propertyID;
+	private final String value;
+	private final String[] validValues;
+	
+	/**
+	 * Constructor that accepts an ID and its corresponding value. Spaces, if any, in the
+	 * id parameter will be eliminated.
+	 * @param id The property ID
+	 * @param value The property value
+	 */
+	public PropertySnapshot(String id, String value) {
+		this(new Property(id, value));
+	}
+	
+	/**
+	 * Constructor that copies the current state of a Property, later changes to the
+	 * Property do not affect this snapshot.
+	 * @param property The Property to be copied
+	 */
+	public PropertySnapshot(Property property) {
+		this(property.getID(), property.getValue(), property.getValidValues());
+	}
+	
+	private PropertySnapshot(String propertyID, String value, String[] validValues) {
+		this.propertyID = propertyID;
+		this.value = value;
+		this.validValues = validValues.length == 0 ? NO_VALID_VALUES : validValues;
+	}
+	
+	/**
+	 * Retrieves the ID name of this property.
+	 * 
+	 * @return The property ID
+	 */
+	public String getID() {
+		return this.propertyID;
+	}
+	
+	/**
+	 * Retrieves the value of this property.
+	 * 
+	 * @return The property value
+	 */
+	public String getValue() {
+		return this.value;
+	}
+	
+	/**
+	 * Returns a string array of the valid values of this property.
+	 * @return A copy of the valid values
+	 */
+	public String[] getValidValues() {
+		return this.validValues.clone();
+	}
+	
+	/**
+	 * Creates a snapshot of this property with a different value, the valid values are kept.
+	 * @param value The new property value
+	 * @return The new PropertySnapshot
+	 */
+	public PropertySnapshot withValue(String value) {
+		return new PropertySnapshot(this.propertyID, value, this.validValues);
+	}
+	
+	/**
+	 * Creates a new, mutable Property with the same ID, value and valid values.
+	 * @return The new Property object
+	 */
+	public Property toProperty() {
+		return new Property(this.propertyID, this.value, this.validValues);
+	}
+	
+	/**
+	 * Converts this property into a readable listing for the configuration file.
+	 * 
+	 * @return Export property string, along with valid values, if applicable.
+	 */
+	@Override
+	public String toString() {
+		return toProperty().toString();
+	}
+
+}
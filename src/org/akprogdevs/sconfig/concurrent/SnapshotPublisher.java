@@ -0,0 +1,99 @@
+package org.akprogdevs.sconfig.concurrent;
+
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.UnaryOperator;
+
+import org.akprogdevs.sconfig.classes.Configuration;
+
+/**
+ * Publishes versions of a configuration to any number of reading threads. Readers call
+ * {@code get()} to obtain the current {@link ConfigurationSnapshot}, which never takes a lock
+ * and never changes underneath them. Writers publish new versions - either a fresh copy of
+ * a Configuration, or a change derived from the current snapshot (copy-on-write).
+ * 
+ * @author AK Program Developers
+ *
+ */
+public final class SnapshotPublisher {
+	
+	private final AtomicReference<ConfigurationSnapshot> current;
+	
+	/**
+	 * Default constructor that starts with an empty snapshot.
+	 */
+	public SnapshotPublisher() {
+		this(ConfigurationSnapshot.EMPTY);
+	}
+	
+	/**
+	 * Constructor that starts with the snapshot specified.
+	 * 
+	 * @param initial The first published snapshot
+	 */
+	public SnapshotPublisher(ConfigurationSnapshot initial) {
+		this.current = new AtomicReference<>(initial);
+	}
+	
+	/**
+	 * Constructor that starts with a snapshot of the Configuration specified.
+	 * 
+	 * @param config The Configuration to be copied
+	 */
+	public SnapshotPublisher(Configuration config) {
+		this(new ConfigurationSnapshot(config));
+	}
+	
+	/**
+	 * Retrieves the most recently published snapshot.
+	 * 
+	 * @return The current ConfigurationSnapshot
+	 */
+	public ConfigurationSnapshot get() {
+		return this.current.get();
+	}
+	
+	/**
+	 * Publishes the snapshot specified, replacing the current one.
+	 * 
+	 * @param snapshot The snapshot to be published
+	 */
+	public void publish(ConfigurationSnapshot snapshot) {
+		this.current.set(snapshot);
+	}
+	
+	/**
+	 * Publishes a snapshot of the Configuration specified, replacing the current one.
+	 * 
+	 * @param config The Configuration to be copied
+	 * @return The published ConfigurationSnapshot
+	 */
+	public ConfigurationSnapshot publish(Configuration config) {
+		
+		ConfigurationSnapshot snapshot = new ConfigurationSnapshot(config);
+		this.current.set(snapshot);
+		
+		return snapshot;
+	}
+	
+	/**
+	 * Publishes a change of the current snapshot, for example 
+	 * {@code update(s -> s.withModuleProperty("module", new PropertySnapshot("id", "value")))}.
+	 * If another writer publishes first, the change is applied again to the newer snapshot - 
+	 * the function should therefore have no side effects.
+	 * 
+	 * @param change Function that derives the new snapshot from the current one
+	 * @return The published ConfigurationSnapshot
+	 */
+	public ConfigurationSnapshot update(UnaryOperator<ConfigurationSnapshot> change) {
+		
+		while(true) {
+			ConfigurationSnapshot previous = this.current.get();
+			ConfigurationSnapshot next = change.apply(previous);
+			
+			if(next == previous || this.current.compareAndSet(previous, next)) {
+				return next;
+			}
+		}
+	}
+
+}
@@ -0,0 +1,267 @@
+package org.akprogdevs.sconfig.diff;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.akprogdevs.sconfig.classes.Configuration;
+import org.akprogdevs.sconfig.classes.Module;
+import org.akprogdevs.sconfig.classes.Property;
+import org.akprogdevs.sconfig.concurrent.PropertySnapshot;
+
+/**
+ * The differences between two Configurations - added, removed and changed properties, both at
+ * the top-level and in modules, and added, removed and changed modules. Properties are matched
+ * by ID and modules by name through the indexes of the Configurations, so comparing takes time
+ * linear in the size of both. The order of properties and modules is not compared.
+ * 
+ * <p>A ConfigurationDiff holds copies of the properties that differ, and can be applied as a
+ * patch to another Configuration with {@code apply}.</p>
+ * 
+ * @author AK Program Developers
+ *
+ */
+public final class ConfigurationDiff {
+	
+	private final List<PropertyChange> propertyChanges;
+	private final List<ModuleDiff> moduleDiffs;
+	
+	private ConfigurationDiff(List<PropertyChange> propertyChanges, List<ModuleDiff> moduleDiffs) {
+		this.propertyChanges = Collections.unmodifiableList(propertyChanges);
+		this.moduleDiffs = Collections.unmodifiableList(moduleDiffs);
+	}
+	
+	/**
+	 * Compares two Configurations. The differences are listed in the order of the Configuration
+	 * before, followed by what only exists after.
+	 * 
+	 * @param before The Configuration before, for example the one in production
+	 * @param after The Configuration after, for example the one to be deployed
+	 * @return The differences, which are empty if both Configurations hold the same properties and modules
+	 */
+	public static ConfigurationDiff compare(Configuration before, Configuration after) {
+		
+		List<PropertyChange> propertyChanges = compareProperties(before.retrieveProperties(), before, null,
+				after.retrieveProperties(), after, null);
+		List<ModuleDiff> moduleDiffs = new ArrayList<>();
+		
+		ArrayList<Module> modulesBefore = before.retrieveModules();
+		for(int i = 0; i < modulesBefore.size(); i++) {
+			
+			Module module = modulesBefore.get(i);
+			Module other = after.getModule(module.getModuleName());
+			
+			if(other == null) {
+				moduleDiffs.add(new ModuleDiff(ModuleDiff.Type.REMOVED, module.getModuleName(), 
+						compareProperties(module.retrieveProperties(), null, module, Collections.<Property>emptyList(), null, null)));
+			}
+			else {
+				List<PropertyChange> changes = compareProperties(module.retrieveProperties(), null, module,
+						other.retrieveProperties(), null, other);
+				if(!changes.isEmpty()) {
+					moduleDiffs.add(new ModuleDiff(ModuleDiff.Type.CHANGED, module.getModuleName(), changes));
+				}
+			}
+		}
+		
+		ArrayList<Module> modulesAfter = after.retrieveModules();
+		for(int i = 0; i < modulesAfter.size(); i++) {
+			
+			Module module = modulesAfter.get(i);
+			if(!before.hasModule(module.getModuleName())) {
+				moduleDiffs.add(new ModuleDiff(ModuleDiff.Type.ADDED, module.getModuleName(), 
+						compareProperties(Collections.<Property>emptyList(), null, null, module.retrieveProperties(), null, module)));
+			}
+		}
+		
+		return new ConfigurationDiff(propertyChanges, moduleDiffs);
+	}
+	
+	/**
+	 * Retrieves the top-level properties that differ.
+	 * 
+	 * @return Unmodifiable list of property changes
+	 */
+	public List<PropertyChange> getPropertyChanges() {
+		return this.propertyChanges;
+	}
+	
+	/**
+	 * Retrieves the modules that differ - added, removed, or with properties that differ.
+	 * 
+	 * @return Unmodifiable list of module differences
+	 */
+	public List<ModuleDiff> getModuleDiffs() {
+		return this.moduleDiffs;
+	}
+	
+	/**
+	 * Retrieves the differences of the module specified.
+	 * 
+	 * @param moduleID Name/ID of the module
+	 * @return The module differences, or null if the module does not differ
+	 */
+	public ModuleDiff getModuleDiff(String moduleID) {
+		
+		for(int i = 0; i < moduleDiffs.size(); i++) {
+			if(moduleDiffs.get(i).getModuleName().equals(moduleID)) {
+				return moduleDiffs.get(i);
+			}
+		}
+		return null;
+	}
+	
+	/**
+	 * Checks whether both Configurations hold the same properties and modules.
+	 * 
+	 * @return True if there are no differences
+	 */
+	public boolean isEmpty() {
+		return propertyChanges.isEmpty() && moduleDiffs.isEmpty();
+	}
+	
+	/**
+	 * Retrieves the total number of properties that differ, at the top-level and in modules.
+	 * 
+	 * @return Number of property changes
+	 */
+	public int getChangeCount() {
+		
+		int count = propertyChanges.size();
+		for(int i = 0; i < moduleDiffs.size(); i++) {
+			count += moduleDiffs.get(i).getChanges().size();
+		}
+		return count;
+	}
+	
+	/**
+	 * Applies these differences to a Configuration as a patch: removed properties and modules
+	 * are removed, and added or changed properties are set to their value and valid values after,
+	 * adding them (and their module) if they are missing. Applying the differences to the
+	 * Configuration before makes it hold the same properties and modules as the Configuration after.
+	 * 
+	 * @param config The Configuration to be changed
+	 */
+	public void apply(Configuration config) {
+		
+		applyChanges(propertyChanges, config, null);
+		
+		for(int i = 0; i < moduleDiffs.size(); i++) {
+			
+			ModuleDiff diff = moduleDiffs.get(i);
+			
+			if(diff.getType() == ModuleDiff.Type.REMOVED) {
+				config.removeModule(diff.getModuleName());
+				continue;
+			}
+			
+			Module module = config.getModule(diff.getModuleName());
+			if(module == null) {
+				module = new Module(diff.getModuleName(), diff.getChanges().size());
+				config.addExistingModule(module);
+			}
+			applyChanges(diff.getChanges(), null, module);
+		}
+	}
+	
+	/**
+	 * Converts these differences into readable lines, one per property and module.
+	 * 
+	 * @return The differences as text
+	 */
+	@Override
+	public String toString() {
+		
+		StringBuilder returnValue = new StringBuilder();
+		
+		for(int i = 0; i < propertyChanges.size(); i++) {
+			returnValue.append(propertyChanges.get(i)).append(System.lineSeparator());
+		}
+		for(int i = 0; i < moduleDiffs.size(); i++) {
+			returnValue.append(moduleDiffs.get(i)).append(System.lineSeparator());
+		}
+		
+		return returnValue.toString();
+	}
+	
+	//Compare two lists of properties, looking IDs up in the configuration or module of the other side
+	private static List<PropertyChange> compareProperties(List<Property> before, Configuration beforeConfig, Module beforeModule,
+			List<Property> after, Configuration afterConfig, Module afterModule) {
+		
+		List<PropertyChange> changes = new ArrayList<>();
+		
+		for(int i = 0; i < before.size(); i++) {
+			
+			Property property = before.get(i);
+			Property other = lookup(afterConfig, afterModule, property.getID());
+			
+			if(other == null) {
+				changes.add(new PropertyChange(new PropertySnapshot(property), null));
+			}
+			else if(!PropertyChange.equal(property.getValue(), other.getValue())
+					|| !Arrays.equals(property.getValidValues(), other.getValidValues())) {
+				changes.add(new PropertyChange(new PropertySnapshot(property), new PropertySnapshot(other)));
+			}
+		}
+		
+		for(int i = 0; i < after.size(); i++) {
+			
+			Property property = after.get(i);
+			if(lookup(beforeConfig, beforeModule, property.getID()) == null) {
+				changes.add(new PropertyChange(null, new PropertySnapshot(property)));
+			}
+		}
+		
+		return changes;
+	}
+	
+	private static void applyChanges(List<PropertyChange> changes, Configuration config, Module module) {
+		
+		for(int i = 0; i < changes.size(); i++) {
+			
+			PropertyChange change = changes.get(i);
+			
+			if(change.getType() == PropertyChange.Type.REMOVED) {
+				if(module == null) {
+					config.removeProperty(change.getID());
+				}
+				else {
+					module.removeProperty(change.getID());
+				}
+				continue;
+			}
+			
+			PropertySnapshot after = change.getAfter();
+			Property property = lookup(config, module, change.getID());
+			
+			if(property == null) {
+				if(module == null) {
+					config.addExistingProperty(after.toProperty());
+				}
+				else {
+					module.addExistingProperty(after.toProperty());
+				}
+				continue;
+			}
+			
+			if(!PropertyChange.equal(property.getValue(), after.getValue())) {
+				property.setValue(after.getValue());
+			}
+			String[] validValues = after.getValidValues();
+			if(!Arrays.equals(property.getValidValues(), validValues)) {
+				property.setValidValues(validValues);
+			}
+		}
+	}
+	
+	//The property of the configuration or module with the ID specified, or null if there is neither
+	private static Property lookup(Configuration config, Module module, String id) {
+		
+		if(module != null) {
+			return module.getProperty(id);
+		}
+		return (config == null) ? null : config.getProperty(id);
+	}
+
+}
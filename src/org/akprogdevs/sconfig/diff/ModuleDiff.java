@@ -0,0 +1,93 @@
+package org.akprogdevs.sconfig.diff;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The differences of a single module between two Configurations. The properties of an added
+ * module are all listed as added, and those of a removed module as removed.
+ * 
+ * @author AK Program Developers
+ *
+ */
+public final class ModuleDiff {
+	
+	/**
+	 * The ways a module can differ.
+	 */
+	public enum Type {
+		
+		/** The module only exists after. */
+		ADDED,
+		
+		/** The module only exists before. */
+		REMOVED,
+		
+		/** The module exists on both sides, with different properties. */
+		CHANGED
+	}
+	
+	private final Type type;
+	private final String moduleName;
+	private final List<PropertyChange> changes;
+	
+	/**
+	 * Constructor that accepts the kind of difference, the module name and its property changes.
+	 * 
+	 * @param type The kind of difference
+	 * @param moduleName The name/ID of the module
+	 * @param changes The properties that differ, in the order they are listed in the modules
+	 */
+	public ModuleDiff(Type type, String moduleName, List<PropertyChange> changes) {
+		this.type = type;
+		this.moduleName = moduleName;
+		this.changes = Collections.unmodifiableList(changes);
+	}
+	
+	/**
+	 * Retrieves the kind of difference.
+	 * 
+	 * @return The difference type
+	 */
+	public Type getType() {
+		return this.type;
+	}
+	
+	/**
+	 * Retrieves the name of the module.
+	 * 
+	 * @return The module name/ID
+	 */
+	public String getModuleName() {
+		return this.moduleName;
+	}
+	
+	/**
+	 * Retrieves the properties of the module that differ.
+	 * 
+	 * @return Unmodifiable list of property changes
+	 */
+	public List<PropertyChange> getChanges() {
+		return this.changes;
+	}
+	
+	/**
+	 * Converts this difference into readable lines, the module name followed by its property changes.
+	 * 
+	 * @return The difference as text
+	 */
+	@Override
+	public String toString() {
+		
+		StringBuilder returnValue = new StringBuilder();
+		returnValue.append(type == Type.ADDED ? "+ " : type == Type.REMOVED ? "- " : "~ ")
+				.append('{').append(moduleName).append('}');
+		
+		for(int i = 0; i < changes.size(); i++) {
+			returnValue.append(System.lineSeparator()).append("    ").append(changes.get(i));
+		}
+		
+		return returnValue.toString();
+	}
+
+}
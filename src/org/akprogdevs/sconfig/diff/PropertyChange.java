@@ -0,0 +1,130 @@
+package org.akprogdevs.sconfig.diff;
+
+import java.util.Arrays;
+
+import org.akprogdevs.sconfig.concurrent.PropertySnapshot;
+
+/**
+ * A single property that differs between two Configurations (or two modules of the same name),
+ * with copies of the property as it was before and after.
+ * 
+ * @author AK Program Developers
+ *
+ */
+public final class PropertyChange {
+	
+	/**
+	 * The ways a property can differ.
+	 */
+	public enum Type {
+		
+		/** The property only exists after. */
+		ADDED,
+		
+		/** The property only exists before. */
+		REMOVED,
+		
+		/** The property exists on both sides, with a different value or different valid values. */
+		CHANGED
+	}
+	
+	private final PropertySnapshot before;
+	private final PropertySnapshot after;
+	
+	/**
+	 * Constructor that accepts the property before and after.
+	 * 
+	 * @param before The property before, or null if it was added
+	 * @param after The property after, or null if it was removed
+	 */
+	public PropertyChange(PropertySnapshot before, PropertySnapshot after) {
+		
+		if(before == null && after == null) {
+			throw new IllegalArgumentException("A property change needs the property before or after");
+		}
+		
+		this.before = before;
+		this.after = after;
+	}
+	
+	/**
+	 * Retrieves the kind of change.
+	 * 
+	 * @return The change type
+	 */
+	public Type getType() {
+		
+		if(before == null) {
+			return Type.ADDED;
+		}
+		return (after == null) ? Type.REMOVED : Type.CHANGED;
+	}
+	
+	/**
+	 * Retrieves the ID of the property.
+	 * 
+	 * @return The property ID
+	 */
+	public String getID() {
+		return (before == null) ? after.getID() : before.getID();
+	}
+	
+	/**
+	 * Retrieves the property as it was before.
+	 * 
+	 * @return Copy of the property, or null if it was added
+	 */
+	public PropertySnapshot getBefore() {
+		return this.before;
+	}
+	
+	/**
+	 * Retrieves the property as it is after.
+	 * 
+	 * @return Copy of the property, or null if it was removed
+	 */
+	public PropertySnapshot getAfter() {
+		return this.after;
+	}
+	
+	/**
+	 * Checks whether the value of the property changed, added and removed properties count as changed.
+	 * 
+	 * @return True if the value differs
+	 */
+	public boolean isValueChanged() {
+		return before == null || after == null || !equal(before.getValue(), after.getValue());
+	}
+	
+	/**
+	 * Checks whether the valid values of the property changed, including their order. Added and
+	 * removed properties count as changed.
+	 * 
+	 * @return True if the valid values differ
+	 */
+	public boolean isValidValuesChanged() {
+		return before == null || after == null || !Arrays.equals(before.getValidValues(), after.getValidValues());
+	}
+	
+	/**
+	 * Converts this change into a readable line, prefixed with {@code +}, {@code -} or {@code ~}.
+	 * 
+	 * @return The change as text
+	 */
+	@Override
+	public String toString() {
+		
+		if(before == null) {
+			return "+ " + after;
+		}
+		if(after == null) {
+			return "- " + before;
+		}
+		return "~ " + before + " -> " + after;
+	}
+	
+	static boolean equal(String first, String second) {
+		return (first == null) ? second == null : first.equals(second);
+	}
+
+}
@@ -0,0 +1,496 @@
+package org.akprogdevs.sconfig.journal;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.akprogdevs.sconfig.classes.Configuration;
+import org.akprogdevs.sconfig.classes.Module;
+import org.akprogdevs.sconfig.classes.MutationListener;
+import org.akprogdevs.sconfig.classes.Property;
+import org.akprogdevs.sconfig.concurrent.ConfigurationSnapshot;
+import org.akprogdevs.sconfig.read.ParseException;
+import org.akprogdevs.sconfig.read.Reader;
+import org.akprogdevs.sconfig.write.Writer;
+
+/**
+ * Keeps a configuration file up to date without rewriting it on every change. Changes made to
+ * the Configuration returned by {@code get()} - added, removed and renamed properties and modules,
+ * and changed values - are appended as small records to a journal next to the file
+ * ({@code name.scnfg.journal}). The journal is written and synced to disk in batches, every
+ * few milliseconds or when {@code sync()} is called.
+ *
+ * <p>Once the journal grows past a size limit, it is compacted: a copy of the Configuration
+ * is taken on the thread making the change, and written to the configuration file in the
+ * background, after which the old journal is deleted. When the file is opened again, the
+ * journal is replayed on top of it, so changes survive a crash up to the last sync.</p>
+ *
+ * <p>Every record has a sequence number, and the configuration file written by a compaction
+ * ends with a comment holding the sequence number of the last change it contains. Records up
+ * to that number are skipped when replaying, so a crash at any point of a compaction neither
+ * loses changes nor applies them twice.</p>
+ *
+ * <p>Like the Configuration itself, the Configuration returned by {@code get()} should only
+ * be changed by one thread at a time.</p>
+ *
+ * @author AK Program Developers
+ *
+ */
+public final class Journal implements Closeable {
+	
+	private final static String EXTENSION = ".scnfg";
+	private final static String JOURNAL_SUFFIX = ".journal";
+	private final static String COMPACTING_SUFFIX = ".journal.compacting";
+	private final static String SEQUENCE_COMMENT = "scnfg-journal-sequence:";
+	private final static int TRAILER_BYTES = 64;
+	private final static long DEFAULT_SYNC_MILLIS = 50;
+	private final static long DEFAULT_COMPACT_BYTES = 4 * 1024 * 1024;
+	
+	private final Path file;
+	private final Path journalFile;
+	private final Path compactingFile;
+	private final long compactBytes;
+	private final Configuration config;
+	private final ScheduledExecutorService executor;
+	
+	//Records appended since the last sync, swapped with the spare buffer when they are written
+	private RecordBuffer pending = new RecordBuffer();
+	private RecordBuffer spare = new RecordBuffer();
+	//Records that belong to the journal being compacted, and the copy it is compacted into
+	private RecordBuffer cut = null;
+	private ConfigurationSnapshot snapshot = null;
+	private long snapshotSequence = 0;
+	//Sequence number of the last record, applied or appended
+	private long sequence;
+	private long journalSize;
+	private boolean compacting = false;
+	
+	//Only used while holding ioLock
+	private final Object ioLock = new Object();
+	private FileChannel channel;
+	
+	private volatile IOException lastError = null;
+	private boolean closed = false;
+	
+	private final MutationListener recorder = new MutationListener() {
+		
+		@Override
+		public void propertyAdded(Module module, Property property) {
+			synchronized(Journal.this) {
+				int before = pending.size();
+				pending.putProperty(++sequence, module, property);
+				recorded(before);
+			}
+		}
+		
+		@Override
+		public void propertyRemoved(Module module, Property property) {
+			synchronized(Journal.this) {
+				int before = pending.size();
+				pending.removeProperty(++sequence, module, property);
+				recorded(before);
+			}
+		}
+		
+		@Override
+		public void propertyChanged(Module module, Property property) {
+			synchronized(Journal.this) {
+				int before = pending.size();
+				pending.putProperty(++sequence, module, property);
+				recorded(before);
+			}
+		}
+		
+		@Override
+		public void propertyRenamed(Module module, Property property, String oldID) {
+			synchronized(Journal.this) {
+				int before = pending.size();
+				pending.renameProperty(++sequence, module, oldID, property.getID());
+				recorded(before);
+			}
+		}
+		
+		@Override
+		public void moduleAdded(Module module) {
+			synchronized(Journal.this) {
+				int before = pending.size();
+				pending.putModule(++sequence, module);
+				for(Property property : module.retrieveProperties()) {
+					pending.putProperty(++sequence, module, property);
+				}
+				recorded(before);
+			}
+		}
+		
+		@Override
+		public void moduleRemoved(Module module) {
+			synchronized(Journal.this) {
+				int before = pending.size();
+				pending.removeModule(++sequence, module);
+				recorded(before);
+			}
+		}
+		
+		@Override
+		public void moduleRenamed(Module module, String oldName) {
+			synchronized(Journal.this) {
+				int before = pending.size();
+				pending.renameModule(++sequence, oldName, module.getModuleName());
+				recorded(before);
+			}
+		}
+		
+	};
+	
+	/**
+	 * Constructor that opens the configuration file at the destination (path) specified, along
+	 * with its journal. The file name at the end of the path does not need an extension
+	 * specified, and the file does not need to exist yet.
+	 *
+	 * @param path Path of the configuration file
+	 * @throws ParseException If the file does not follow the configuration format
+	 * @throws IOException If the file or its journal cannot be read
+	 */
+	public Journal(String path) throws IOException {
+		this(Paths.get(path.endsWith(EXTENSION) ? path : path + EXTENSION), DEFAULT_SYNC_MILLIS, DEFAULT_COMPACT_BYTES);
+	}
+	
+	/**
+	 * Constructor that opens the configuration file at the path specified, the path is used as-is
+	 * and must end with the {@code .scnfg} extension.
+	 *
+	 * @param file Path of the configuration file
+	 * @param syncMillis Time between syncs of the journal to disk
+	 * @param compactBytes Size of the journal, in bytes, that triggers a compaction
+	 * @throws ParseException If the file does not follow the configuration format
+	 * @throws IOException If the file or its journal cannot be read
+	 */
+	public Journal(Path file, long syncMillis, long compactBytes) throws IOException {
+		
+		if(!file.toString().endsWith(EXTENSION)) {
+			throw new IllegalArgumentException("Configuration file name must end with " + EXTENSION + ": " + file);
+		}
+		
+		this.file = file.toAbsolutePath();
+		this.journalFile = Paths.get(this.file + JOURNAL_SUFFIX);
+		this.compactingFile = Paths.get(this.file + COMPACTING_SUFFIX);
+		this.compactBytes = compactBytes;
+		
+		if(Files.exists(this.file)) {
+			this.config = new Reader().read(this.file);
+			this.sequence = compactedSequence(this.file);
+		}
+		else {
+			this.config = new Configuration();
+		}
+		
+		//A compaction was interrupted, its journal comes before the current one
+		boolean interrupted = Files.exists(compactingFile);
+		if(interrupted) {
+			replay(compactingFile);
+		}
+		int validBytes = Files.exists(journalFile) ? replay(journalFile) : 0;
+		
+		if(interrupted) {
+			Writer writer = new Writer(this.config);
+			writer.setTrailingComment(SEQUENCE_COMMENT + this.sequence);
+			writer.channelWriter(writerPath(), true);
+			Files.deleteIfExists(journalFile);
+			Files.delete(compactingFile);
+			validBytes = 0;
+		}
+		
+		this.channel = openJournal(validBytes);
+		this.journalSize = this.channel.size();
+		
+		this.executor = Executors.newScheduledThreadPool(2, runnable -> {
+			Thread thread = new Thread(runnable, "scnfg-journal-" + this.file.getFileName());
+			thread.setDaemon(true);
+			return thread;
+		});
+		this.executor.scheduleWithFixedDelay(this::backgroundSync, syncMillis, syncMillis, TimeUnit.MILLISECONDS);
+		
+		this.config.addMutationListener(recorder);
+	}
+	
+	/**
+	 * Retrieves the journaled Configuration, changes to it are recorded in the journal.
+	 *
+	 * @return The Configuration
+	 */
+	public Configuration get() {
+		return this.config;
+	}
+	
+	/**
+	 * Retrieves the path of the configuration file.
+	 *
+	 * @return Absolute path of the file
+	 */
+	public Path getPath() {
+		return this.file;
+	}
+	
+	/**
+	 * Retrieves the size of the current journal, including the records not synced yet.
+	 *
+	 * @return Number of bytes
+	 */
+	public synchronized long getJournalSize() {
+		return this.journalSize;
+	}
+	
+	/**
+	 * Retrieves the error of the last sync or compaction that ran in the background.
+	 *
+	 * @return The error, or null if the last one succeeded
+	 */
+	public IOException getLastError() {
+		return this.lastError;
+	}
+	
+	/**
+	 * Writes the records appended so far to the journal, and waits until they are on disk.
+	 *
+	 * @throws IOException If the journal cannot be written to
+	 */
+	public void sync() throws IOException {
+		
+		synchronized(ioLock) {
+			
+			RecordBuffer cut;
+			RecordBuffer batch;
+			ConfigurationSnapshot snapshot;
+			long snapshotSequence;
+			
+			synchronized(this) {
+				cut = this.cut;
+				snapshot = this.snapshot;
+				snapshotSequence = this.snapshotSequence;
+				this.cut = null;
+				this.snapshot = null;
+				
+				batch = this.pending;
+				this.pending = this.spare;
+				this.spare = batch;
+			}
+			
+			if(cut != null) {
+				//Finish the journal being compacted, and start a new one for the records after the cut
+				cut.writeTo(channel);
+				channel.force(false);
+				channel.close();
+				retireJournal();
+				channel = openJournal(0);
+			}
+			
+			if(batch.size() > 0) {
+				batch.writeTo(channel);
+				channel.force(false);
+			}
+			
+			if(snapshot != null) {
+				executor.execute(() -> compactInBackground(snapshot, snapshotSequence));
+			}
+		}
+	}
+	
+	/**
+	 * Starts a compaction of the journal into the configuration file, unless one is already
+	 * running. This is done automatically once the journal grows past its size limit; as the
+	 * Configuration is copied, it must be called by the thread that changes the Configuration.
+	 */
+	public synchronized void compact() {
+		
+		if(compacting || closed) {
+			return;
+		}
+		
+		this.compacting = true;
+		this.snapshot = new ConfigurationSnapshot(config);
+		this.snapshotSequence = this.sequence;
+		this.cut = this.pending;
+		this.pending = new RecordBuffer();
+		this.journalSize = 4;
+		
+		executor.execute(this::backgroundSync);
+	}
+	
+	/**
+	 * Stops recording changes, syncs the journal and waits for a running compaction to finish.
+	 * The journal is kept, and replayed the next time the file is opened.
+	 */
+	@Override
+	public void close() throws IOException {
+		
+		synchronized(this) {
+			if(closed) {
+				return;
+			}
+			closed = true;
+		}
+		
+		config.removeMutationListener(recorder);
+		
+		try {
+			sync();
+		} finally {
+			executor.shutdown();
+			try {
+				executor.awaitTermination(Long.MAX_VALUE, TimeUnit.MILLISECONDS);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+			synchronized(ioLock) {
+				channel.close();
+			}
+		}
+		
+		IOException error = this.lastError;
+		if(error != null) {
+			throw error;
+		}
+	}
+	
+	//Called with the lock of this Journal held, after a record was appended
+	private void recorded(int before) {
+		
+		this.journalSize += pending.size() - before;
+		if(journalSize >= compactBytes) {
+			compact();
+		}
+	}
+	
+	private void backgroundSync() {
+		
+		try {
+			sync();
+		} catch (IOException e) {
+			this.lastError = e;
+		}
+	}
+	
+	private void compactInBackground(ConfigurationSnapshot snapshot, long snapshotSequence) {
+		
+		try {
+			//Once the file is in place, the records it contains are skipped even if the old journal is not deleted yet
+			Writer writer = new Writer(snapshot.toConfiguration());
+			writer.setTrailingComment(SEQUENCE_COMMENT + snapshotSequence);
+			writer.channelWriter(writerPath(), true);
+			Files.delete(compactingFile);
+			this.lastError = null;
+		} catch (IOException e) {
+			this.lastError = e;
+		}
+		
+		synchronized(this) {
+			this.compacting = false;
+		}
+	}
+	
+	//Move the journal out of the way of the next one, keeping the records of a failed compaction -
+	//if the journal outlives the append, its records are skipped as they follow those appended
+	private void retireJournal() throws IOException {
+		
+		if(Files.exists(compactingFile)) {
+			byte[] records = Files.readAllBytes(journalFile);
+			try(FileChannel compacting = FileChannel.open(compactingFile, StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+				ByteBuffer buffer = ByteBuffer.wrap(records, 4, records.length - 4);
+				while(buffer.hasRemaining()) {
+					compacting.write(buffer);
+				}
+				compacting.force(false);
+			}
+			Files.delete(journalFile);
+			return;
+		}
+		
+		try {
+			Files.move(journalFile, compactingFile, StandardCopyOption.ATOMIC_MOVE);
+		} catch (AtomicMoveNotSupportedException e) {
+			Files.move(journalFile, compactingFile);
+		}
+	}
+	
+	//The Writer adds the extension itself
+	private String writerPath() {
+		String path = file.toString();
+		return path.substring(0, path.length() - EXTENSION.length());
+	}
+	
+	//Apply the records of a journal not applied yet, returns the size of its complete records
+	private int replay(Path journal) throws IOException {
+		
+		ByteBuffer records = ByteBuffer.wrap(Files.readAllBytes(journal));
+		if(records.remaining() < 4 || records.getInt() != RecordBuffer.MAGIC) {
+			//A journal cut short before its first record holds nothing to replay
+			if(records.capacity() < 4) {
+				return 0;
+			}
+			throw new IOException("Not a configuration journal: " + journal);
+		}
+		
+		this.sequence = RecordBuffer.replay(records, config, this.sequence);
+		return records.position();
+	}
+	
+	//Sequence number of the last record contained in a configuration file written by a compaction
+	private static long compactedSequence(Path file) throws IOException {
+		
+		try(FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+			
+			long size = channel.size();
+			ByteBuffer tail = ByteBuffer.allocate((int) Math.min(size, TRAILER_BYTES));
+			channel.position(size - tail.capacity());
+			while(tail.hasRemaining() && channel.read(tail) >= 0) {
+				//Keep reading until the end of the file
+			}
+			
+			String text = new String(tail.array(), 0, tail.position(), StandardCharsets.UTF_8).trim();
+			int line = text.lastIndexOf('\n') + 1;
+			if(!text.startsWith("$" + SEQUENCE_COMMENT, line)) {
+				//Not written by a compaction, every record is replayed
+				return 0;
+			}
+			
+			try {
+				return Long.parseLong(text.substring(line + 1 + SEQUENCE_COMMENT.length()).trim());
+			} catch (NumberFormatException e) {
+				throw new IOException("Invalid journal sequence number in " + file);
+			}
+		}
+	}
+	
+	//Open the journal for appending, dropping anything after the last complete record
+	private FileChannel openJournal(int validBytes) throws IOException {
+		
+		FileChannel channel = FileChannel.open(journalFile, StandardOpenOption.CREATE, 
+				StandardOpenOption.READ, StandardOpenOption.WRITE);
+		
+		if(validBytes < 4) {
+			channel.truncate(0);
+			ByteBuffer magic = ByteBuffer.allocate(4).putInt(0, RecordBuffer.MAGIC);
+			while(magic.hasRemaining()) {
+				channel.write(magic);
+			}
+		}
+		else {
+			channel.truncate(validBytes);
+			channel.position(validBytes);
+		}
+		
+		return channel;
+	}
+
+}
@@ -0,0 +1,298 @@
+package org.akprogdevs.sconfig.journal;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.CRC32;
+
+import org.akprogdevs.sconfig.classes.Configuration;
+import org.akprogdevs.sconfig.classes.Module;
+import org.akprogdevs.sconfig.classes.Property;
+
+/**
+ * Encodes journal records into a growable buffer, and replays them onto a Configuration.
+ * Each record is framed as its payload length, the CRC32 of the payload, and the payload -
+ * the sequence number of the record, an operation byte and its strings, each written as a
+ * length (-1 for null) and UTF-8 bytes.
+ *
+ * <p>Sequence numbers keep increasing from one journal to the next. Removals and renames cannot
+ * be applied twice without changing the result, so a record is only replayed if its sequence
+ * number is above that of the last record already applied - by an earlier journal, or by the
+ * compaction that wrote the configuration file.</p>
+ *
+ * @author AK Program Developers
+ *
+ */
+final class RecordBuffer {
+	
+	//"SCJ2", the first four bytes of every journal file
+	final static int MAGIC = 0x53434A32;
+	
+	private final static byte PUT_PROPERTY = 1;
+	private final static byte REMOVE_PROPERTY = 2;
+	private final static byte RENAME_PROPERTY = 3;
+	private final static byte PUT_MODULE = 4;
+	private final static byte REMOVE_MODULE = 5;
+	private final static byte RENAME_MODULE = 6;
+	
+	private final static int FRAME = 8;
+	
+	private final CRC32 crc = new CRC32();
+	private ByteBuffer buffer = ByteBuffer.allocate(4096);
+	private int recordStart = 0;
+	
+	//Property with its ID, value and valid values, added if missing or overwritten otherwise
+	void putProperty(long sequence, Module module, Property property) {
+		
+		String[] validValues = property.getValidValues();
+		
+		begin(sequence, PUT_PROPERTY);
+		putString(name(module));
+		putString(property.getID());
+		putString(property.getValue());
+		ensure(4);
+		buffer.putInt(validValues.length);
+		for(int i = 0; i < validValues.length; i++) {
+			putString(validValues[i]);
+		}
+		end();
+	}
+	
+	void removeProperty(long sequence, Module module, Property property) {
+		begin(sequence, REMOVE_PROPERTY);
+		putString(name(module));
+		putString(property.getID());
+		end();
+	}
+	
+	void renameProperty(long sequence, Module module, String oldID, String newID) {
+		begin(sequence, RENAME_PROPERTY);
+		putString(name(module));
+		putString(oldID);
+		putString(newID);
+		end();
+	}
+	
+	//Empty module at the end of the list, replacing any module of the same name - its
+	//properties follow as separate records
+	void putModule(long sequence, Module module) {
+		begin(sequence, PUT_MODULE);
+		putString(module.getModuleName());
+		end();
+	}
+	
+	void removeModule(long sequence, Module module) {
+		begin(sequence, REMOVE_MODULE);
+		putString(module.getModuleName());
+		end();
+	}
+	
+	void renameModule(long sequence, String oldName, String newName) {
+		begin(sequence, RENAME_MODULE);
+		putString(oldName);
+		putString(newName);
+		end();
+	}
+	
+	/**
+	 * Retrieves the number of bytes of the records in this buffer.
+	 *
+	 * @return Number of bytes
+	 */
+	int size() {
+		return buffer.position();
+	}
+	
+	/**
+	 * Writes the records in this buffer to the channel specified, and empties the buffer.
+	 *
+	 * @param channel Destination channel
+	 * @throws IOException If the channel cannot be written to
+	 */
+	void writeTo(FileChannel channel) throws IOException {
+		
+		buffer.flip();
+		while(buffer.hasRemaining()) {
+			channel.write(buffer);
+		}
+		buffer.clear();
+	}
+	
+	/**
+	 * Applies the records in the buffer specified, from its position, to a Configuration.
+	 * Records with a sequence number up to the one specified are skipped, as they were
+	 * already applied. Reading stops at the first incomplete or corrupt record, which is what
+	 * a crash in the middle of a write leaves behind, and the buffer is left positioned after
+	 * the last complete record.
+	 *
+	 * @param in The records to be replayed
+	 * @param config The Configuration to be changed
+	 * @param applied Sequence number of the last record already applied
+	 * @return The sequence number of the last record applied, or {@code applied} if there was none
+	 */
+	static long replay(ByteBuffer in, Configuration config, long applied) {
+		
+		CRC32 crc = new CRC32();
+		
+		while(in.remaining() >= FRAME) {
+			
+			int start = in.position();
+			int length = in.getInt();
+			int checksum = in.getInt();
+			
+			if(length <= 8 || length > in.remaining()) {
+				in.position(start);
+				break;
+			}
+			
+			ByteBuffer payload = in.slice();
+			payload.limit(length);
+			crc.reset();
+			crc.update(payload.duplicate());
+			if((int) crc.getValue() != checksum) {
+				in.position(start);
+				break;
+			}
+			
+			long sequence = payload.getLong();
+			if(sequence > applied) {
+				apply(payload, config);
+				applied = sequence;
+			}
+			in.position(start + FRAME + length);
+		}
+		
+		return applied;
+	}
+	
+	private static void apply(ByteBuffer payload, Configuration config) {
+		
+		byte operation = payload.get();
+		
+		if(operation == PUT_MODULE) {
+			String name = getString(payload);
+			config.removeModule(name);
+			config.addModule(name);
+			return;
+		}
+		if(operation == REMOVE_MODULE) {
+			config.removeModule(getString(payload));
+			return;
+		}
+		if(operation == RENAME_MODULE) {
+			Module module = config.getModule(getString(payload));
+			String newName = getString(payload);
+			if(module != null && !config.hasModule(newName)) {
+				module.setModuleName(newName);
+			}
+			return;
+		}
+		
+		//Property records, for a top-level property when there is no module name
+		String moduleName = getString(payload);
+		Module module = (moduleName == null) ? null : config.getModule(moduleName);
+		if(moduleName != null && module == null) {
+			config.addModule(moduleName);
+			module = config.getModule(moduleName);
+		}
+		
+		String id = getString(payload);
+		Property property = (module == null) ? config.getProperty(id) : module.getProperty(id);
+		
+		if(operation == PUT_PROPERTY) {
+			
+			String value = getString(payload);
+			String[] validValues = new String[payload.getInt()];
+			for(int i = 0; i < validValues.length; i++) {
+				validValues[i] = getString(payload);
+			}
+			
+			if(property == null) {
+				property = new Property(id, value, validValues);
+				if(module == null) {
+					config.addExistingProperty(property);
+				}
+				else {
+					module.addExistingProperty(property);
+				}
+			}
+			else {
+				property.setValue(value);
+				property.setValidValues(validValues);
+			}
+		}
+		else if(operation == REMOVE_PROPERTY) {
+			if(module == null) {
+				config.removeProperty(id);
+			}
+			else {
+				module.removeProperty(id);
+			}
+		}
+		else if(operation == RENAME_PROPERTY) {
+			String newID = getString(payload);
+			boolean taken = (module == null) ? config.containsProperty(newID) : module.containsProperty(newID);
+			if(property != null && !taken) {
+				property.setID(newID);
+			}
+		}
+	}
+	
+	private void begin(long sequence, byte operation) {
+		ensure(FRAME + 9);
+		recordStart = buffer.position();
+		buffer.putInt(0).putInt(0).putLong(sequence).put(operation);
+	}
+	
+	//Fill in the length and checksum of the record started last
+	private void end() {
+		
+		int length = buffer.position() - recordStart - FRAME;
+		
+		crc.reset();
+		crc.update(buffer.array(), recordStart + FRAME, length);
+		buffer.putInt(recordStart, length);
+		buffer.putInt(recordStart + 4, (int) crc.getValue());
+	}
+	
+	private void putString(String value) {
+		
+		if(value == null) {
+			ensure(4);
+			buffer.putInt(-1);
+			return;
+		}
+		
+		byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+		ensure(4 + bytes.length);
+		buffer.putInt(bytes.length).put(bytes);
+	}
+	
+	private static String getString(ByteBuffer payload) {
+		
+		int length = payload.getInt();
+		if(length < 0) {
+			return null;
+		}
+		
+		String value = new String(payload.array(), payload.arrayOffset() + payload.position(), length, StandardCharsets.UTF_8);
+		payload.position(payload.position() + length);
+		return value;
+	}
+	
+	private void ensure(int bytes) {
+		
+		if(buffer.remaining() < bytes) {
+			ByteBuffer larger = ByteBuffer.allocate(Math.max(buffer.capacity() * 2, buffer.position() + bytes));
+			buffer.flip();
+			larger.put(buffer);
+			buffer = larger;
+		}
+	}
+	
+	private static String name(Module module) {
+		return (module == null) ? null : module.getModuleName();
+	}
+
+}
@@ -0,0 +1,137 @@
+package org.akprogdevs.sconfig.metrics;
+
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A histogram of latencies in nanoseconds, with one bucket per power of two. Recording is
+ * lock-free and can be done from any number of threads; percentiles are reported as the upper
+ * bound of the bucket they fall in, which is within a factor of two of the actual latency.
+ * 
+ * @author AK Program Developers
+ *
+ */
+public final class LatencyHistogram {
+	
+	private final static int BUCKETS = 64;
+	
+	private final LongAdder[] buckets = new LongAdder[BUCKETS];
+	private final LongAdder count = new LongAdder();
+	private final LongAdder totalNanos = new LongAdder();
+	private final LongAccumulator maxNanos = new LongAccumulator(Math::max, 0);
+	
+	/**
+	 * Default constructor, for an empty histogram.
+	 */
+	public LatencyHistogram() {
+		for(int i = 0; i < BUCKETS; i++) {
+			buckets[i] = new LongAdder();
+		}
+	}
+	
+	/**
+	 * Records a single latency.
+	 * 
+	 * @param nanos The latency in nanoseconds, negative values are recorded as zero (0)
+	 */
+	public void record(long nanos) {
+		
+		if(nanos < 0) {
+			nanos = 0;
+		}
+		
+		//Bucket i holds latencies from 2^i to 2^(i+1) - 1, zero goes into the first bucket
+		buckets[Math.max(0, BUCKETS - 1 - Long.numberOfLeadingZeros(nanos))].increment();
+		count.increment();
+		totalNanos.add(nanos);
+		maxNanos.accumulate(nanos);
+	}
+	
+	/**
+	 * Retrieves the number of latencies recorded.
+	 * 
+	 * @return Number of latencies
+	 */
+	public long getCount() {
+		return count.sum();
+	}
+	
+	/**
+	 * Retrieves the sum of all latencies recorded.
+	 * 
+	 * @return Total time in nanoseconds
+	 */
+	public long getTotalNanos() {
+		return totalNanos.sum();
+	}
+	
+	/**
+	 * Retrieves the mean of the latencies recorded.
+	 * 
+	 * @return Mean latency in nanoseconds, or zero (0) if none were recorded
+	 */
+	public double getMeanNanos() {
+		long count = getCount();
+		return (count == 0) ? 0 : (double) getTotalNanos() / count;
+	}
+	
+	/**
+	 * Retrieves the highest latency recorded.
+	 * 
+	 * @return Highest latency in nanoseconds
+	 */
+	public long getMaxNanos() {
+		return maxNanos.get();
+	}
+	
+	/**
+	 * Retrieves the latency below which the fraction specified of the latencies recorded fall.
+	 * 
+	 * @param fraction The fraction, for example 0.99 for the 99th percentile
+	 * @return Upper bound of the percentile in nanoseconds, or zero (0) if none were recorded
+	 */
+	public long getPercentileNanos(double fraction) {
+		
+		long[] counts = new long[BUCKETS];
+		long total = 0;
+		for(int i = 0; i < BUCKETS; i++) {
+			counts[i] = buckets[i].sum();
+			total += counts[i];
+		}
+		
+		long target = (long) Math.ceil(total * fraction);
+		long seen = 0;
+		for(int i = 0; i < BUCKETS; i++) {
+			seen += counts[i];
+			if(seen >= target && seen > 0) {
+				return Math.min((i == BUCKETS - 1) ? Long.MAX_VALUE : (2L << i) - 1, getMaxNanos());
+			}
+		}
+		
+		return 0;
+	}
+	
+	/**
+	 * Clears all latencies recorded.
+	 */
+	public void reset() {
+		for(int i = 0; i < BUCKETS; i++) {
+			buckets[i].reset();
+		}
+		count.reset();
+		totalNanos.reset();
+		maxNanos.reset();
+	}
+	
+	/**
+	 * Summarizes the latencies recorded.
+	 * 
+	 * @return Count, mean, percentiles and maximum, in nanoseconds
+	 */
+	@Override
+	public String toString() {
+		return "count=" + getCount() + " mean=" + Math.round(getMeanNanos()) + "ns p50=" + getPercentileNanos(0.5) 
+				+ "ns p99=" + getPercentileNanos(0.99) + "ns max=" + getMaxNanos() + "ns";
+	}
+
+}
@@ -0,0 +1,183 @@
+package org.akprogdevs.sconfig.metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counters and latency histograms for the operations of the library - property and module
+ * lookups and mutations, serialization, parsing and file writes - along with the number of
+ * bytes written. Metrics are off by default; they are turned on with {@code setEnabled(true)},
+ * or at startup with the system property {@code -Dorg.akprogdevs.sconfig.metrics=true}.
+ * 
+ * <p>While metrics are off, an instrumented operation only reads a single flag. Parsing,
+ * serialization and writes are also reported to JDK Flight Recorder as {@link ParseEvent},
+ * {@link SerializeEvent} and {@link WriteEvent}, whether metrics are on or not.</p>
+ * 
+ * @author AK Program Developers
+ *
+ */
+public final class Metrics {
+	
+	/**
+	 * The operations measured.
+	 */
+	public enum Operation {
+		
+		/** {@code getProperty}, and the lookups built on it such as {@code getValue}. */
+		PROPERTY_LOOKUP,
+		
+		/** {@code getModule}, and the lookups built on it such as {@code hasModule}. */
+		MODULE_LOOKUP,
+		
+		/** Properties added to or removed from a container, and values changed. */
+		PROPERTY_MUTATION,
+		
+		/** Modules added to or removed from a Configuration. */
+		MODULE_MUTATION,
+		
+		/** {@code Configuration.toString}. */
+		SERIALIZE,
+		
+		/** Files written by the {@code Writer}. */
+		WRITE,
+		
+		/**
+		 * Configurations parsed by the {@code Parser}, read or opened by the {@code Reader}, or
+		 * reloaded by the {@code Reloader} - once per Configuration, the parts of a file parsed
+		 * separately and the modules loaded later by {@code open} are not counted on their own.
+		 */
+		PARSE
+	}
+	
+	private static volatile boolean enabled = Boolean.getBoolean("org.akprogdevs.sconfig.metrics");
+	
+	private final static LatencyHistogram[] latencies = new LatencyHistogram[Operation.values().length];
+	private final static LongAdder bytesWritten = new LongAdder();
+	
+	static {
+		for(int i = 0; i < latencies.length; i++) {
+			latencies[i] = new LatencyHistogram();
+		}
+	}
+	
+	private Metrics() {
+		
+	}
+	
+	/**
+	 * Turns metrics on or off, the metrics recorded so far are kept.
+	 * 
+	 * @param enabled True to record metrics from now on, false to stop
+	 */
+	public static void setEnabled(boolean enabled) {
+		Metrics.enabled = enabled;
+	}
+	
+	/**
+	 * Checks whether metrics are being recorded.
+	 * 
+	 * @return True if metrics are on
+	 */
+	public static boolean isEnabled() {
+		return enabled;
+	}
+	
+	/**
+	 * Marks the start of an operation, to be passed to {@code stop} once it is done.
+	 * 
+	 * @return The start time in nanoseconds, or zero (0) if metrics are off
+	 */
+	public static long start() {
+		
+		if(!enabled) {
+			return 0;
+		}
+		
+		//Zero is reserved for "not measured"
+		long now = System.nanoTime();
+		return (now == 0) ? 1 : now;
+	}
+	
+	/**
+	 * Records an operation started with {@code start}, nothing is recorded if metrics were off
+	 * when it started.
+	 * 
+	 * @param operation The operation that is done
+	 * @param start The value returned by {@code start}
+	 */
+	public static void stop(Operation operation, long start) {
+		
+		if(start != 0) {
+			latencies[operation.ordinal()].record(System.nanoTime() - start);
+		}
+	}
+	
+	/**
+	 * Adds to the number of bytes written, if metrics are on.
+	 * 
+	 * @param bytes Number of bytes written to a file
+	 */
+	public static void addBytesWritten(long bytes) {
+		
+		if(enabled) {
+			bytesWritten.add(bytes);
+		}
+	}
+	
+	/**
+	 * Retrieves the number of times an operation was recorded.
+	 * 
+	 * @param operation The operation
+	 * @return Number of operations
+	 */
+	public static long getCount(Operation operation) {
+		return latencies[operation.ordinal()].getCount();
+	}
+	
+	/**
+	 * Retrieves the latencies recorded for an operation.
+	 * 
+	 * @param operation The operation
+	 * @return The histogram of latencies, which keeps being updated
+	 */
+	public static LatencyHistogram getLatency(Operation operation) {
+		return latencies[operation.ordinal()];
+	}
+	
+	/**
+	 * Retrieves the number of bytes written to files by the {@code Writer}.
+	 * 
+	 * @return Number of bytes
+	 */
+	public static long getBytesWritten() {
+		return bytesWritten.sum();
+	}
+	
+	/**
+	 * Clears all the metrics recorded so far.
+	 */
+	public static void reset() {
+		for(int i = 0; i < latencies.length; i++) {
+			latencies[i].reset();
+		}
+		bytesWritten.reset();
+	}
+	
+	/**
+	 * Summarizes the metrics recorded so far, one line per operation.
+	 * 
+	 * @return A readable report
+	 */
+	public static String report() {
+		
+		StringBuilder report = new StringBuilder();
+		
+		Operation[] operations = Operation.values();
+		for(int i = 0; i < operations.length; i++) {
+			report.append(operations[i]).append(": ").append(latencies[i]).append(System.lineSeparator());
+		}
+		report.append("BYTES_WRITTEN: ").append(getBytesWritten());
+		
+		return report.toString();
+	}
+
+}
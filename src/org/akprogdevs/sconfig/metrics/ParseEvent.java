@@ -0,0 +1,40 @@
+package org.akprogdevs.sconfig.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * JDK Flight Recorder event for a configuration parsed by the {@code Parser}, or read by the
+ * {@code Reader} or {@code Reloader} - one event per Configuration, however many parts it was
+ * parsed in.
+ * 
+ * @author AK Program Developers
+ *
+ */
+@Name("org.akprogdevs.sconfig.Parse")
+@Label("Configuration Parse")
+@Category("SrivasConfig")
+@Description("Configuration text parsed into a Configuration")
+@StackTrace(false)
+public final class ParseEvent extends jdk.jfr.Event {
+	
+	@Label("Characters")
+	@Description("Characters parsed, or 0 if the file was parsed in parts")
+	public long characters;
+	
+	@Label("File Size")
+	@Description("Size of the file read, or 0 if the text did not come from a file")
+	@DataAmount(DataAmount.BYTES)
+	public long bytes;
+	
+	@Label("Modules")
+	public int modules;
+	
+	@Label("Properties")
+	public int properties;
+
+}
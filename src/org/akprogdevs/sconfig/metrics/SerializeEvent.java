@@ -0,0 +1,28 @@
+package org.akprogdevs.sconfig.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * JDK Flight Recorder event for a Configuration converted to text by {@code toString}.
+ * 
+ * @author AK Program Developers
+ *
+ */
+@Name("org.akprogdevs.sconfig.Serialize")
+@Label("Configuration Serialize")
+@Category("SrivasConfig")
+@Description("Configuration converted to the text of a configuration file")
+@StackTrace(false)
+public final class SerializeEvent extends jdk.jfr.Event {
+	
+	@Label("Characters")
+	public long characters;
+	
+	@Label("Modules")
+	public int modules;
+
+}
@@ -0,0 +1,31 @@
+package org.akprogdevs.sconfig.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * JDK Flight Recorder event for a configuration file written by the {@code Writer}.
+ * 
+ * @author AK Program Developers
+ *
+ */
+@Name("org.akprogdevs.sconfig.Write")
+@Label("Configuration Write")
+@Category("SrivasConfig")
+@Description("Configuration written to a file")
+public final class WriteEvent extends jdk.jfr.Event {
+	
+	@Label("Path")
+	public String path;
+	
+	@Label("Method")
+	public String method;
+	
+	@Label("Bytes Written")
+	@DataAmount(DataAmount.BYTES)
+	public long bytes;
+
+}
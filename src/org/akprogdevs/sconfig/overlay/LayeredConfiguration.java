@@ -0,0 +1,357 @@
+package org.akprogdevs.sconfig.overlay;
+
+import java.io.Closeable;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.akprogdevs.sconfig.classes.Configuration;
+import org.akprogdevs.sconfig.classes.Module;
+import org.akprogdevs.sconfig.classes.MutationListener;
+import org.akprogdevs.sconfig.classes.Property;
+
+/**
+ * A stack of Configurations, for example defaults, environment, host and runtime overrides,
+ * read as a single Configuration. A property resolves to the topmost layer that defines it;
+ * modules of the same name in several layers are merged property by property, the same way
+ * later duplicate modules overwrite earlier ones within a file.
+ * 
+ * <p>Lookups are answered from a flattened view of all layers, which is built once and then
+ * kept up to date through the {@link MutationListener} of each layer: when a layer changes,
+ * only the properties it changed are resolved again. Lookups can be made from any thread; the
+ * layers themselves, like any Configuration, should be changed by one thread at a time. The
+ * Property objects returned belong to the layers, and should be changed through them.</p>
+ * 
+ * @author AK Program Developers
+ *
+ */
+public final class LayeredConfiguration implements Closeable {
+	
+	//Layers from the bottom (index 0) to the top
+	private final ArrayList<Configuration> layers = new ArrayList<>();
+	
+	//The flattened view - the winning Property of every top-level ID, and of every ID of every module
+	private final ConcurrentHashMap<String, Property> properties = new ConcurrentHashMap<>();
+	private final ConcurrentHashMap<String, ConcurrentHashMap<String, Property>> modules = new ConcurrentHashMap<>();
+	
+	private final MutationListener listener = new MutationListener() {
+		
+		@Override
+		public void propertyAdded(Module module, Property property) {
+			resolve(name(module), property.getID());
+		}
+		
+		@Override
+		public void propertyRemoved(Module module, Property property) {
+			resolve(name(module), property.getID());
+		}
+		
+		@Override
+		public void propertyRenamed(Module module, Property property, String oldID) {
+			resolve(name(module), oldID);
+			resolve(name(module), property.getID());
+		}
+		
+		@Override
+		public void moduleAdded(Module module) {
+			resolveModule(module, module.getModuleName());
+		}
+		
+		@Override
+		public void moduleRemoved(Module module) {
+			resolveModule(module, module.getModuleName());
+		}
+		
+		@Override
+		public void moduleRenamed(Module module, String oldName) {
+			resolveModule(module, oldName);
+			resolveModule(module, module.getModuleName());
+		}
+		
+	};
+	
+	/**
+	 * Constructor that accepts the layers, from the bottom (for example the defaults) to the top
+	 * (for example the runtime overrides).
+	 * 
+	 * @param layers The Configurations to be stacked
+	 */
+	public LayeredConfiguration(Configuration... layers) {
+		for(int i = 0; i < layers.length; i++) {
+			addLayer(layers[i]);
+		}
+	}
+	
+	/**
+	 * Adds a layer on top of the existing layers, the properties it defines take precedence
+	 * over those of every other layer.
+	 * 
+	 * @param layer The Configuration to be added
+	 */
+	public synchronized void addLayer(Configuration layer) {
+		
+		layers.add(layer);
+		
+		//Everything the new layer defines wins, nothing else changes
+		List<Property> layerProperties = layer.retrieveProperties();
+		for(int i = 0; i < layerProperties.size(); i++) {
+			properties.put(layerProperties.get(i).getID(), layerProperties.get(i));
+		}
+		
+		List<Module> layerModules = layer.retrieveModules();
+		for(int i = 0; i < layerModules.size(); i++) {
+			
+			Module module = layerModules.get(i);
+			ConcurrentHashMap<String, Property> flattened = modules.computeIfAbsent(module.getModuleName(), 
+					name -> new ConcurrentHashMap<>());
+			
+			List<Property> moduleProperties = module.retrieveProperties();
+			for(int j = 0; j < moduleProperties.size(); j++) {
+				flattened.put(moduleProperties.get(j).getID(), moduleProperties.get(j));
+			}
+		}
+		
+		layer.addMutationListener(listener);
+	}
+	
+	/**
+	 * Removes a layer, the properties it defined are resolved again from the remaining layers.
+	 * 
+	 * @param layer The Configuration to be removed
+	 * @return True if the layer was removed, false if it is not one of the layers
+	 */
+	public synchronized boolean removeLayer(Configuration layer) {
+		
+		int index = layers.indexOf(layer);
+		if(index < 0) {
+			return false;
+		}
+		
+		layers.remove(index);
+		layer.removeMutationListener(listener);
+		
+		List<Property> layerProperties = layer.retrieveProperties();
+		for(int i = 0; i < layerProperties.size(); i++) {
+			resolve(null, layerProperties.get(i).getID());
+		}
+		
+		List<Module> layerModules = layer.retrieveModules();
+		for(int i = 0; i < layerModules.size(); i++) {
+			resolveModule(layerModules.get(i), layerModules.get(i).getModuleName());
+		}
+		
+		return true;
+	}
+	
+	/**
+	 * Retrieves the layers, from the bottom to the top.
+	 * 
+	 * @return A copy of the list of layers
+	 */
+	public synchronized List<Configuration> getLayers() {
+		return new ArrayList<>(layers);
+	}
+	
+	/**
+	 * Retrieves the top-level Property with the ID specified from the topmost layer that defines it.
+	 * 
+	 * @param id The property ID to look for
+	 * @return The Property object, or null if no layer defines it
+	 */
+	public Property getProperty(String id) {
+		return properties.get(id);
+	}
+	
+	/**
+	 * Retrieves the Property with the ID specified, in the module specified, from the topmost
+	 * layer that defines it.
+	 * 
+	 * @param moduleID Name/ID of the module
+	 * @param id The property ID to look for
+	 * @return The Property object, or null if no layer defines it
+	 */
+	public Property getProperty(String moduleID, String id) {
+		ConcurrentHashMap<String, Property> module = modules.get(moduleID);
+		return (module == null) ? null : module.get(id);
+	}
+	
+	/**
+	 * Retrieves the value of the top-level Property with the ID specified, from the topmost
+	 * layer that defines it.
+	 * 
+	 * @param id The property ID to look for
+	 * @return The property value, or null if no layer defines it
+	 */
+	public String getValue(String id) {
+		Property property = getProperty(id);
+		return (property == null) ? null : property.getValue();
+	}
+	
+	/**
+	 * Retrieves the value of the Property with the ID specified, in the module specified, from
+	 * the topmost layer that defines it.
+	 * 
+	 * @param moduleID Name/ID of the module
+	 * @param id The property ID to look for
+	 * @return The property value, or null if no layer defines it
+	 */
+	public String getValue(String moduleID, String id) {
+		Property property = getProperty(moduleID, id);
+		return (property == null) ? null : property.getValue();
+	}
+	
+	/**
+	 * Checks whether any layer has a module with the name specified.
+	 * 
+	 * @param moduleID Name/ID of the module
+	 * @return True if the module exists in at least one layer
+	 */
+	public boolean hasModule(String moduleID) {
+		return modules.containsKey(moduleID);
+	}
+	
+	/**
+	 * Retrieves the layer the value of a property comes from.
+	 * 
+	 * @param moduleID Name/ID of the module, or null for a top-level property
+	 * @param id The property ID to look for
+	 * @return The topmost layer that defines the property, or null if no layer defines it
+	 */
+	public synchronized Configuration getDefiningLayer(String moduleID, String id) {
+		
+		for(int i = layers.size() - 1; i >= 0; i--) {
+			if(lookup(layers.get(i), moduleID, id) != null) {
+				return layers.get(i);
+			}
+		}
+		return null;
+	}
+	
+	/**
+	 * Creates a new Configuration holding copies of the flattened properties and modules, in the
+	 * order they first appear from the bottom layer up.
+	 * 
+	 * @return The merged Configuration
+	 */
+	public synchronized Configuration toConfiguration() {
+		
+		Configuration config = new Configuration(properties.size(), modules.size());
+		
+		for(int i = 0; i < layers.size(); i++) {
+			
+			Configuration layer = layers.get(i);
+			
+			List<Property> layerProperties = layer.retrieveProperties();
+			for(int j = 0; j < layerProperties.size(); j++) {
+				String id = layerProperties.get(j).getID();
+				if(!config.containsProperty(id)) {
+					config.addExistingProperty(copy(properties.get(id)));
+				}
+			}
+			
+			List<Module> layerModules = layer.retrieveModules();
+			for(int j = 0; j < layerModules.size(); j++) {
+				
+				String name = layerModules.get(j).getModuleName();
+				ConcurrentHashMap<String, Property> flattened = modules.get(name);
+				
+				Module module = config.getModule(name);
+				if(module == null) {
+					module = new Module(name, flattened.size());
+					config.addExistingModule(module);
+				}
+				
+				List<Property> moduleProperties = layerModules.get(j).retrieveProperties();
+				for(int k = 0; k < moduleProperties.size(); k++) {
+					String id = moduleProperties.get(k).getID();
+					if(!module.containsProperty(id)) {
+						module.addExistingProperty(copy(flattened.get(id)));
+					}
+				}
+			}
+		}
+		
+		return config;
+	}
+	
+	/**
+	 * Stops following the changes of the layers, the flattened view is no longer updated.
+	 */
+	@Override
+	public synchronized void close() {
+		for(int i = 0; i < layers.size(); i++) {
+			layers.get(i).removeMutationListener(listener);
+		}
+	}
+	
+	//Find the topmost layer that defines a property again, and update the flattened view
+	private synchronized void resolve(String moduleID, String id) {
+		
+		Property winner = null;
+		for(int i = layers.size() - 1; i >= 0 && winner == null; i--) {
+			winner = lookup(layers.get(i), moduleID, id);
+		}
+		
+		if(moduleID == null) {
+			if(winner == null) {
+				properties.remove(id);
+			}
+			else {
+				properties.put(id, winner);
+			}
+			return;
+		}
+		
+		ConcurrentHashMap<String, Property> module = modules.get(moduleID);
+		if(winner != null) {
+			if(module == null) {
+				module = new ConcurrentHashMap<>();
+				modules.put(moduleID, module);
+			}
+			module.put(id, winner);
+		}
+		else if(module != null) {
+			module.remove(id);
+		}
+	}
+	
+	//Resolve every property of a module that was added, removed or renamed in a layer
+	private synchronized void resolveModule(Module module, String moduleID) {
+		
+		boolean exists = false;
+		for(int i = 0; i < layers.size() && !exists; i++) {
+			exists = layers.get(i).hasModule(moduleID);
+		}
+		
+		if(!exists) {
+			modules.remove(moduleID);
+			return;
+		}
+		
+		modules.computeIfAbsent(moduleID, name -> new ConcurrentHashMap<>());
+		
+		List<Property> moduleProperties = module.retrieveProperties();
+		for(int i = 0; i < moduleProperties.size(); i++) {
+			resolve(moduleID, moduleProperties.get(i).getID());
+		}
+	}
+	
+	private static Property lookup(Configuration layer, String moduleID, String id) {
+		
+		if(moduleID == null) {
+			return layer.getProperty(id);
+		}
+		
+		Module module = layer.getModule(moduleID);
+		return (module == null) ? null : module.getProperty(id);
+	}
+	
+	private static Property copy(Property property) {
+		return new Property(property.getID(), property.getValue(), property.getValidValues());
+	}
+	
+	private static String name(Module module) {
+		return (module == null) ? null : module.getModuleName();
+	}
+
+}
@@ -0,0 +1,305 @@
+package org.akprogdevs.sconfig.read;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+
+import org.akprogdevs.sconfig.classes.Configuration;
+import org.akprogdevs.sconfig.classes.HeapFootprint;
+import org.akprogdevs.sconfig.classes.SymbolTable;
+
+/**
+ * Keeps the Configurations read from files, so a file read again is only parsed again if it
+ * changed. A cached Configuration is returned as long as the last-modified time and the size of
+ * its file are the same as when it was read.
+ *
+ * <p>The cache holds up to a number of bytes, estimated through {@link HeapFootprint} when a
+ * Configuration is read. Once full, the Configurations used least recently are evicted first.
+ * A Configuration larger than the whole cache is returned but not kept.</p>
+ *
+ * <p>Threads asking for the same file while it is being read wait for that read instead of
+ * reading the file themselves. The Configurations returned are shared by every caller of the
+ * cache and should not be modified, as the changes would be seen by the others and the size of
+ * the Configuration would no longer match the estimate.</p>
+ *
+ * @author AK Program Developers
+ *
+ */
+public class ConfigCache {
+	
+	private final long maxBytes;
+	private SymbolTable symbols = null;
+	
+	//Entries in access order, the eldest first
+	private final LinkedHashMap<Path, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+	private final ConcurrentHashMap<Path, CompletableFuture<Entry>> loading = new ConcurrentHashMap<>();
+	private long usedBytes = 0;
+	
+	private long hitCount = 0;
+	private long missCount = 0;
+	private long evictionCount = 0;
+	
+	/**
+	 * Constructor that creates an empty cache holding up to the number of bytes specified.
+	 *
+	 * @param maxBytes Maximum estimated size of the Configurations kept
+	 */
+	public ConfigCache(long maxBytes) {
+		
+		if(maxBytes < 0) {
+			throw new IllegalArgumentException("Maximum size must not be negative: " + maxBytes);
+		}
+		
+		this.maxBytes = maxBytes;
+	}
+	
+	/**
+	 * Sets the SymbolTable used by the Configurations read from now on. The table is not
+	 * counted in the size of the cache - it only holds its symbols weakly, so the strings of
+	 * evicted Configurations are released with them, but a table that is also used outside the
+	 * cache grows with the Configurations read there.
+	 *
+	 * @param symbols The SymbolTable to be used, or null for none
+	 */
+	public synchronized void setSymbolTable(SymbolTable symbols) {
+		this.symbols = symbols;
+	}
+	
+	/**
+	 * Retrieves the Configuration of the file specified, reading the file if it is not cached or
+	 * has changed since it was read.
+	 *
+	 * @param path Path of the file
+	 * @return The Configuration read from the file
+	 * @throws IOException If the file cannot be read or parsed
+	 */
+	public Configuration get(String path) throws IOException {
+		return get(Path.of(path));
+	}
+	
+	/**
+	 * Retrieves the Configuration of the file specified, reading the file if it is not cached or
+	 * has changed since it was read.
+	 *
+	 * @param path Path of the file
+	 * @return The Configuration read from the file
+	 * @throws IOException If the file cannot be read or parsed
+	 */
+	public Configuration get(Path path) throws IOException {
+		
+		Path key = path.toAbsolutePath().normalize();
+		BasicFileAttributes attributes = Files.readAttributes(key, BasicFileAttributes.class);
+		
+		synchronized(this) {
+			Entry entry = entries.get(key);
+			if(entry != null && entry.matches(attributes)) {
+				hitCount++;
+				return entry.config;
+			}
+			missCount++;
+		}
+		
+		//Only the first thread to miss reads the file, the others wait for its result
+		CompletableFuture<Entry> future = new CompletableFuture<>();
+		CompletableFuture<Entry> pending = loading.putIfAbsent(key, future);
+		
+		if(pending != null) {
+			return await(pending).config;
+		}
+		
+		try {
+			//Another thread may have finished reading the file since this one looked it up
+			Entry entry;
+			synchronized(this) {
+				entry = entries.get(key);
+			}
+			if(entry == null || !entry.matches(attributes)) {
+				entry = load(key);
+			}
+			future.complete(entry);
+			return entry.config;
+		} catch (IOException | RuntimeException e) {
+			future.completeExceptionally(e);
+			throw e;
+		} finally {
+			loading.remove(key, future);
+		}
+	}
+	
+	/**
+	 * Removes the Configuration of the file specified from the cache.
+	 *
+	 * @param path Path of the file
+	 * @return True if the Configuration was cached
+	 */
+	public synchronized boolean invalidate(Path path) {
+		
+		Entry entry = entries.remove(path.toAbsolutePath().normalize());
+		if(entry == null) {
+			return false;
+		}
+		
+		usedBytes -= entry.bytes;
+		return true;
+	}
+	
+	/**
+	 * Removes every Configuration from the cache.
+	 */
+	public synchronized void clear() {
+		entries.clear();
+		usedBytes = 0;
+	}
+	
+	/**
+	 * Retrieves the number of Configurations cached.
+	 *
+	 * @return Number of Configurations
+	 */
+	public synchronized int getSize() {
+		return entries.size();
+	}
+	
+	/**
+	 * Retrieves the estimated size of the Configurations cached.
+	 *
+	 * @return Number of bytes used
+	 */
+	public synchronized long getUsedBytes() {
+		return usedBytes;
+	}
+	
+	/**
+	 * Retrieves the maximum estimated size of the Configurations cached.
+	 *
+	 * @return Number of bytes
+	 */
+	public long getMaxBytes() {
+		return maxBytes;
+	}
+	
+	/**
+	 * Retrieves the number of requests answered from the cache.
+	 *
+	 * @return Number of hits
+	 */
+	public synchronized long getHitCount() {
+		return hitCount;
+	}
+	
+	/**
+	 * Retrieves the number of requests that found no valid Configuration in the cache, including
+	 * those that waited for another thread to read the file.
+	 *
+	 * @return Number of misses
+	 */
+	public synchronized long getMissCount() {
+		return missCount;
+	}
+	
+	/**
+	 * Retrieves the number of Configurations evicted to make room for others.
+	 *
+	 * @return Number of evictions
+	 */
+	public synchronized long getEvictionCount() {
+		return evictionCount;
+	}
+	
+	@Override
+	public synchronized String toString() {
+		return "ConfigCache[" + entries.size() + " configurations, " + usedBytes + " of " + maxBytes + " bytes, "
+				+ hitCount + " hits, " + missCount + " misses, " + evictionCount + " evictions]";
+	}
+	
+	private Entry load(Path path) throws IOException {
+		
+		SymbolTable symbols;
+		synchronized(this) {
+			symbols = this.symbols;
+		}
+		
+		//Read the attributes first, so a file changed while being read is read again next time
+		BasicFileAttributes attributes = Files.readAttributes(path, BasicFileAttributes.class);
+		
+		Reader reader = new Reader();
+		reader.setSymbolTable(symbols);
+		Configuration config = reader.read(path);
+		
+		Entry entry = new Entry(config, attributes.lastModifiedTime(), attributes.size(),
+				HeapFootprint.of(config).getTotalBytes());
+		
+		synchronized(this) {
+			Entry previous = entries.remove(path);
+			if(previous != null) {
+				usedBytes -= previous.bytes;
+			}
+			
+			if(entry.bytes <= maxBytes) {
+				entries.put(path, entry);
+				usedBytes += entry.bytes;
+				evict();
+			}
+		}
+		
+		return entry;
+	}
+	
+	private void evict() {
+		
+		Iterator<Entry> iterator = entries.values().iterator();
+		while(usedBytes > maxBytes && iterator.hasNext()) {
+			usedBytes -= iterator.next().bytes;
+			iterator.remove();
+			evictionCount++;
+		}
+	}
+	
+	private static Entry await(CompletableFuture<Entry> pending) throws IOException {
+		
+		try {
+			return pending.get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new InterruptedIOException("Interrupted while waiting for a configuration to be read");
+		} catch (ExecutionException e) {
+			Throwable cause = e.getCause();
+			if(cause instanceof IOException) {
+				throw (IOException) cause;
+			}
+			throw (RuntimeException) cause;
+		}
+	}
+	
+	/*
+	 * A cached Configuration and the state of its file when it was read.
+	 */
+	private static final class Entry {
+		
+		final Configuration config;
+		final FileTime lastModified;
+		final long size;
+		final long bytes;
+		
+		Entry(Configuration config, FileTime lastModified, long size, long bytes) {
+			this.config = config;
+			this.lastModified = lastModified;
+			this.size = size;
+			this.bytes = bytes;
+		}
+		
+		boolean matches(BasicFileAttributes attributes) {
+			return size == attributes.size() && lastModified.equals(attributes.lastModifiedTime());
+		}
+		
+	}
+
+}
@@ -0,0 +1,284 @@
+package org.akprogdevs.sconfig.read;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.akprogdevs.sconfig.classes.Configuration;
+import org.akprogdevs.sconfig.classes.SymbolTable;
+
+/**
+ * Loads every configuration file in a directory tree, reading the files concurrently on a
+ * bounded number of threads. Each Configuration is registered under the path of its file
+ * relative to the directory, without the extension and with {@code /} as the separator - for
+ * example {@code "tenants/acme"} for {@code tenants/acme.scnfg}.
+ *
+ * <p>A file that cannot be read or parsed does not stop the others from being loaded, its
+ * error is registered under its name instead - an unexpected RuntimeException is registered
+ * as the cause of an IOException. The progress of a load (files found, loaded and
+ * failed, bytes read) can be followed from any thread while {@code load()} is running.</p>
+ *
+ * <p>Every thread reads with a {@link Reader} of its own. A SymbolTable set through
+ * {@code setSymbolTable} is used for every file of a load. The table only holds its symbols
+ * weakly, so the strings of the Configurations replaced by a later load are not kept by it.</p>
+ *
+ * @author AK Program Developers
+ *
+ */
+public class ConfigRegistry {
+	
+	private final static String EXTENSION = ".scnfg";
+	
+	private final Path root;
+	private final int parallelism;
+	private SymbolTable symbols = null;
+	
+	private volatile Map<String, Configuration> configs = Collections.emptyMap();
+	private volatile Map<String, IOException> errors = Collections.emptyMap();
+	
+	//Progress of the current or last load
+	private final AtomicInteger fileCount = new AtomicInteger();
+	private final AtomicInteger loadedCount = new AtomicInteger();
+	private final AtomicInteger failedCount = new AtomicInteger();
+	private final AtomicLong bytesRead = new AtomicLong();
+	private volatile long loadNanos = 0;
+	
+	/**
+	 * Constructor that loads the directory specified on as many threads as there are processors.
+	 *
+	 * @param root Directory holding the configuration files, directly or in subdirectories
+	 */
+	public ConfigRegistry(Path root) {
+		this(root, Runtime.getRuntime().availableProcessors());
+	}
+	
+	/**
+	 * Constructor that loads the directory specified on the number of threads specified.
+	 *
+	 * @param root Directory holding the configuration files, directly or in subdirectories
+	 * @param parallelism Maximum number of files read at the same time
+	 */
+	public ConfigRegistry(Path root, int parallelism) {
+		
+		if(parallelism < 1) {
+			throw new IllegalArgumentException("Parallelism must be at least 1: " + parallelism);
+		}
+		
+		this.root = root;
+		this.parallelism = parallelism;
+	}
+	
+	/**
+	 * Sets the SymbolTable used by the Configurations loaded from now on.
+	 *
+	 * @param symbols The SymbolTable to be used, or null for none
+	 */
+	public void setSymbolTable(SymbolTable symbols) {
+		this.symbols = symbols;
+	}
+	
+	/**
+	 * Loads every configuration file in the directory tree, replacing the Configurations and
+	 * errors of an earlier load once all files are done.
+	 *
+	 * @return The number of files loaded successfully
+	 * @throws IOException If the directory tree cannot be walked
+	 * @throws InterruptedIOException If the calling thread is interrupted while waiting
+	 */
+	public synchronized int load() throws IOException {
+		
+		long started = System.nanoTime();
+		
+		ArrayList<Path> files;
+		try(Stream<Path> paths = Files.walk(root)) {
+			files = paths.filter(path -> path.getFileName().toString().endsWith(EXTENSION) && Files.isRegularFile(path))
+					.collect(Collectors.toCollection(ArrayList::new));
+		}
+		
+		fileCount.set(files.size());
+		loadedCount.set(0);
+		failedCount.set(0);
+		bytesRead.set(0);
+		
+		ConcurrentHashMap<String, Configuration> configs = new ConcurrentHashMap<>(files.size());
+		ConcurrentHashMap<String, IOException> errors = new ConcurrentHashMap<>();
+		
+		//A Reader reuses its buffers and is not thread-safe, so every thread has one of its own
+		SymbolTable symbols = this.symbols;
+		ThreadLocal<Reader> readers = ThreadLocal.withInitial(() -> {
+			Reader reader = new Reader();
+			reader.setSymbolTable(symbols);
+			return reader;
+		});
+		
+		AtomicInteger threads = new AtomicInteger();
+		ExecutorService executor = Executors.newFixedThreadPool(Math.min(parallelism, Math.max(1, files.size())), task -> {
+			Thread thread = new Thread(task, "scnfg-registry-" + threads.incrementAndGet());
+			thread.setDaemon(true);
+			return thread;
+		});
+		try {
+			for(int i = 0; i < files.size(); i++) {
+				Path file = files.get(i);
+				executor.execute(() -> loadFile(file, readers.get(), configs, errors));
+			}
+			
+			executor.shutdown();
+			while(!executor.awaitTermination(1, TimeUnit.SECONDS)) {
+				//Keep waiting, the progress can be followed meanwhile
+			}
+		} catch (InterruptedException e) {
+			executor.shutdownNow();
+			Thread.currentThread().interrupt();
+			throw new InterruptedIOException("Interrupted while loading " + root);
+		}
+		
+		this.configs = Collections.unmodifiableMap(configs);
+		this.errors = Collections.unmodifiableMap(errors);
+		this.loadNanos = System.nanoTime() - started;
+		
+		return configs.size();
+	}
+	
+	/**
+	 * Retrieves the Configuration loaded from the file of the name specified.
+	 *
+	 * @param name Path of the file relative to the directory, without the extension
+	 * @return The Configuration, or null if no such file was loaded
+	 */
+	public Configuration get(String name) {
+		return this.configs.get(name);
+	}
+	
+	/**
+	 * Retrieves the error that kept the file of the name specified from being loaded.
+	 *
+	 * @param name Path of the file relative to the directory, without the extension
+	 * @return The error, for example a {@link ParseException}, or null if the file was loaded
+	 */
+	public IOException getError(String name) {
+		return this.errors.get(name);
+	}
+	
+	/**
+	 * Retrieves the names of the files loaded.
+	 *
+	 * @return The names in alphabetical order
+	 */
+	public TreeSet<String> getNames() {
+		return new TreeSet<>(this.configs.keySet());
+	}
+	
+	/**
+	 * Retrieves every Configuration loaded, by name.
+	 *
+	 * @return Unmodifiable map of the names to their Configurations
+	 */
+	public Map<String, Configuration> getConfigurations() {
+		return this.configs;
+	}
+	
+	/**
+	 * Retrieves the errors of every file that could not be loaded, by name.
+	 *
+	 * @return Unmodifiable map of the names to their errors
+	 */
+	public Map<String, IOException> getErrors() {
+		return this.errors;
+	}
+	
+	/**
+	 * Retrieves the number of configuration files found by the current or last load.
+	 *
+	 * @return Number of files
+	 */
+	public int getFileCount() {
+		return fileCount.get();
+	}
+	
+	/**
+	 * Retrieves the number of files loaded successfully so far.
+	 *
+	 * @return Number of files loaded
+	 */
+	public int getLoadedCount() {
+		return loadedCount.get();
+	}
+	
+	/**
+	 * Retrieves the number of files that could not be loaded so far.
+	 *
+	 * @return Number of files failed
+	 */
+	public int getFailedCount() {
+		return failedCount.get();
+	}
+	
+	/**
+	 * Retrieves the size of the files loaded successfully so far.
+	 *
+	 * @return Number of bytes read
+	 */
+	public long getBytesRead() {
+		return bytesRead.get();
+	}
+	
+	/**
+	 * Retrieves the time the last completed load took, from walking the directory tree
+	 * until every file was done.
+	 *
+	 * @return Duration of the last load in milliseconds, or 0 if none has completed
+	 */
+	public long getLoadMillis() {
+		return TimeUnit.NANOSECONDS.toMillis(loadNanos);
+	}
+	
+	/**
+	 * Summarizes the progress of the current or last load.
+	 */
+	@Override
+	public String toString() {
+		return "ConfigRegistry[" + root + ": " + getLoadedCount() + " loaded, " + getFailedCount() + " failed of "
+				+ getFileCount() + " files, " + getBytesRead() + " bytes, " + getLoadMillis() + " ms]";
+	}
+	
+	private void loadFile(Path file, Reader reader, Map<String, Configuration> configs, Map<String, IOException> errors) {
+		
+		String name = name(file);
+		
+		try {
+			long size = Files.size(file);
+			configs.put(name, reader.read(file));
+			bytesRead.addAndGet(size);
+			loadedCount.incrementAndGet();
+		} catch (IOException e) {
+			errors.put(name, e);
+			failedCount.incrementAndGet();
+		} catch (RuntimeException e) {
+			//Any other failure is still the failure of this file alone, so every file ends up loaded or failed
+			errors.put(name, new IOException("Failed to load " + file + ": " + e, e));
+			failedCount.incrementAndGet();
+		}
+	}
+	
+	//Path relative to the root, without the extension and with the same separator on every platform
+	private String name(Path file) {
+		
+		String relative = root.relativize(file).toString().replace(file.getFileSystem().getSeparator(), "/");
+		return relative.substring(0, relative.length() - EXTENSION.length());
+	}
+
+}
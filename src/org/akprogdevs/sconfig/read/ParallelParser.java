@@ -0,0 +1,240 @@
+package org.akprogdevs.sconfig.read;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+import org.akprogdevs.sconfig.classes.Configuration;
+import org.akprogdevs.sconfig.classes.Module;
+import org.akprogdevs.sconfig.classes.Property;
+import org.akprogdevs.sconfig.classes.SymbolTable;
+import org.akprogdevs.sconfig.metrics.Metrics;
+import org.akprogdevs.sconfig.metrics.ParseEvent;
+
+/**
+ * Parses large configuration files on several threads. The {@link SegmentScanner} first splits
+ * the bytes of the file at module boundaries, consecutive segments are then grouped into chunks
+ * of roughly the same size, and every chunk is decoded and parsed into a Configuration of its
+ * own. The chunks are finally assembled in file order, giving the same Configuration as a
+ * sequential parse: later duplicate properties overwrite earlier ones and duplicate modules
+ * are merged.
+ *
+ * <p>Each chunk is parsed starting from the line and column the scanner found for it, so parse
+ * errors report their position in the whole file. If several chunks fail, the error found
+ * first in the file is thrown. Files whose module boundaries cannot be determined are parsed
+ * sequentially instead, which also reports the error.</p>
+ *
+ * @author AK Program Developers
+ *
+ */
+final class ParallelParser {
+	
+	//Chunks smaller than this are not worth a task of their own
+	private final static int MIN_CHUNK_BYTES = 256 * 1024;
+	//Chunks per pool thread, so threads that finish early can pick up more work
+	private final static int CHUNKS_PER_THREAD = 4;
+	
+	private ParallelParser() {
+		
+	}
+	
+	/**
+	 * Parses the bytes from the position to the limit of the buffer, which is left unchanged.
+	 *
+	 * @param bytes UTF-8 bytes of a configuration file
+	 * @param pool Pool the chunks are parsed in
+	 * @param symbols SymbolTable of the new Configuration, or null for none
+	 * @return The parsed Configuration
+	 * @throws ParseException If the file does not follow the configuration format
+	 */
+	static Configuration parse(ByteBuffer bytes, ForkJoinPool pool, SymbolTable symbols) throws ParseException {
+		
+		ParseEvent event = new ParseEvent();
+		event.begin();
+		long started = Metrics.start();
+		
+		Configuration config = parseChunks(bytes, pool, symbols);
+		
+		Parser.parsed(event, started, config, 0, bytes.remaining());
+		return config;
+	}
+	
+	private static Configuration parseChunks(ByteBuffer bytes, ForkJoinPool pool, SymbolTable symbols) throws ParseException {
+		
+		ArrayList<Segment> segments = SegmentScanner.scan(bytes);
+		
+		if(segments == null) {
+			//Module boundaries are broken, a full parse reports the error
+			Parser parser = new Parser(Segment.whole(bytes).decode(bytes));
+			parser.setSymbolTable(symbols);
+			return parser.parseText();
+		}
+		
+		//Only checks the header for a valid and supported version
+		segments.get(0).parseInto(bytes, null);
+		
+		ArrayList<Segment> chunks = chunks(segments, bytes.remaining(), pool.getParallelism());
+		if(chunks.isEmpty()) {
+			Configuration config = new Configuration();
+			config.setSymbolTable(symbols);
+			return config;
+		}
+		
+		Configuration[] parts = new Configuration[chunks.size()];
+		ParseException[] errors = new ParseException[chunks.size()];
+		
+		pool.invoke(new ChunkParse(bytes, chunks, parts, errors, symbols, 0, chunks.size()));
+		
+		for(int i = 0; i < errors.length; i++) {
+			if(errors[i] != null) {
+				throw errors[i];
+			}
+		}
+		
+		return assemble(parts, symbols);
+	}
+	
+	//Groups the segments after the header into consecutive ranges of about the same number of bytes
+	private static ArrayList<Segment> chunks(ArrayList<Segment> segments, int size, int parallelism) {
+		
+		int target = Math.max(MIN_CHUNK_BYTES, size / (parallelism * CHUNKS_PER_THREAD));
+		ArrayList<Segment> chunks = new ArrayList<>();
+		
+		Segment first = null;
+		Segment last = null;
+		
+		for(int i = 1; i < segments.size(); i++) {
+			
+			Segment segment = segments.get(i);
+			if(first == null) {
+				first = segment;
+			}
+			last = segment;
+			
+			if(last.end - first.start >= target) {
+				chunks.add(chunk(first, last));
+				first = null;
+			}
+		}
+		if(first != null) {
+			chunks.add(chunk(first, last));
+		}
+		
+		return chunks;
+	}
+	
+	//The segments between the first and last one follow each other without gaps
+	private static Segment chunk(Segment first, Segment last) {
+		return new Segment(Segment.PROPERTIES, null, first.start, last.end, first.line, first.column);
+	}
+	
+	//Joins the parsed chunks in file order, the same way the Parser stores duplicates
+	private static Configuration assemble(Configuration[] parts, SymbolTable symbols) {
+		
+		if(parts.length == 1) {
+			return parts[0];
+		}
+		
+		int propertyCount = 0;
+		int moduleCount = 0;
+		for(int i = 0; i < parts.length; i++) {
+			propertyCount += parts[i].getPropertyCount();
+			moduleCount += parts[i].getModuleCount();
+		}
+		
+		Configuration config = new Configuration(propertyCount, moduleCount);
+		config.setSymbolTable(symbols);
+		
+		for(int i = 0; i < parts.length; i++) {
+			
+			ArrayList<Property> properties = parts[i].retrieveProperties();
+			for(int j = 0; j < properties.size(); j++) {
+				Property property = properties.get(j);
+				if(!config.addExistingProperty(property)) {
+					overwrite(config.getProperty(property.getID()), property);
+				}
+			}
+			
+			ArrayList<Module> modules = parts[i].retrieveModules();
+			for(int j = 0; j < modules.size(); j++) {
+				
+				Module module = modules.get(j);
+				Module existing = config.getModule(module.getModuleName());
+				
+				if(existing == null) {
+					config.addExistingModule(module);
+					continue;
+				}
+				
+				//Duplicate modules continue to fill the earlier module
+				properties = module.retrieveProperties();
+				for(int k = 0; k < properties.size(); k++) {
+					Property property = properties.get(k);
+					if(!existing.addExistingProperty(property)) {
+						overwrite(existing.getProperty(property.getID()), property);
+					}
+				}
+			}
+		}
+		
+		return config;
+	}
+	
+	private static void overwrite(Property existing, Property property) {
+		existing.setValue(property.getValue());
+		existing.setValidValues(property.getValidValues());
+	}
+	
+	/*
+	 * Parses a range of chunks, splitting the range in halves until a single chunk is left.
+	 * Errors are kept per chunk rather than thrown, so the first one in the file can be reported.
+	 */
+	private static final class ChunkParse extends RecursiveAction {
+		
+		private static final long serialVersionUID = 1L;
+		
+		private final ByteBuffer bytes;
+		private final ArrayList<Segment> chunks;
+		private final Configuration[] parts;
+		private final ParseException[] errors;
+		private final SymbolTable symbols;
+		private final int from;
+		private final int to;
+		
+		ChunkParse(ByteBuffer bytes, ArrayList<Segment> chunks, Configuration[] parts, ParseException[] errors,
+				SymbolTable symbols, int from, int to) {
+			this.bytes = bytes;
+			this.chunks = chunks;
+			this.parts = parts;
+			this.errors = errors;
+			this.symbols = symbols;
+			this.from = from;
+			this.to = to;
+		}
+		
+		@Override
+		protected void compute() {
+			
+			if(to - from > 1) {
+				int middle = (from + to) >>> 1;
+				invokeAll(new ChunkParse(bytes, chunks, parts, errors, symbols, from, middle),
+						new ChunkParse(bytes, chunks, parts, errors, symbols, middle, to));
+				return;
+			}
+			
+			//Strings are interned here, in parallel, so assembling only finds them in the table
+			Configuration part = new Configuration();
+			part.setSymbolTable(symbols);
+			
+			try {
+				chunks.get(from).parseInto(bytes, part);
+				parts[from] = part;
+			} catch (ParseException e) {
+				errors[from] = e;
+			}
+		}
+		
+	}
+
+}
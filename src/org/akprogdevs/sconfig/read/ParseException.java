@@ -0,0 +1,51 @@
+package org.akprogdevs.sconfig.read;
+
+import java.io.IOException;
+
+/**
+ * Signals that a configuration file does not follow the Srivas Config format. The
+ * line and column of the offending character are reported along with the message,
+ * both starting from one (1).
+ *
+ * @author AK Program Developers
+ *
+ */
+public class ParseException extends IOException {
+	
+	private static final long serialVersionUID = 1L;
+	
+	private final int line;
+	private final int column;
+	
+	/**
+	 * Constructor that accepts a description of the problem and its position in the file.
+	 *
+	 * @param message Description of the problem
+	 * @param line Line number of the offending character
+	 * @param column Column number of the offending character
+	 */
+	public ParseException(String message, int line, int column) {
+		super(message + " (line " + line + ", column " + column + ")");
+		this.line = line;
+		this.column = column;
+	}
+	
+	/**
+	 * Retrieves the line number where the problem was found.
+	 *
+	 * @return Line number, starting from one (1)
+	 */
+	public int getLine() {
+		return this.line;
+	}
+	
+	/**
+	 * Retrieves the column number where the problem was found.
+	 *
+	 * @return Column number, starting from one (1)
+	 */
+	public int getColumn() {
+		return this.column;
+	}
+
+}
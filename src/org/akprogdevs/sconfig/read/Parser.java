@@ -0,0 +1,531 @@
+package org.akprogdevs.sconfig.read;
+
+import java.nio.CharBuffer;
+import java.util.ArrayList;
+
+import org.akprogdevs.sconfig.classes.Configuration;
+import org.akprogdevs.sconfig.classes.Module;
+import org.akprogdevs.sconfig.classes.Property;
+import org.akprogdevs.sconfig.classes.SymbolTable;
+import org.akprogdevs.sconfig.metrics.Metrics;
+import org.akprogdevs.sconfig.metrics.ParseEvent;
+
+/**
+ * The Parser class converts the text of a configuration file into a Configuration, along
+ * with its Modules and Properties. The text is walked a single time, character by character,
+ * without regular expressions or splitting into lines - Strings are only created for the
+ * IDs, values and valid values that end up in the Configuration.
+ *
+ * <p>Following the format, repeated properties overwrite the earlier ones, and repeated
+ * modules add to (or overwrite the properties of) the earlier module of the same name.
+ * Anything after the {@code {scnfg:end}} line is ignored.</p>
+ *
+ * <p>A Parser is not thread-safe, and is meant to be used for a single call to {@code parse}.</p>
+ *
+ * @author AK Program Developers
+ *
+ */
+public final class Parser {
+	
+	private final static String HEADER_PREFIX = "SrivasConfig-scnfg-version:";
+	private final static String FOOTER_SUFFIX = ":end";
+	private final static String TERMINATOR = "scnfg";
+	
+	private final CharBuffer buffer;
+	private final int start;
+	private final int limit;
+	private final int firstLine;
+	private final int firstColumn;
+	private int pos;
+	
+	private Configuration config = null;
+	private Module module = null;
+	private final ArrayList<String> validValues = new ArrayList<>();
+	private SymbolTable symbols = null;
+	
+	/**
+	 * Constructor that accepts the characters of a configuration file. Parsing starts at the
+	 * current position of the buffer and stops at its limit, the position of the buffer itself
+	 * is not changed.
+	 *
+	 * @param buffer Characters of the configuration file
+	 */
+	public Parser(CharBuffer buffer) {
+		this(buffer, 1, 1);
+	}
+	
+	/**
+	 * Constructor that accepts part of a configuration file, along with the line and column
+	 * in the file where the part starts - errors are then reported with their position in
+	 * the whole file. Parsing starts at the current position of the buffer and stops at its limit.
+	 *
+	 * @param buffer Characters of part of the configuration file
+	 * @param line Line number of the first character, starting from one (1)
+	 * @param column Column number of the first character, starting from one (1)
+	 */
+	public Parser(CharBuffer buffer, int line, int column) {
+		this.buffer = buffer;
+		this.start = buffer.position();
+		this.limit = buffer.limit();
+		this.firstLine = line;
+		this.firstColumn = column;
+	}
+	
+	/**
+	 * Constructor that accepts the text of a configuration file, such as the output of
+	 * {@code Configuration.toString()}.
+	 *
+	 * @param text Text of the configuration file
+	 */
+	public Parser(CharSequence text) {
+		this(CharBuffer.wrap(text));
+	}
+	
+	/**
+	 * Sets the SymbolTable given to the Configurations created by {@code parse()}, so the IDs
+	 * and values are deduplicated as they are parsed.
+	 *
+	 * @param symbols The SymbolTable to be used, or null for none
+	 */
+	public void setSymbolTable(SymbolTable symbols) {
+		this.symbols = symbols;
+	}
+	
+	/**
+	 * Parses the text given to this Parser into a new Configuration.
+	 *
+	 * @return The parsed Configuration
+	 * @throws ParseException If the text does not follow the configuration format
+	 */
+	public Configuration parse() throws ParseException {
+		
+		ParseEvent event = new ParseEvent();
+		event.begin();
+		long started = Metrics.start();
+		
+		Configuration config = parseText();
+		
+		parsed(event, started, config, limit - start, 0);
+		return config;
+	}
+	
+	//Same as parse(), without recording it - for the parts of a read that is recorded as a whole
+	Configuration parseText() throws ParseException {
+		
+		this.config = new Configuration();
+		this.config.setSymbolTable(symbols);
+		this.module = null;
+		this.pos = start;
+		
+		parseHeader();
+		parseContent();
+		
+		return this.config;
+	}
+	
+	/**
+	 * Parses part of a configuration file, which does not start with the header, into an existing
+	 * Configuration. Properties and modules found are added to the Configuration, overwriting
+	 * any earlier properties of the same ID - the same as if they were parsed with the rest of the file.
+	 *
+	 * @param config The Configuration to be added to
+	 * @throws ParseException If the text does not follow the configuration format
+	 */
+	public void parseInto(Configuration config) throws ParseException {
+		
+		ParseEvent event = new ParseEvent();
+		event.begin();
+		long started = Metrics.start();
+		
+		parseTextInto(config);
+		
+		parsed(event, started, config, limit - start, 0);
+	}
+	
+	//Same as parseInto(), without recording it - for the parts of a read that is recorded as a whole
+	void parseTextInto(Configuration config) throws ParseException {
+		
+		this.config = config;
+		this.module = null;
+		this.pos = start;
+		
+		parseContent();
+	}
+	
+	/**
+	 * Records a successful parse in the metrics and, if it is recording, JDK Flight Recorder.
+	 * Called once per Configuration read, however many parts it was parsed in.
+	 *
+	 * @param event The event begun when the parse started
+	 * @param started Start time from {@code Metrics.start()}
+	 * @param config The Configuration parsed
+	 * @param characters Number of characters parsed, or 0 if the text was not decoded as a whole
+	 * @param bytes Size of the file read, or 0 if the text did not come from a file
+	 */
+	static void parsed(ParseEvent event, long started, Configuration config, long characters, long bytes) {
+		
+		Metrics.stop(Metrics.Operation.PARSE, started);
+		
+		if(event.shouldCommit()) {
+			event.characters = characters;
+			event.bytes = bytes;
+			event.modules = config.getModuleCount();
+			event.properties = config.getPropertyCount();
+			event.commit();
+		}
+	}
+	
+	//Reads properties, modules and comments up to the terminator or the end of the text
+	private void parseContent() throws ParseException {
+		
+		while(true) {
+			
+			skipWhitespace();
+			
+			//End of text without the terminator, only valid outside of a module
+			if(pos >= limit) {
+				if(module != null) {
+					throw error("Module " + module.getHeader() + " is missing its footer", pos);
+				}
+				break;
+			}
+			
+			char c = buffer.get(pos);
+			
+			if(c == '<') {
+				if(pos + 1 < limit && buffer.get(pos + 1) == '$') {
+					skipBlockComment();
+				}
+				else {
+					store(parseProperty());
+				}
+			}
+			else if(c == '$') {
+				skipLineComment();
+			}
+			else if(c == '{') {
+				if(parseMarker()) {
+					break;
+				}
+			}
+			else {
+				throw error("Unexpected character '" + c + "'", pos);
+			}
+			
+		}
+	}
+	
+	//Reads the {SrivasConfig-scnfg-version:X} header, which must come before anything else
+	private void parseHeader() throws ParseException {
+		
+		//Skip a byte order mark, if any
+		if(pos < limit && buffer.get(pos) == '\uFEFF') {
+			pos++;
+		}
+		skipWhitespace();
+		
+		if(pos >= limit || buffer.get(pos) != '{') {
+			throw error("Missing configuration header", pos);
+		}
+		
+		int open = pos;
+		int close = find('}', open + 1);
+		if(close < 0) {
+			throw error("Unterminated configuration header", open);
+		}
+		
+		String content = text(open + 1, close);
+		if(!content.startsWith(HEADER_PREFIX)) {
+			throw error("Missing configuration header", open);
+		}
+		
+		double fileVersion;
+		try {
+			fileVersion = Double.parseDouble(content.substring(HEADER_PREFIX.length()).trim());
+		} catch (NumberFormatException e) {
+			throw error("Invalid configuration version", open);
+		}
+		
+		if(fileVersion > Configuration.version) {
+			throw error("Configuration version " + fileVersion + " is newer than the supported version "
+					+ Configuration.version, open);
+		}
+		
+		pos = close + 1;
+	}
+	
+	//Reads a {module}, {module:end} or {scnfg:end} marker, returns true for the terminator
+	private boolean parseMarker() throws ParseException {
+		
+		int open = pos;
+		int close = find('}', open + 1);
+		if(close < 0) {
+			throw error("Unterminated module marker", open);
+		}
+		pos = close + 1;
+		
+		boolean footer = endsWith(open + 1, close, FOOTER_SUFFIX);
+		String name = text(open + 1, footer ? close - FOOTER_SUFFIX.length() : close).replace(" ", "");
+		
+		if(footer) {
+			
+			if(name.equals(TERMINATOR)) {
+				if(module != null) {
+					throw error("Module " + module.getHeader() + " is missing its footer", open);
+				}
+				return true;
+			}
+			
+			if(module == null) {
+				throw error("Module footer {" + name + FOOTER_SUFFIX + "} has no matching header", open);
+			}
+			if(!name.equals(module.getModuleName())) {
+				throw error("Expected " + module.getFooter() + " but found {" + name + FOOTER_SUFFIX + "}", open);
+			}
+			
+			module = null;
+		}
+		else {
+			
+			if(module != null) {
+				throw error("Nested modules are not supported, " + module.getHeader() + " is still open", open);
+			}
+			if(name.isEmpty()) {
+				throw error("Module name is missing", open);
+			}
+			
+			//Duplicate modules continue to fill the earlier module
+			module = config.getModule(name);
+			if(module == null) {
+				module = new Module(name);
+				config.addExistingModule(module);
+			}
+		}
+		
+		return false;
+	}
+	
+	//Reads a <id:value> or <id:value[valid,values]> property
+	private Property parseProperty() throws ParseException {
+		
+		int open = pos++;
+		
+		//Property ID, up to the separator
+		int idStart = pos;
+		while(pos < limit) {
+			char c = buffer.get(pos);
+			if(c == ':') {
+				break;
+			}
+			if(c == '>' || c == '\n') {
+				throw error("Property is missing the ':' separator", open);
+			}
+			pos++;
+		}
+		if(pos >= limit) {
+			throw error("Unterminated property", open);
+		}
+		
+		String id = text(idStart, pos);
+		if(id.isEmpty()) {
+			throw error("Property ID is missing", open);
+		}
+		pos++;
+		
+		//Property value, up to the valid values list or the closing bracket
+		int valueStart = pos;
+		boolean quoted = false;
+		while(pos < limit) {
+			char c = buffer.get(pos);
+			if(c == '"') {
+				quoted = !quoted;
+			}
+			else if(!quoted && (c == '[' || c == '>')) {
+				break;
+			}
+			pos++;
+		}
+		if(pos >= limit) {
+			throw error("Unterminated property", open);
+		}
+		
+		String value = value(valueStart, pos);
+		if(value.isEmpty()) {
+			throw error("Property " + id + " has no value, use 'novalue' instead", open);
+		}
+		
+		String[] valid = null;
+		
+		if(buffer.get(pos) == '[') {
+			
+			pos++;
+			validValues.clear();
+			int itemStart = pos;
+			quoted = false;
+			
+			while(true) {
+				if(pos >= limit) {
+					throw error("Unterminated list of valid values", open);
+				}
+				char c = buffer.get(pos);
+				if(c == '"') {
+					quoted = !quoted;
+				}
+				else if(!quoted && (c == ',' || c == ']')) {
+					String item = value(itemStart, pos);
+					if(!item.isEmpty()) {
+						validValues.add(item);
+					}
+					pos++;
+					if(c == ']') {
+						break;
+					}
+					itemStart = pos;
+					continue;
+				}
+				else if(!quoted && c == '>') {
+					throw error("Unterminated list of valid values", open);
+				}
+				pos++;
+			}
+			
+			valid = validValues.toArray(new String[validValues.size()]);
+			skipWhitespace();
+		}
+		
+		if(pos >= limit || buffer.get(pos) != '>') {
+			throw error("Expected '>' to close property " + id, open);
+		}
+		pos++;
+		
+		return valid == null ? new Property(id, value) : new Property(id, value, valid);
+	}
+	
+	//Adds a property to the open module, or the Configuration, overwriting an earlier duplicate
+	private void store(Property property) {
+		
+		boolean added = (module == null)
+				? config.addExistingProperty(property)
+				: module.addExistingProperty(property);
+		
+		if(!added) {
+			Property existing = (module == null)
+					? config.getProperty(property.getID())
+					: module.getProperty(property.getID());
+			
+			existing.setValue(property.getValue());
+			existing.setValidValues(property.getValidValues());
+		}
+	}
+	
+	//Skips a <$ ... > comment, which may span several lines and contain bracketed examples
+	private void skipBlockComment() throws ParseException {
+		
+		int open = pos;
+		int depth = 0;
+		
+		while(pos < limit) {
+			char c = buffer.get(pos++);
+			if(c == '<') {
+				depth++;
+			}
+			else if(c == '>' && --depth == 0) {
+				return;
+			}
+		}
+		
+		throw error("Unterminated comment", open);
+	}
+	
+	//Skips a $ comment up to the end of the line
+	private void skipLineComment() {
+		while(pos < limit && buffer.get(pos) != '\n') {
+			pos++;
+		}
+	}
+	
+	private void skipWhitespace() {
+		while(pos < limit && buffer.get(pos) <= ' ') {
+			pos++;
+		}
+	}
+	
+	private int find(char target, int from) {
+		for(int i = from; i < limit; i++) {
+			if(buffer.get(i) == target) {
+				return i;
+			}
+		}
+		return -1;
+	}
+	
+	private boolean endsWith(int from, int to, String suffix) {
+		int length = suffix.length();
+		if(to - from < length) {
+			return false;
+		}
+		for(int i = 0; i < length; i++) {
+			if(buffer.get(to - length + i) != suffix.charAt(i)) {
+				return false;
+			}
+		}
+		return true;
+	}
+	
+	//Text between the two indexes, without surrounding whitespace
+	private String text(int from, int to) {
+		while(from < to && buffer.get(from) <= ' ') {
+			from++;
+		}
+		while(to > from && buffer.get(to - 1) <= ' ') {
+			to--;
+		}
+		return string(from, to);
+	}
+	
+	//Same as text, but also removes the quotes around a quoted value
+	private String value(int from, int to) {
+		while(from < to && buffer.get(from) <= ' ') {
+			from++;
+		}
+		while(to > from && buffer.get(to - 1) <= ' ') {
+			to--;
+		}
+		if(to - from >= 2 && buffer.get(from) == '"' && buffer.get(to - 1) == '"') {
+			from++;
+			to--;
+		}
+		return string(from, to);
+	}
+	
+	private String string(int from, int to) {
+		if(from == to) {
+			return "";
+		}
+		if(buffer.hasArray()) {
+			return new String(buffer.array(), buffer.arrayOffset() + from, to - from);
+		}
+		int position = buffer.position();
+		return buffer.subSequence(from - position, to - position).toString();
+	}
+	
+	//Lines are only counted when an error is reported, to keep the main loop short
+	private ParseException error(String message, int at) {
+		int line = firstLine;
+		int lineStart = start;
+		for(int i = start; i < at && i < limit; i++) {
+			if(buffer.get(i) == '\n') {
+				line++;
+				lineStart = i + 1;
+			}
+		}
+		
+		int column = at - lineStart + 1;
+		if(line == firstLine) {
+			column += firstColumn - 1;
+		}
+		
+		return new ParseException(message, line, column);
+	}
+
+}
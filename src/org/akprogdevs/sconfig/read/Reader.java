@@ -0,0 +1,290 @@
+package org.akprogdevs.sconfig.read;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.CharacterCodingException;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.concurrent.ForkJoinPool;
+
+import org.akprogdevs.sconfig.classes.Configuration;
+import org.akprogdevs.sconfig.classes.SymbolTable;
+import org.akprogdevs.sconfig.metrics.Metrics;
+import org.akprogdevs.sconfig.metrics.ParseEvent;
+
+/**
+ * This class reads configuration files written by the {@code Writer} class (or by hand)
+ * back into a Configuration. Files are read through a {@code FileChannel} and decoded
+ * as UTF-8 into a {@code CharBuffer}, which is then handed to a {@link Parser}. The bytes of
+ * large files are memory-mapped instead of being read onto the heap, but their characters are
+ * still decoded onto the heap, two bytes per character - unless a parse pool is set, in which
+ * case every part of the file is decoded on its own.
+ *
+ * <p>If a pool is set with {@code setParsePool}, large files are split at module boundaries
+ * and the parts are parsed on the threads of the pool - see {@link ParallelParser}.</p>
+ *
+ * <p>Files can also be opened with {@code open}, which parses the modules only when they are
+ * first needed.</p>
+ *
+ * <p>The decoder and the buffers of files below 1 MiB are reused between calls, which makes
+ * reading many files with the same Reader cheaper - a Reader is therefore not thread-safe.
+ * The buffers of larger files are only kept for the call that needs them.</p>
+ *
+ * @author AK Program Developers
+ *
+ */
+public class Reader {
+	
+	private final static String EXTENSION = ".scnfg";
+	
+	//Files at least this large are memory-mapped rather than read onto the heap, and the
+	//buffers they need are not kept for the next call
+	private final static int MAP_THRESHOLD = 1 << 20;
+	
+	private final CharsetDecoder decoder = StandardCharsets.UTF_8.newDecoder()
+			.onMalformedInput(CodingErrorAction.REPORT)
+			.onUnmappableCharacter(CodingErrorAction.REPORT);
+	private ByteBuffer bytes = ByteBuffer.allocate(0);
+	private CharBuffer chars = CharBuffer.allocate(0);
+	private SymbolTable symbols = null;
+	private ForkJoinPool parsePool = null;
+	
+	/**
+	 * Default constructor.
+	 */
+	public Reader() {
+		
+	}
+	
+	/**
+	 * Sets the SymbolTable of the Configurations read from now on, so the IDs and values of
+	 * every file read are deduplicated against each other as they are parsed.
+	 *
+	 * @param symbols The SymbolTable to be used, or null for none
+	 */
+	public void setSymbolTable(SymbolTable symbols) {
+		this.symbols = symbols;
+	}
+	
+	/**
+	 * Sets the pool used to parse large files in parallel. Files of at least 1 MiB are split
+	 * at module boundaries and the top-level properties and modules are parsed on the threads
+	 * of the pool, the Configuration read is the same as with a sequential parse.
+	 *
+	 * @param pool The pool to be used, or null to parse every file on the calling thread
+	 */
+	public void setParsePool(ForkJoinPool pool) {
+		this.parsePool = pool;
+	}
+	
+	/**
+	 * Reads the configuration file at the destination (path) specified. The path should
+	 * meet the following conditions:
+	 *
+	 * <ul>
+	 * 	<li>The path can be either relative or absolute,</li>
+	 * 	<li>The path must specify the file name,</li>
+	 *	<li>The file name at the end of the path does not need an extension specified</li>
+	 * </ul>
+	 *
+	 * @param path Path of the configuration file
+	 * @return The parsed Configuration
+	 * @throws ParseException If the file does not follow the configuration format
+	 * @throws IOException If the file cannot be read
+	 */
+	public Configuration read(String path) throws IOException {
+		
+		if(!path.endsWith(EXTENSION)) {
+			path += EXTENSION;
+		}
+		
+		return read(Paths.get(path));
+	}
+	
+	/**
+	 * Reads the configuration file at the path specified, the path is used as-is.
+	 *
+	 * @param path Path of the configuration file
+	 * @return The parsed Configuration
+	 * @throws ParseException If the file does not follow the configuration format
+	 * @throws IOException If the file cannot be read
+	 */
+	public Configuration read(Path path) throws IOException {
+		
+		try(FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+			
+			long size = channel.size();
+			if(size > Integer.MAX_VALUE) {
+				throw new IOException("Configuration file is too large to read: " + path);
+			}
+			
+			ByteBuffer in;
+			
+			if(size >= MAP_THRESHOLD) {
+				in = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+				
+				if(parsePool != null) {
+					return ParallelParser.parse(in, parsePool, symbols);
+				}
+			}
+			else {
+				in = byteBuffer((int) size);
+				while(in.hasRemaining() && channel.read(in) >= 0) {
+					//Keep reading until the buffer is full or the end of file is reached
+				}
+				in.flip();
+			}
+			
+			ParseEvent event = new ParseEvent();
+			event.begin();
+			long started = Metrics.start();
+			
+			CharBuffer text = decode(in);
+			Parser parser = new Parser(text);
+			parser.setSymbolTable(symbols);
+			Configuration config = parser.parseText();
+			
+			Parser.parsed(event, started, config, text.remaining(), size);
+			return config;
+		}
+	}
+	
+	/**
+	 * Opens the configuration file at the destination (path) specified without parsing its
+	 * modules, the path follows the same conditions as for {@code read(String)}.
+	 *
+	 * @param path Path of the configuration file
+	 * @return The Configuration, loading its modules on demand
+	 * @throws ParseException If the file does not follow the configuration format
+	 * @throws IOException If the file cannot be read
+	 * @see #open(Path)
+	 */
+	public Configuration open(String path) throws IOException {
+		
+		if(!path.endsWith(EXTENSION)) {
+			path += EXTENSION;
+		}
+		
+		return open(Paths.get(path));
+	}
+	
+	/**
+	 * Opens the configuration file at the path specified without parsing its modules. The file
+	 * is memory-mapped and scanned for module boundaries, only the header and the top-level
+	 * properties are parsed right away. Each module is parsed from its byte range the first
+	 * time it is looked up through {@code getModule}, or when every module is needed (see
+	 * {@link Configuration#setModuleLoader}), so processes that use few of the modules of a
+	 * large file do not pay for the rest.
+	 *
+	 * <p>The file must not be changed while modules are still to be loaded. Errors within a
+	 * module are only found once the module is loaded, and are thrown as an
+	 * {@code UncheckedIOException} wrapping the {@code ParseException}.</p>
+	 *
+	 * @param path Path of the configuration file
+	 * @return The Configuration, loading its modules on demand
+	 * @throws ParseException If the header, the top-level properties or the module boundaries
+	 * 			do not follow the configuration format
+	 * @throws IOException If the file cannot be read
+	 */
+	public Configuration open(Path path) throws IOException {
+		
+		ParseEvent event = new ParseEvent();
+		event.begin();
+		long started = Metrics.start();
+		
+		ByteBuffer in;
+		try(FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+			
+			long size = channel.size();
+			if(size > Integer.MAX_VALUE) {
+				throw new IOException("Configuration file is too large to read: " + path);
+			}
+			in = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+		}
+		
+		ArrayList<Segment> segments = SegmentScanner.scan(in);
+		if(segments == null) {
+			//Module boundaries are broken, a full parse reports the error
+			Parser parser = new Parser(decode(in));
+			parser.setSymbolTable(symbols);
+			Configuration config = parser.parseText();
+			Parser.parsed(event, started, config, 0, in.limit());
+			return config;
+		}
+		
+		Configuration config = new Configuration();
+		config.setSymbolTable(symbols);
+		LinkedHashMap<String, ArrayList<Segment>> modules = new LinkedHashMap<>();
+		
+		for(int i = 0; i < segments.size(); i++) {
+			
+			Segment segment = segments.get(i);
+			
+			if(segment.kind == Segment.MODULE) {
+				modules.computeIfAbsent(segment.name, name -> new ArrayList<>(1)).add(segment);
+			}
+			else {
+				segment.parseInto(in, config);
+			}
+		}
+		
+		config.setModuleLoader(new SegmentLoader(in, modules));
+		
+		//Modules loaded later are part of this parse, and not recorded on their own
+		Parser.parsed(event, started, config, 0, in.limit());
+		return config;
+	}
+	
+	//Decodes UTF-8 bytes into the reusable character buffer
+	private CharBuffer decode(ByteBuffer in) throws CharacterCodingException {
+		
+		//UTF-8 never decodes to more characters than there are bytes
+		CharBuffer out = charBuffer(in.remaining());
+		
+		decoder.reset();
+		CoderResult result = decoder.decode(in, out, true);
+		if(!result.isUnderflow()) {
+			result.throwException();
+		}
+		result = decoder.flush(out);
+		if(!result.isUnderflow()) {
+			result.throwException();
+		}
+		
+		out.flip();
+		return out;
+	}
+	
+	//Only called for files below MAP_THRESHOLD, larger ones are mapped
+	private ByteBuffer byteBuffer(int capacity) {
+		if(bytes.capacity() < capacity) {
+			bytes = ByteBuffer.allocate(capacity);
+		}
+		bytes.clear().limit(capacity);
+		return bytes;
+	}
+	
+	private CharBuffer charBuffer(int capacity) {
+		
+		//A single large file would otherwise keep its whole text alive as long as the Reader
+		if(capacity > MAP_THRESHOLD) {
+			return CharBuffer.allocate(capacity);
+		}
+		
+		if(chars.capacity() < capacity) {
+			chars = CharBuffer.allocate(capacity);
+		}
+		chars.clear();
+		return chars;
+	}
+
+}
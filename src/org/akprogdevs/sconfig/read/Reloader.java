@@ -0,0 +1,328 @@
+package org.akprogdevs.sconfig.read;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.akprogdevs.sconfig.classes.Configuration;
+import org.akprogdevs.sconfig.classes.Module;
+import org.akprogdevs.sconfig.classes.Property;
+import org.akprogdevs.sconfig.metrics.Metrics;
+import org.akprogdevs.sconfig.metrics.ParseEvent;
+
+/**
+ * Keeps a Configuration up to date with its configuration file. Once started, the directory of
+ * the file is watched through a {@code WatchService}; bursts of file system events are
+ * debounced into a single reload, and the new Configuration is swapped in atomically.
+ *
+ * <p>Reloads are incremental: the file is split at module boundaries and only the modules (and
+ * top-level properties) whose bytes changed are parsed again. Unchanged Module and Property
+ * objects are carried over to the new Configuration, which is why the Configurations returned
+ * by {@code get()} should be treated as read-only. If a reload fails, for example because the
+ * file was written by hand and is not valid yet, the previous Configuration is kept and the
+ * error is available from {@code getLastError()}.</p>
+ *
+ * @author AK Program Developers
+ *
+ */
+public class Reloader implements Closeable {
+	
+	private final static String EXTENSION = ".scnfg";
+	private final static long DEFAULT_DEBOUNCE_MILLIS = 200;
+	
+	private final Path file;
+	private final long debounceMillis;
+	private final AtomicReference<Configuration> current = new AtomicReference<>();
+	private volatile IOException lastError = null;
+	
+	//State of the last successful reload, only used while holding the lock of this Reloader
+	private ByteBuffer previousBytes = null;
+	private ArrayList<Segment> previousSegments = null;
+	private HashMap<String, Segment> previousModules = null;
+	
+	private WatchService watcher = null;
+	private Thread thread = null;
+	
+	/**
+	 * Constructor that reads the configuration file at the destination (path) specified. The
+	 * file name at the end of the path does not need an extension specified.
+	 *
+	 * @param path Path of the configuration file
+	 * @throws ParseException If the file does not follow the configuration format
+	 * @throws IOException If the file cannot be read
+	 */
+	public Reloader(String path) throws IOException {
+		this(Paths.get(path.endsWith(EXTENSION) ? path : path + EXTENSION), DEFAULT_DEBOUNCE_MILLIS);
+	}
+	
+	/**
+	 * Constructor that reads the configuration file at the path specified, the path is used as-is.
+	 *
+	 * @param file Path of the configuration file
+	 * @param debounceMillis Time without further file system events to wait for before reloading
+	 * @throws ParseException If the file does not follow the configuration format
+	 * @throws IOException If the file cannot be read
+	 */
+	public Reloader(Path file, long debounceMillis) throws IOException {
+		this.file = file.toAbsolutePath();
+		this.debounceMillis = debounceMillis;
+		reload();
+	}
+	
+	/**
+	 * Retrieves the most recently loaded Configuration.
+	 *
+	 * @return The current Configuration, which should not be modified
+	 */
+	public Configuration get() {
+		return this.current.get();
+	}
+	
+	/**
+	 * Retrieves the path of the configuration file being watched.
+	 *
+	 * @return Absolute path of the file
+	 */
+	public Path getPath() {
+		return this.file;
+	}
+	
+	/**
+	 * Retrieves the error of the last reload triggered by a file system event.
+	 *
+	 * @return The error, or null if the last reload succeeded
+	 */
+	public IOException getLastError() {
+		return this.lastError;
+	}
+	
+	/**
+	 * Reads the configuration file again, parsing only the parts that changed since the
+	 * last reload, and swaps in the new Configuration.
+	 *
+	 * @return True if the file changed, false if it is identical to the last reload
+	 * @throws ParseException If the file does not follow the configuration format
+	 * @throws IOException If the file cannot be read
+	 */
+	public synchronized boolean reload() throws IOException {
+		
+		ByteBuffer bytes = ByteBuffer.wrap(Files.readAllBytes(file));
+		if(bytes.equals(previousBytes)) {
+			return false;
+		}
+		
+		ArrayList<Segment> segments = SegmentScanner.scan(bytes);
+		HashMap<String, Segment> modules = (segments == null) ? null : moduleSegments(segments);
+		
+		ParseEvent event = new ParseEvent();
+		event.begin();
+		long started = Metrics.start();
+		
+		Configuration config;
+		if(modules == null) {
+			//Module boundaries are broken or repeated, a full parse reports errors and merges modules
+			config = new Parser(Segment.whole(bytes).decode(bytes)).parseText();
+		}
+		else if(previousModules == null) {
+			config = parse(bytes, segments);
+		}
+		else {
+			config = reparse(bytes, segments);
+		}
+		Parser.parsed(event, started, config, 0, bytes.limit());
+		
+		this.current.set(config);
+		this.previousBytes = bytes;
+		this.previousSegments = segments;
+		this.previousModules = modules;
+		
+		return true;
+	}
+	
+	/**
+	 * Starts watching the configuration file on a daemon thread. Changes are reloaded once
+	 * no further events arrived for the debounce time.
+	 *
+	 * @throws IOException If the directory of the file cannot be watched
+	 */
+	public synchronized void start() throws IOException {
+		
+		if(this.thread != null) {
+			return;
+		}
+		
+		this.watcher = FileSystems.getDefault().newWatchService();
+		this.file.getParent().register(watcher, StandardWatchEventKinds.ENTRY_CREATE,
+				StandardWatchEventKinds.ENTRY_MODIFY);
+		
+		this.thread = new Thread(this::watch, "scnfg-reloader-" + file.getFileName());
+		this.thread.setDaemon(true);
+		this.thread.start();
+	}
+	
+	/**
+	 * Stops watching the configuration file, the current Configuration stays available.
+	 */
+	@Override
+	public synchronized void close() throws IOException {
+		
+		if(this.thread != null) {
+			this.watcher.close();
+			this.thread.interrupt();
+			this.thread = null;
+		}
+	}
+	
+	private void watch() {
+		
+		WatchService watcher = this.watcher;
+		
+		try {
+			while(true) {
+				
+				if(!affectsFile(watcher.take())) {
+					continue;
+				}
+				
+				//Wait for the burst of events to settle, for example a write followed by a rename
+				WatchKey key;
+				while((key = watcher.poll(debounceMillis, TimeUnit.MILLISECONDS)) != null) {
+					affectsFile(key);
+				}
+				
+				try {
+					reload();
+					this.lastError = null;
+				} catch (IOException e) {
+					this.lastError = e;
+				}
+			}
+		} catch (InterruptedException | ClosedWatchServiceException e) {
+			//Stopped by close()
+		}
+	}
+	
+	private boolean affectsFile(WatchKey key) {
+		
+		boolean affected = false;
+		
+		for(WatchEvent<?> event : key.pollEvents()) {
+			if(event.kind() == StandardWatchEventKinds.OVERFLOW
+					|| file.getFileName().equals(event.context())) {
+				affected = true;
+			}
+		}
+		key.reset();
+		
+		return affected;
+	}
+	
+	//First reload, or the previous one could not be split - every segment is parsed
+	private Configuration parse(ByteBuffer bytes, ArrayList<Segment> segments) throws ParseException {
+		
+		Configuration config = new Configuration();
+		for(int i = 0; i < segments.size(); i++) {
+			segments.get(i).parseInto(bytes, config);
+		}
+		return config;
+	}
+	
+	//Parse only the segments that differ from the previous reload
+	private Configuration reparse(ByteBuffer bytes, ArrayList<Segment> segments) throws ParseException {
+		
+		Configuration previous = this.current.get();
+		Configuration config = new Configuration(0, segments.size());
+		boolean sameProperties = sameProperties(bytes, segments);
+		
+		for(int i = 0; i < segments.size(); i++) {
+			
+			Segment segment = segments.get(i);
+			
+			if(segment.kind == Segment.HEADER) {
+				if(!segment.sameBytes(bytes, previousSegments.get(0), previousBytes)) {
+					segment.parseInto(bytes, config);
+				}
+			}
+			else if(segment.kind == Segment.PROPERTIES) {
+				if(!sameProperties) {
+					segment.parseInto(bytes, config);
+				}
+			}
+			else {
+				Segment old = previousModules.get(segment.name);
+				Module module = (old == null) ? null : previous.getModule(segment.name);
+				
+				if(module != null && segment.sameBytes(bytes, old, previousBytes)) {
+					config.addExistingModule(module);
+				}
+				else {
+					segment.parseInto(bytes, config);
+				}
+			}
+		}
+		
+		if(sameProperties) {
+			ArrayList<Property> properties = previous.retrieveProperties();
+			for(int i = 0; i < properties.size(); i++) {
+				config.addExistingProperty(properties.get(i));
+			}
+		}
+		
+		return config;
+	}
+	
+	//Whether the top-level segments, taken together, hold the same bytes as last time
+	private boolean sameProperties(ByteBuffer bytes, ArrayList<Segment> segments) {
+		
+		ArrayList<Segment> current = topLevel(segments);
+		ArrayList<Segment> previous = topLevel(previousSegments);
+		
+		if(current.size() != previous.size()) {
+			return false;
+		}
+		for(int i = 0; i < current.size(); i++) {
+			if(!current.get(i).sameBytes(bytes, previous.get(i), previousBytes)) {
+				return false;
+			}
+		}
+		return true;
+	}
+	
+	private static ArrayList<Segment> topLevel(ArrayList<Segment> segments) {
+		
+		ArrayList<Segment> topLevel = new ArrayList<>();
+		for(int i = 0; i < segments.size(); i++) {
+			if(segments.get(i).kind == Segment.PROPERTIES) {
+				topLevel.add(segments.get(i));
+			}
+		}
+		return topLevel;
+	}
+	
+	//Module segments by name, or null if a module is repeated and must be merged by a full parse
+	private static HashMap<String, Segment> moduleSegments(ArrayList<Segment> segments) {
+		
+		HashMap<String, Segment> modules = new HashMap<>();
+		for(int i = 0; i < segments.size(); i++) {
+			Segment segment = segments.get(i);
+			if(segment.kind == Segment.MODULE && modules.put(segment.name, segment) != null) {
+				return null;
+			}
+		}
+		return modules;
+	}
+
+}
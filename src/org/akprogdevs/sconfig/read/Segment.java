@@ -0,0 +1,93 @@
+package org.akprogdevs.sconfig.read;
+
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.CharacterCodingException;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+
+import org.akprogdevs.sconfig.classes.Configuration;
+
+/**
+ * A byte range of a configuration file found by the {@link SegmentScanner} - the header, a
+ * whole module from its header to its footer, or the top-level properties and comments
+ * between modules. Each segment can be parsed on its own.
+ * 
+ * @author AK Program Developers
+ *
+ */
+final class Segment {
+	
+	final static int HEADER = 0;
+	final static int PROPERTIES = 1;
+	final static int MODULE = 2;
+	
+	final int kind;
+	//Module name, or null for the header and top-level properties
+	final String name;
+	final int start;
+	final int end;
+	final int line;
+	final int column;
+	
+	Segment(int kind, String name, int start, int end, int line, int column) {
+		this.kind = kind;
+		this.name = name;
+		this.start = start;
+		this.end = end;
+		this.line = line;
+		this.column = column;
+	}
+	
+	/**
+	 * Creates a segment that covers the whole file, to decode it at once.
+	 */
+	static Segment whole(ByteBuffer bytes) {
+		return new Segment(HEADER, null, bytes.position(), bytes.limit(), 1, 1);
+	}
+	
+	/**
+	 * Checks whether this segment holds the same bytes as another segment, which may
+	 * be part of a different version of the file.
+	 */
+	boolean sameBytes(ByteBuffer bytes, Segment other, ByteBuffer otherBytes) {
+		return (end - start) == (other.end - other.start) && slice(bytes).equals(other.slice(otherBytes));
+	}
+	
+	/**
+	 * Parses this segment into the Configuration specified. The header is only checked
+	 * for a valid and supported version.
+	 */
+	void parseInto(ByteBuffer bytes, Configuration config) throws ParseException {
+		
+		Parser parser = new Parser(decode(bytes), line, column);
+		
+		//The read this segment is part of records the parse as a whole
+		if(kind == HEADER) {
+			parser.parseText();
+		}
+		else {
+			parser.parseTextInto(config);
+		}
+	}
+	
+	/**
+	 * Decodes the UTF-8 bytes of this segment.
+	 */
+	CharBuffer decode(ByteBuffer bytes) throws ParseException {
+		
+		try {
+			return StandardCharsets.UTF_8.newDecoder()
+					.onMalformedInput(CodingErrorAction.REPORT)
+					.onUnmappableCharacter(CodingErrorAction.REPORT)
+					.decode(slice(bytes));
+		} catch (CharacterCodingException e) {
+			throw new ParseException("Invalid UTF-8 text", line, column);
+		}
+	}
+	
+	ByteBuffer slice(ByteBuffer bytes) {
+		return bytes.duplicate().limit(end).position(start);
+	}
+
+}
@@ -0,0 +1,49 @@
+package org.akprogdevs.sconfig.read;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+
+import org.akprogdevs.sconfig.classes.Configuration;
+import org.akprogdevs.sconfig.classes.Module;
+import org.akprogdevs.sconfig.classes.ModuleLoader;
+
+/**
+ * Loads the modules of a memory-mapped configuration file from the byte ranges found by the
+ * {@link SegmentScanner}. A module is decoded and parsed only when it is loaded, the file
+ * itself stays mapped until every module has been loaded.
+ *
+ * @author AK Program Developers
+ *
+ */
+final class SegmentLoader implements ModuleLoader {
+	
+	private final ByteBuffer bytes;
+	//Segments of every module by name, in file order - a repeated module has several segments
+	private final LinkedHashMap<String, ArrayList<Segment>> modules;
+	
+	SegmentLoader(ByteBuffer bytes, LinkedHashMap<String, ArrayList<Segment>> modules) {
+		this.bytes = bytes;
+		this.modules = modules;
+	}
+	
+	@Override
+	public String[] getModuleNames() {
+		return modules.keySet().toArray(new String[modules.size()]);
+	}
+	
+	@Override
+	public Module load(String moduleName) throws ParseException {
+		
+		//Parsing all segments into one Configuration merges repeated modules like a full parse
+		ArrayList<Segment> segments = modules.get(moduleName);
+		Configuration config = new Configuration(0, 1);
+		
+		for(int i = 0; i < segments.size(); i++) {
+			segments.get(i).parseInto(bytes, config);
+		}
+		
+		return config.retrieveModules().get(0);
+	}
+
+}
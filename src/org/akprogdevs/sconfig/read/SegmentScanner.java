@@ -0,0 +1,267 @@
+package org.akprogdevs.sconfig.read;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+
+/**
+ * Splits the UTF-8 bytes of a configuration file into {@link Segment}s without decoding
+ * or parsing them. The characters that make up the structure of the file ({@code < > { } $ "})
+ * are all ASCII, and a UTF-8 byte below 0x80 is always a character of its own - the bytes
+ * can therefore be scanned directly.
+ * 
+ * <p>The scanner only looks for module boundaries, the contents of each segment are checked
+ * when the segment is parsed. If the boundaries themselves are broken (an unterminated comment,
+ * a nested module, a footer without a header, ...) the scanner gives up, and the file should
+ * be parsed as a whole to report the error.</p>
+ * 
+ * @author AK Program Developers
+ *
+ */
+final class SegmentScanner {
+	
+	private final static byte[] FOOTER_SUFFIX = ":end".getBytes(StandardCharsets.US_ASCII);
+	private final static String TERMINATOR = "scnfg";
+	
+	private final ByteBuffer bytes;
+	private final int limit;
+	private int pos;
+	private int line = 1;
+	private int lineStart;
+	
+	private SegmentScanner(ByteBuffer bytes) {
+		this.bytes = bytes;
+		this.pos = bytes.position();
+		this.limit = bytes.limit();
+		this.lineStart = pos;
+	}
+	
+	/**
+	 * Scans the bytes from the position to the limit of the buffer, which is left unchanged.
+	 * 
+	 * @param bytes UTF-8 bytes of a configuration file
+	 * @return The segments in file order, starting with the header, or null if the module 
+	 * 			boundaries could not be determined
+	 */
+	static ArrayList<Segment> scan(ByteBuffer bytes) {
+		return new SegmentScanner(bytes).scan();
+	}
+	
+	private ArrayList<Segment> scan() {
+		
+		ArrayList<Segment> segments = new ArrayList<>();
+		
+		//Header, after a byte order mark and whitespace, if any
+		if(limit - pos >= 3 && (bytes.get(pos) & 0xFF) == 0xEF && (bytes.get(pos + 1) & 0xFF) == 0xBB 
+				&& (bytes.get(pos + 2) & 0xFF) == 0xBF) {
+			pos += 3;
+		}
+		skipWhitespace();
+		if(pos >= limit || bytes.get(pos) != '{') {
+			return null;
+		}
+		int headerEnd = find('}', pos + 1);
+		if(headerEnd < 0) {
+			return null;
+		}
+		segments.add(segment(Segment.HEADER, null, bytes.position(), headerEnd + 1));
+		pos = headerEnd + 1;
+		
+		Segment properties = null;
+		Segment module = null;
+		int segmentStart = pos;
+		int segmentLine = line;
+		int segmentColumn = column(pos);
+		
+		while(pos < limit) {
+			
+			byte b = bytes.get(pos);
+			
+			if(b == '\n') {
+				line++;
+				lineStart = ++pos;
+			}
+			else if(b == '<') {
+				if(!skipBracket()) {
+					return null;
+				}
+			}
+			else if(b == '$') {
+				while(pos < limit && bytes.get(pos) != '\n') {
+					pos++;
+				}
+			}
+			else if(b == '{') {
+				
+				int open = pos;
+				int close = find('}', open + 1);
+				if(close < 0) {
+					return null;
+				}
+				
+				boolean footer = endsWith(open + 1, close, FOOTER_SUFFIX);
+				String name = name(open + 1, footer ? close - FOOTER_SUFFIX.length : close);
+				
+				if(footer && name.equals(TERMINATOR)) {
+					if(module != null) {
+						return null;
+					}
+					addProperties(segments, segmentStart, open, segmentLine, segmentColumn);
+					return segments;
+				}
+				
+				if(footer) {
+					
+					if(module == null || !name.equals(module.name)) {
+						return null;
+					}
+					
+					pos = close + 1;
+					segments.add(new Segment(Segment.MODULE, name, module.start, pos, module.line, module.column));
+					module = null;
+					
+					segmentStart = pos;
+					segmentLine = line;
+					segmentColumn = column(pos);
+				}
+				else {
+					
+					if(module != null || name.isEmpty()) {
+						return null;
+					}
+					
+					addProperties(segments, segmentStart, open, segmentLine, segmentColumn);
+					module = segment(Segment.MODULE, name, open, -1);
+					pos = close + 1;
+				}
+			}
+			else {
+				pos++;
+			}
+		}
+		
+		if(module != null) {
+			return null;
+		}
+		addProperties(segments, segmentStart, limit, segmentLine, segmentColumn);
+		
+		return segments;
+	}
+	
+	//Top-level text between modules, empty ranges are left out
+	private void addProperties(ArrayList<Segment> segments, int start, int end, int line, int column) {
+		
+		if(end > start) {
+			segments.add(new Segment(Segment.PROPERTIES, null, start, end, line, column));
+		}
+	}
+	
+	//Skips a property, or a comment which may contain bracketed examples, counting lines
+	private boolean skipBracket() {
+		
+		boolean comment = pos + 1 < limit && bytes.get(pos + 1) == '$';
+		boolean quoted = false;
+		int depth = 0;
+		
+		while(pos < limit) {
+			
+			byte b = bytes.get(pos++);
+			
+			if(b == '\n') {
+				line++;
+				lineStart = pos;
+			}
+			else if(comment) {
+				if(b == '<') {
+					depth++;
+				}
+				else if(b == '>' && --depth == 0) {
+					return true;
+				}
+			}
+			else if(b == '"') {
+				quoted = !quoted;
+			}
+			else if(b == '>' && !quoted) {
+				return true;
+			}
+		}
+		
+		return false;
+	}
+	
+	private void skipWhitespace() {
+		
+		while(pos < limit && (bytes.get(pos) & 0xFF) <= ' ') {
+			if(bytes.get(pos) == '\n') {
+				line++;
+				lineStart = pos + 1;
+			}
+			pos++;
+		}
+	}
+	
+	//Markers are expected on a single line, so lines are not counted here
+	private int find(char target, int from) {
+		
+		for(int i = from; i < limit; i++) {
+			if(bytes.get(i) == target) {
+				return i;
+			}
+		}
+		return -1;
+	}
+	
+	private boolean endsWith(int from, int to, byte[] suffix) {
+		
+		if(to - from < suffix.length) {
+			return false;
+		}
+		for(int i = 0; i < suffix.length; i++) {
+			if(bytes.get(to - suffix.length + i) != suffix[i]) {
+				return false;
+			}
+		}
+		return true;
+	}
+	
+	//Module name between the braces, trimmed and without spaces the same way as the Parser
+	private String name(int from, int to) {
+		
+		while(from < to && (bytes.get(from) & 0xFF) <= ' ') {
+			from++;
+		}
+		while(to > from && (bytes.get(to - 1) & 0xFF) <= ' ') {
+			to--;
+		}
+		
+		byte[] name = new byte[to - from];
+		int length = 0;
+		for(int i = from; i < to; i++) {
+			byte b = bytes.get(i);
+			if(b != ' ') {
+				name[length++] = b;
+			}
+		}
+		return new String(name, 0, length, StandardCharsets.UTF_8);
+	}
+	
+	private Segment segment(int kind, String name, int start, int end) {
+		return new Segment(kind, name, start, end, line, column(start));
+	}
+	
+	//Column in characters, as the Parser counts them, of a byte on the current line
+	private int column(int at) {
+		
+		int column = 1;
+		for(int i = lineStart; i < at; i++) {
+			int b = bytes.get(i) & 0xFF;
+			if((b & 0xC0) != 0x80) {
+				//Four byte sequences decode to a surrogate pair
+				column += (b & 0xF8) == 0xF0 ? 2 : 1;
+			}
+		}
+		return column;
+	}
+
+}
@@ -0,0 +1,147 @@
+package org.akprogdevs.sconfig.validate;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.akprogdevs.sconfig.classes.Configuration;
+import org.akprogdevs.sconfig.classes.Module;
+import org.akprogdevs.sconfig.classes.Property;
+
+/**
+ * The Validator class checks a whole Configuration against the rules of the format: property
+ * and module names must not be keywords, values must not be empty, values must be one of their
+ * valid values (if any), and the {@code usedefault} keyword needs exactly one default valid value.
+ * Problems are returned as a list of {@link Violation}s rather than thrown, so every problem in a
+ * Configuration is reported at once.
+ * 
+ * <p>Modules are independent of each other, so by default they are validated in parallel on the 
+ * common {@code ForkJoinPool}. Violations are always returned in file order - top-level properties
+ * first, then each module in turn.</p>
+ * 
+ * @author AK Program Developers
+ *
+ */
+public class Validator {
+	
+	private final static HashSet<String> KEYWORDS = new HashSet<>(Arrays.asList(
+			"true", "false", "end", Property.NO_VALUE, Property.USE_DEFAULT, "default", "scnfg"));
+	
+	private boolean parallel = true;
+	
+	/**
+	 * Default constructor, modules are validated in parallel.
+	 */
+	public Validator() {
+		
+	}
+	
+	/**
+	 * Constructor that chooses whether modules are validated in parallel.
+	 * 
+	 * @param parallel True to validate modules in parallel, false to validate them on the calling thread
+	 */
+	public Validator(boolean parallel) {
+		this.parallel = parallel;
+	}
+	
+	/**
+	 * Validates the top-level properties and every module of a Configuration.
+	 * 
+	 * @param config The Configuration to be validated
+	 * @return The violations found, or an empty list if the Configuration is valid
+	 */
+	public ArrayList<Violation> validate(Configuration config) {
+		
+		ArrayList<Violation> violations = new ArrayList<>();
+		validateProperties(null, config.retrieveProperties(), violations);
+		
+		ArrayList<Module> modules = config.retrieveModules();
+		
+		if(parallel && modules.size() > 1) {
+			List<ArrayList<Violation>> results = modules.parallelStream()
+					.map(this::validate)
+					.collect(Collectors.toList());
+			
+			for(int i = 0; i < results.size(); i++) {
+				violations.addAll(results.get(i));
+			}
+		}
+		else {
+			for(int i = 0; i < modules.size(); i++) {
+				violations.addAll(validate(modules.get(i)));
+			}
+		}
+		
+		return violations;
+	}
+	
+	/**
+	 * Validates a single Module and its properties.
+	 * 
+	 * @param module The Module to be validated
+	 * @return The violations found, or an empty list if the Module is valid
+	 */
+	public ArrayList<Violation> validate(Module module) {
+		
+		ArrayList<Violation> violations = new ArrayList<>(0);
+		String name = module.getModuleName();
+		
+		if(KEYWORDS.contains(name)) {
+			violations.add(new Violation(Violation.Type.KEYWORD_NAME, name, null, null,
+					"Module name '" + name + "' is a keyword"));
+		}
+		
+		validateProperties(name, module.retrieveProperties(), violations);
+		
+		return violations;
+	}
+	
+	private void validateProperties(String moduleName, ArrayList<Property> properties, ArrayList<Violation> violations) {
+		
+		for(int i = 0; i < properties.size(); i++) {
+			validateProperty(moduleName, properties.get(i), violations);
+		}
+	}
+	
+	private void validateProperty(String moduleName, Property property, ArrayList<Violation> violations) {
+		
+		String id = property.getID();
+		String value = property.getValue();
+		
+		if(KEYWORDS.contains(id)) {
+			violations.add(new Violation(Violation.Type.KEYWORD_NAME, moduleName, id, null,
+					"Property name '" + id + "' is a keyword"));
+		}
+		
+		if(value == null || value.isEmpty()) {
+			violations.add(new Violation(Violation.Type.MISSING_VALUE, moduleName, id, value,
+					"Property has no value, use '" + Property.NO_VALUE + "' instead"));
+			return;
+		}
+		
+		if(property.getDefaultValueCount() > 1) {
+			violations.add(new Violation(Violation.Type.MULTIPLE_DEFAULTS, moduleName, id, null,
+					property.getDefaultValueCount() + " valid values are marked as the default"));
+		}
+		
+		//Lists are compatible with novalue, and the default is then ignored
+		if(value.equals(Property.NO_VALUE)) {
+			return;
+		}
+		
+		if(value.equals(Property.USE_DEFAULT)) {
+			if(property.getDefaultValue() == null) {
+				violations.add(new Violation(Violation.Type.MISSING_DEFAULT, moduleName, id, value,
+						"Property uses '" + Property.USE_DEFAULT + "' but has no default valid value"));
+			}
+		}
+		else if(!property.isValidValue(value)) {
+			violations.add(new Violation(Violation.Type.INVALID_VALUE, moduleName, id, value,
+					"Value '" + value + "' is not one of the valid values"));
+		}
+	}
+
+}
@@ -0,0 +1,112 @@
+package org.akprogdevs.sconfig.validate;
+
+/**
+ * A single problem found by the {@link Validator}, along with where it was found - the module
+ * (if any) and the property (if any) - and the offending value.
+ * 
+ * @author AK Program Developers
+ *
+ */
+public final class Violation {
+	
+	/**
+	 * The kinds of problems reported by the Validator.
+	 */
+	public enum Type {
+		
+		/** A property or module is named after a keyword of the format. */
+		KEYWORD_NAME,
+		
+		/** A property has an empty value, instead of the {@code novalue} keyword. */
+		MISSING_VALUE,
+		
+		/** A property value is not one of its valid values. */
+		INVALID_VALUE,
+		
+		/** A property uses {@code usedefault}, but none of its valid values is the default. */
+		MISSING_DEFAULT,
+		
+		/** More than one valid value of a property is marked as the default. */
+		MULTIPLE_DEFAULTS
+	}
+	
+	private final Type type;
+	private final String moduleName;
+	private final String propertyID;
+	private final String value;
+	private final String message;
+	
+	/**
+	 * Constructor that accepts the kind of problem and where it was found.
+	 * 
+	 * @param type The kind of problem
+	 * @param moduleName Name of the module, or null for the top-level of the Configuration
+	 * @param propertyID ID of the property, or null if the problem is with the module itself
+	 * @param value The offending value, or null if not applicable
+	 * @param message Description of the problem
+	 */
+	public Violation(Type type, String moduleName, String propertyID, String value, String message) {
+		this.type = type;
+		this.moduleName = moduleName;
+		this.propertyID = propertyID;
+		this.value = value;
+		this.message = message;
+	}
+	
+	/**
+	 * Retrieves the kind of problem.
+	 * 
+	 * @return The violation type
+	 */
+	public Type getType() {
+		return this.type;
+	}
+	
+	/**
+	 * Retrieves the name of the module where the problem was found.
+	 * 
+	 * @return The module name, or null for the top-level of the Configuration
+	 */
+	public String getModuleName() {
+		return this.moduleName;
+	}
+	
+	/**
+	 * Retrieves the ID of the property where the problem was found.
+	 * 
+	 * @return The property ID, or null if the problem is with the module itself
+	 */
+	public String getPropertyID() {
+		return this.propertyID;
+	}
+	
+	/**
+	 * Retrieves the offending value.
+	 * 
+	 * @return The value, or null if not applicable
+	 */
+	public String getValue() {
+		return this.value;
+	}
+	
+	/**
+	 * Retrieves the description of the problem.
+	 * 
+	 * @return The message
+	 */
+	public String getMessage() {
+		return this.message;
+	}
+	
+	@Override
+	public String toString() {
+		
+		String location = (moduleName == null) ? "" : "{" + moduleName + "}";
+		if(propertyID != null) {
+			location += (location.isEmpty() ? "" : " ") + "<" + propertyID + ">";
+		}
+		
+		return type + " " + location + ": " + message;
+	}
+
+}
@@ -1,6 +1,10 @@
 package org.akprogdevs.sconfig.write;
 
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Predicate;
+import java.util.stream.Stream;
 
 import org.akprogdevs.sconfig.classes.*;
 import org.akprogdevs.sconfig.classes.Module;
@@ -9,12 +13,21 @@ import org.akprogdevs.sconfig.classes.Module;
  * The Builder class is a helper class which will build an existing 
  * Configuration to help manage the parts of a Configuration without focusing on the data. 
  * 
+ * <p>Properties and modules can also be added in bulk, through {@code addProperties} and
+ * {@code addModule}. These are only gathered at first, and added to the Configuration by
+ * {@code build()} - the lists and indexes of the Configuration and its modules are sized once
+ * for everything added, and duplicates are found in a single pass through the indexes.</p>
+ * 
  * @author AK Program Developers
  *
  */
 public class Builder {
 
 	private Configuration config = null;
+	//Properties and modules added in bulk, not added to the Configuration until build()
+	private ArrayList<Property> pendingProperties = new ArrayList<>();
+	private LinkedHashMap<String, ArrayList<Property>> pendingModules = new LinkedHashMap<>();
+	private int duplicateCount = 0;
 	
 	/**
 	 * Default constructor that builds a brand-new Configuration.
@@ -33,6 +46,130 @@ public class Builder {
 		this.config = config;
 	}
 	
+	/**
+	 * Constructor that builds a brand-new Configuration, with room for the number of
+	 * top-level properties and modules specified.
+	 * 
+	 * @param propertyCapacity Expected number of top-level properties
+	 * @param moduleCapacity Expected number of modules
+	 */
+	public Builder(int propertyCapacity, int moduleCapacity) {
+		this.config = new Configuration(propertyCapacity, moduleCapacity);
+	}
+	
+	/**
+	 * Gathers top-level properties to be added by {@code build()}, one for each entry of the map
+	 * in its iteration order.
+	 * 
+	 * @param properties Property IDs mapped to their values
+	 * @return This Builder
+	 */
+	public Builder addProperties(Map<String, String> properties) {
+		
+		pendingProperties.ensureCapacity(pendingProperties.size() + properties.size());
+		for(Map.Entry<String, String> entry : properties.entrySet()) {
+			pendingProperties.add(new Property(entry.getKey(), entry.getValue()));
+		}
+		
+		return this;
+	}
+	
+	/**
+	 * Gathers top-level properties to be added by {@code build()}, in the order of the stream.
+	 * 
+	 * @param properties Stream of the properties to be added
+	 * @return This Builder
+	 */
+	public Builder addProperties(Stream<Property> properties) {
+		properties.forEachOrdered(pendingProperties::add);
+		return this;
+	}
+	
+	/**
+	 * Gathers a module to be added by {@code build()}, with a property for each entry of the
+	 * map in its iteration order. If the module is already part of the Configuration, or was
+	 * added before, the properties are added to that module.
+	 * 
+	 * @param moduleName Name of the module
+	 * @param properties Property IDs mapped to their values
+	 * @return This Builder
+	 */
+	public Builder addModule(String moduleName, Map<String, String> properties) {
+		
+		ArrayList<Property> pending = pendingModule(moduleName);
+		
+		pending.ensureCapacity(pending.size() + properties.size());
+		for(Map.Entry<String, String> entry : properties.entrySet()) {
+			pending.add(new Property(entry.getKey(), entry.getValue()));
+		}
+		
+		return this;
+	}
+	
+	/**
+	 * Gathers a module to be added by {@code build()}, with the properties of the stream in
+	 * their order. If the module is already part of the Configuration, or was added before,
+	 * the properties are added to that module.
+	 * 
+	 * @param moduleName Name of the module
+	 * @param properties Stream of the properties to be added
+	 * @return This Builder
+	 */
+	public Builder addModule(String moduleName, Stream<Property> properties) {
+		properties.forEachOrdered(pendingModule(moduleName)::add);
+		return this;
+	}
+	
+	/**
+	 * Adds the properties and modules gathered by {@code addProperties} and {@code addModule}
+	 * to the Configuration. Properties whose ID is already taken, either in the Configuration
+	 * or by a property gathered earlier, are skipped - the same as {@code addProperty} does.
+	 * Their number is available from {@code getDuplicateCount()} afterwards.
+	 * 
+	 * @return The Configuration of this Builder
+	 */
+	public Configuration build() {
+		
+		int duplicates = 0;
+		
+		config.ensurePropertyCapacity(config.getPropertyCount() + pendingProperties.size());
+		duplicates += addAll(config::addExistingProperty, pendingProperties);
+		
+		config.ensureModuleCapacity(config.getModuleCount() + pendingModules.size());
+		for(Map.Entry<String, ArrayList<Property>> entry : pendingModules.entrySet()) {
+			
+			ArrayList<Property> properties = entry.getValue();
+			Module module = config.getModule(entry.getKey());
+			
+			if(module == null) {
+				//Filled before it is added, so listeners are told about the whole module at once
+				module = new Module(entry.getKey(), properties.size());
+				duplicates += addAll(module::addExistingProperty, properties);
+				config.addExistingModule(module);
+			}
+			else {
+				module.ensurePropertyCapacity(module.getPropertyCount() + properties.size());
+				duplicates += addAll(module::addExistingProperty, properties);
+			}
+		}
+		
+		this.pendingProperties = new ArrayList<>();
+		this.pendingModules = new LinkedHashMap<>();
+		this.duplicateCount = duplicates;
+		
+		return this.config;
+	}
+	
+	/**
+	 * Retrieves the number of properties skipped by the last call to {@code build()}
+	 * because their ID was already taken.
+	 * 
+	 * @return Number of duplicate properties
+	 */
+	public int getDuplicateCount() {
+		return this.duplicateCount;
+	}
+	
 	/**
 	 * Retrieves the pointer to this Builder's Configuration.
 	 * 
@@ -66,7 +203,7 @@ public class Builder {
 	 * @return int number of Modules
 	 */
 	public int getModuleCount() {
-		return retrieveConfigModules().size();
+		return this.config.getModuleCount();
 	}
 	
 	/**
@@ -75,7 +212,7 @@ public class Builder {
 	 * @return int number of Properties
 	 */
 	public int getPropertyCount() {
-		return retrieveConfigProperties().size();
+		return this.config.getPropertyCount();
 	}
 	
 	/**
@@ -94,6 +231,23 @@ public class Builder {
 		return this.config.toString();
 	}
 	
+	//Gathered properties of a module, module names are compared the same way as by the Configuration
+	private ArrayList<Property> pendingModule(String moduleName) {
+		return pendingModules.computeIfAbsent(SymbolTable.normalize(moduleName), name -> new ArrayList<>());
+	}
+	
+	//Add the properties to a Module or the Configuration, returning how many were duplicates
+	private static int addAll(Predicate<Property> container, ArrayList<Property> properties) {
+		
+		int duplicates = 0;
+		for(int i = 0; i < properties.size(); i++) {
+			if(!container.test(properties.get(i))) {
+				duplicates++;
+			}
+		}
+		return duplicates;
+	}
+
 	
 
 }
@@ -0,0 +1,159 @@
+package org.akprogdevs.sconfig.write;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * An {@code Appendable} that encodes characters as UTF-8 straight into a channel. Characters
+ * are gathered in a small buffer, encoded into a direct {@code ByteBuffer} and written out
+ * whenever it fills up, so the exported Configuration never exists as a whole in memory.
+ *
+ * <p>The encoder and buffers are reused for every channel opened, which is why an appender
+ * is not thread-safe.</p>
+ *
+ * @author AK Program Developers
+ *
+ */
+final class ChannelAppender implements Appendable {
+	
+	private final static int CHAR_BUFFER_SIZE = 8 * 1024;
+	private final static int BYTE_BUFFER_SIZE = 32 * 1024;
+	
+	private final CharsetEncoder encoder = StandardCharsets.UTF_8.newEncoder()
+			.onMalformedInput(CodingErrorAction.REPORT)
+			.onUnmappableCharacter(CodingErrorAction.REPORT);
+	private final CharBuffer chars = CharBuffer.allocate(CHAR_BUFFER_SIZE);
+	private final ByteBuffer bytes = ByteBuffer.allocateDirect(BYTE_BUFFER_SIZE);
+	
+	private WritableByteChannel channel = null;
+	private long bytesWritten = 0;
+	
+	/**
+	 * Starts appending to the channel specified, discarding any state left from an
+	 * earlier channel.
+	 *
+	 * @param channel Destination channel
+	 */
+	void open(WritableByteChannel channel) {
+		this.channel = channel;
+		this.bytesWritten = 0;
+		encoder.reset();
+		chars.clear();
+		bytes.clear();
+	}
+	
+	/**
+	 * Encodes and writes out everything appended so far. The appender must be opened again
+	 * before it can be used after this call.
+	 *
+	 * @throws IOException If the channel cannot be written to
+	 */
+	void finish() throws IOException {
+		
+		encode(true);
+		
+		CoderResult result;
+		while((result = encoder.flush(bytes)).isOverflow()) {
+			drain();
+		}
+		check(result);
+		drain();
+		
+		this.channel = null;
+	}
+	
+	/**
+	 * Retrieves the number of bytes written to the channel since it was opened.
+	 *
+	 * @return Number of bytes written
+	 */
+	long bytesWritten() {
+		return this.bytesWritten;
+	}
+	
+	@Override
+	public Appendable append(CharSequence csq) throws IOException {
+		
+		if(csq == null) {
+			csq = "null";
+		}
+		return append(csq, 0, csq.length());
+	}
+	
+	@Override
+	public Appendable append(CharSequence csq, int start, int end) throws IOException {
+		
+		if(csq == null) {
+			csq = "null";
+		}
+		
+		while(start < end) {
+			
+			if(!chars.hasRemaining()) {
+				encode(false);
+			}
+			
+			int count = Math.min(end - start, chars.remaining());
+			
+			if(csq instanceof String) {
+				chars.put((String) csq, start, start + count);
+			}
+			else {
+				for(int i = start; i < start + count; i++) {
+					chars.put(csq.charAt(i));
+				}
+			}
+			
+			start += count;
+		}
+		
+		return this;
+	}
+	
+	@Override
+	public Appendable append(char c) throws IOException {
+		
+		if(!chars.hasRemaining()) {
+			encode(false);
+		}
+		chars.put(c);
+		
+		return this;
+	}
+	
+	//Encode the gathered characters, a trailing half of a surrogate pair is kept for later
+	private void encode(boolean endOfInput) throws IOException {
+		
+		chars.flip();
+		
+		CoderResult result;
+		while((result = encoder.encode(chars, bytes, endOfInput)).isOverflow()) {
+			drain();
+		}
+		check(result);
+		
+		chars.compact();
+	}
+	
+	private void drain() throws IOException {
+		
+		bytes.flip();
+		while(bytes.hasRemaining()) {
+			bytesWritten += channel.write(bytes);
+		}
+		bytes.clear();
+	}
+	
+	private static void check(CoderResult result) throws IOException {
+		if(result.isError()) {
+			result.throwException();
+		}
+	}
+
+}
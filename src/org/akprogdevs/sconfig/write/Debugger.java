@@ -17,9 +17,9 @@ public class Debugger {
 		conf.addProperty("prop1", "val1");
 		conf.addModule("mod1");
 		conf.addModule("mod2");
-		conf.retrieveModules().get(0).addProperty("prop2", "val2");
-		conf.retrieveModules().get(0).addProperty("prop3", "val3");
-		conf.retrieveModules().get(1).addProperty("prop4", "val4");
+		conf.getModule("mod1").addProperty("prop2", "val2");
+		conf.getModule("mod1").addProperty("prop3", "val3");
+		conf.getModule("mod2").addProperty("prop4", "val4");
 		conf.addProperty("prop5", "val5");
 		conf.addProperty("prop6", "val6");
 		
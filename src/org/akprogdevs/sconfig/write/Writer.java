@@ -1,8 +1,20 @@
 package org.akprogdevs.sconfig.write;
 
 import java.io.*;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ThreadLocalRandom;
 
 import org.akprogdevs.sconfig.classes.Configuration;
+import org.akprogdevs.sconfig.metrics.Metrics;
+import org.akprogdevs.sconfig.metrics.WriteEvent;
 
 /**
  * This class contains a few writer methods to help write configuration files to a
@@ -16,7 +28,12 @@ import org.akprogdevs.sconfig.classes.Configuration;
  */
 public class Writer {
 
+	private final static String EXTENSION = ".scnfg";
+	
 	private Builder bldr = null;
+	private ChannelAppender appender = null;
+	private ForkJoinPool exportPool = null;
+	private String trailingComment = null;
 	
 	/**
 	 * Default constructor that initializes a Builder with an empty Configuration.
@@ -48,6 +65,33 @@ public class Writer {
 		return this.bldr;
 	}
 	
+	/**
+	 * Sets the pool the modules are converted on by the writer methods. With a pool, modules
+	 * are converted to text concurrently and written out in order, the file is identical to
+	 * the one written without a pool.
+	 * 
+	 * @param pool The pool to convert modules on, or null to convert them on the calling thread
+	 */
+	public void setExportPool(ForkJoinPool pool) {
+		this.exportPool = pool;
+	}
+	
+	/**
+	 * Sets a comment written on a line of its own after the end of the Configuration. Everything
+	 * after the {@code {scnfg:end}} line is ignored when the file is read, so the comment can
+	 * carry information for the program writing the file without changing the Configuration.
+	 * 
+	 * @param comment The comment, without the leading {@code $}, or null for none
+	 */
+	public void setTrailingComment(String comment) {
+		
+		if(comment != null && (comment.indexOf('\n') >= 0 || comment.indexOf('\r') >= 0)) {
+			throw new IllegalArgumentException("Comment must fit on a single line: " + comment);
+		}
+		
+		this.trailingComment = comment;
+	}
+	
 	/**
 	 * 
 	 * Writes the Configuration file via a {@code BufferedWriter} to the destination (path) specified. The path should
@@ -67,11 +111,15 @@ public class Writer {
 	 */
 	public void bufferedWriter(String path) throws IOException {
 		
-		String output = this.bldr.toString();
-		BufferedWriter writer = new BufferedWriter(new FileWriter(path + ".scnfg"));
-		      
-		writer.write(output);
-		writer.close();
+		WriteEvent event = new WriteEvent();
+		event.begin();
+		long start = Metrics.start();
+		
+		try(BufferedWriter writer = new BufferedWriter(new FileWriter(path + EXTENSION))) {
+			serialize(writer);
+		}
+		
+		written(event, start, "bufferedWriter", new File(path + EXTENSION), -1);
 	}
 	
 	/**
@@ -93,15 +141,163 @@ public class Writer {
 	 */
 	public void printWriter(String path) throws IOException{
 		
-		String output = this.bldr.toString();
+		WriteEvent event = new WriteEvent();
+		event.begin();
+		long start = Metrics.start();
 		
-		File file = new File(path + ".scnfg");
+		File file = new File(path + EXTENSION);
 		file.getParentFile().mkdirs();
-		PrintWriter pw = new PrintWriter(new FileWriter(file));
 		
-		pw.print(output);
-		pw.close();
+		try(PrintWriter pw = new PrintWriter(new BufferedWriter(new FileWriter(file)))) {
+			serialize(pw);
+		}
+		
+		written(event, start, "printWriter", file, -1);
+		
+	}
+	
+	/**
+	 * 
+	 * Writes the Configuration file via a {@code FileChannel} to the destination (path) specified,
+	 * see {@link #channelWriter(String, boolean)}. The file is not forced to the storage device.
+	 * 
+	 * @param path Path of the destination configuration file
+	 * @throws IOException
+	 */
+	public void channelWriter(String path) throws IOException {
+		channelWriter(path, false);
+	}
+	
+	/**
+	 * 
+	 * Writes the Configuration file via a {@code FileChannel} to the destination (path) specified,
+	 * replacing any existing file atomically. The Configuration is streamed as UTF-8 into a temporary
+	 * file next to the destination, which is then moved over the destination - other processes
+	 * reading the destination will see either the old or the new file, never a half-written one.
+	 * The path should meet the following conditions:
+	 * 
+	 * <ul>
+	 * 	<li>The path can be either relative or absolute,</li>
+	 * 	<li>The path must specify the file name,</li>
+	 *	<li>The file name at the end of the path does not need an extension specified</li>
+	 * </ul>
+	 * 
+	 * Note that the encoder and buffers are reused between calls, a Writer should therefore not
+	 * be used by several threads at once.
+	 * 
+	 * @param path Path of the destination configuration file
+	 * @param force True to force the file (and its directory) to the storage device before 
+	 * 			returning, so it survives a crash of the machine
+	 * @throws IOException
+	 */
+	public void channelWriter(String path, boolean force) throws IOException {
+		
+		WriteEvent event = new WriteEvent();
+		event.begin();
+		long start = Metrics.start();
+		
+		Path target = Paths.get(path + EXTENSION).toAbsolutePath();
+		Path directory = target.getParent();
+		Files.createDirectories(directory);
+		
+		if(this.appender == null) {
+			this.appender = new ChannelAppender();
+		}
+		
+		Path temp = null;
+		boolean moved = false;
+		
+		try {
+			
+			FileChannel channel = null;
+			
+			//Temporary file next to the destination, so the move stays on the same file system
+			while(channel == null) {
+				temp = directory.resolve("." + target.getFileName() + "."
+						+ Long.toHexString(ThreadLocalRandom.current().nextLong()) + ".tmp");
+				try {
+					channel = FileChannel.open(temp, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+				} catch (FileAlreadyExistsException e) {
+					//Try again with another name
+				}
+			}
+			
+			try {
+				appender.open(channel);
+				serialize(appender);
+				appender.finish();
+				
+				if(force) {
+					channel.force(true);
+				}
+			} finally {
+				channel.close();
+			}
+			
+			try {
+				Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+			} catch (AtomicMoveNotSupportedException e) {
+				Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING);
+			}
+			moved = true;
+			
+			if(force) {
+				forceDirectory(directory);
+			}
+			
+		} finally {
+			if(!moved && temp != null) {
+				Files.deleteIfExists(temp);
+			}
+		}
+		
+		written(event, start, "channelWriter", target.toFile(), appender.bytesWritten());
+		
+	}
+	
+	private void serialize(Appendable out) throws IOException {
+		
+		if(exportPool == null) {
+			this.bldr.retrieveConfig().serializeTo(out);
+		}
+		else {
+			this.bldr.retrieveConfig().serializeTo(out, exportPool);
+		}
+		
+		if(trailingComment != null) {
+			out.append(System.lineSeparator()).append('$').append(trailingComment).append(System.lineSeparator());
+		}
+	}
+	
+	//Record a completed write in the metrics and, if it is recording, JDK Flight Recorder
+	private static void written(WriteEvent event, long start, String method, File file, long bytes) {
+		
+		Metrics.stop(Metrics.Operation.WRITE, start);
+		
+		boolean commit = event.shouldCommit();
+		if(bytes < 0 && (commit || Metrics.isEnabled())) {
+			//The size is only known from the file when the characters went through a java.io.Writer
+			bytes = file.length();
+		}
+		
+		Metrics.addBytesWritten(bytes);
+		
+		if(commit) {
+			event.path = file.getPath();
+			event.method = method;
+			event.bytes = bytes;
+			event.commit();
+		}
+	}
+	
+	//Make the rename itself durable, not every platform allows a directory to be opened
+	private static void forceDirectory(Path directory) {
 		
+		try(FileChannel channel = FileChannel.open(directory, StandardOpenOption.READ)) {
+			channel.force(true);
+		} catch (IOException e) {
+			//The file contents are already forced, only the rename may be lost on a crash
+		}
 	}
 	
 	
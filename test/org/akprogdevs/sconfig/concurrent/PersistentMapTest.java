@@ -0,0 +1,234 @@
+package org.akprogdevs.sconfig.concurrent;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Compares PersistentMap with a LinkedHashMap receiving the same changes - the same keys
+ * mapped to the same values, listed in the same order - including keys whose hashes collide,
+ * enough removals to rebuild the map several times, and the versions left behind by changes.
+ *
+ * @author AK Program Developers
+ *
+ */
+class PersistentMapTest {
+	
+	@Test
+	void randomChangesMatchLinkedHashMap() {
+		
+		Random random = new Random(42);
+		List<String> keys = keys(random, 300);
+		
+		PersistentMap<String> map = PersistentMap.empty();
+		LinkedHashMap<String, String> expected = new LinkedHashMap<>();
+		
+		//Versions kept along the way, with what they held at the time
+		ArrayList<PersistentMap<String>> versions = new ArrayList<>();
+		ArrayList<LinkedHashMap<String, String>> versionContents = new ArrayList<>();
+		
+		for(int i = 0; i < 50000; i++) {
+			
+			String key = keys.get(random.nextInt(keys.size()));
+			
+			//Mostly additions at first, mostly removals later, so the map grows and shrinks
+			boolean add = random.nextInt(100) < ((i / 10000) % 2 == 0 ? 70 : 30);
+			if(add) {
+				String value = "value" + i;
+				map = map.with(key, value);
+				expected.put(key, value);
+			}
+			else {
+				map = map.without(key);
+				expected.remove(key);
+			}
+			
+			if(i % 500 == 0) {
+				assertMatches(expected, map);
+			}
+			if(i % 2000 == 0) {
+				versions.add(map);
+				versionContents.add(new LinkedHashMap<>(expected));
+			}
+		}
+		
+		assertMatches(expected, map);
+		for(int i = 0; i < versions.size(); i++) {
+			assertMatches(versionContents.get(i), versions.get(i));
+		}
+	}
+	
+	@Test
+	void collidingKeys() {
+		
+		//Every key has the same String hash, so they all land in a single collision bucket
+		List<String> keys = collidingKeys(5);
+		assertEquals(32, keys.size());
+		
+		PersistentMap<String> map = PersistentMap.empty();
+		LinkedHashMap<String, String> expected = new LinkedHashMap<>();
+		for(String key : keys) {
+			map = map.with(key, key.toLowerCase());
+			expected.put(key, key.toLowerCase());
+		}
+		assertMatches(expected, map);
+		
+		//Replacing keeps the position, removing leaves the others in place
+		PersistentMap<String> full = map;
+		for(int i = 0; i < keys.size(); i += 3) {
+			map = map.with(keys.get(i), "replaced");
+			expected.put(keys.get(i), "replaced");
+		}
+		for(int i = 1; i < keys.size(); i += 2) {
+			map = map.without(keys.get(i));
+			expected.remove(keys.get(i));
+		}
+		assertMatches(expected, map);
+		
+		assertEquals(keys.size(), full.size());
+		assertEquals(keys.get(1).toLowerCase(), full.get(keys.get(1)));
+		assertNull(map.get(keys.get(1)));
+		
+		//Removed keys are gone from the bucket they shared with the others
+		assertFalse(map.containsKey(keys.get(3)));
+		assertEquals("replaced", map.get(keys.get(0)));
+	}
+	
+	@Test
+	void removalsRebuildWithoutLosingOrder() {
+		
+		Random random = new Random(7);
+		PersistentMap<String> map = PersistentMap.empty();
+		LinkedHashMap<String, String> expected = new LinkedHashMap<>();
+		
+		for(int i = 0; i < 5000; i++) {
+			map = map.with("key" + i, "value" + i);
+			expected.put("key" + i, "value" + i);
+		}
+		
+		//Removing all but a few entries leaves more gaps than entries several times over
+		ArrayList<String> removals = new ArrayList<>(expected.keySet());
+		Collections.shuffle(removals, random);
+		for(int i = 0; i < 4950; i++) {
+			map = map.without(removals.get(i));
+			expected.remove(removals.get(i));
+			if(i % 97 == 0) {
+				assertMatches(expected, map);
+			}
+		}
+		assertMatches(expected, map);
+		
+		//Entries added after the rebuilds still come last
+		for(int i = 5000; i < 5100; i++) {
+			map = map.with("key" + i, "value" + i);
+			expected.put("key" + i, "value" + i);
+		}
+		assertMatches(expected, map);
+		
+		//Removing everything leaves the empty map
+		for(String key : new ArrayList<>(expected.keySet())) {
+			map = map.without(key);
+		}
+		assertSame(PersistentMap.empty(), map);
+	}
+	
+	@Test
+	void unchangedMapIsReturned() {
+		
+		PersistentMap<String> map = PersistentMap.<String>empty().with("a", "1");
+		String value = map.get("a");
+		
+		assertSame(map, map.with("a", value));
+		assertSame(map, map.without("missing"));
+	}
+	
+	@Test
+	void builtMapMatchesChanges() {
+		
+		Random random = new Random(11);
+		List<String> keys = keys(random, 2000);
+		
+		//Values with repeated keys, of which the last one wins in the position of the first
+		ArrayList<String[]> values = new ArrayList<>();
+		LinkedHashMap<String, String> expected = new LinkedHashMap<>();
+		for(int i = 0; i < 3000; i++) {
+			String key = keys.get(random.nextInt(keys.size()));
+			values.add(new String[] {key, "value" + i});
+			expected.put(key, "value" + i);
+		}
+		
+		PersistentMap<String[]> built = PersistentMap.of(values, value -> value[0]);
+		assertEquals(expected.size(), built.size());
+		
+		int position = 0;
+		ArrayList<String> order = new ArrayList<>(expected.keySet());
+		for(Map.Entry<String, String[]> entry : built.entrySet()) {
+			String key = order.get(position++);
+			assertEquals(key, entry.getKey());
+			assertEquals(expected.get(key), entry.getValue()[1]);
+			assertSame(entry.getValue(), built.get(key));
+		}
+		
+		//The built map takes further changes like any other
+		PersistentMap<String[]> changed = built.without(order.get(0)).with("new", new String[] {"new", "value"});
+		assertEquals(built.size(), changed.size());
+		assertNull(changed.get(order.get(0)));
+		assertEquals("new", last(changed));
+	}
+	
+	//Checks the contents and the order of the map
+	private static void assertMatches(LinkedHashMap<String, String> expected, PersistentMap<String> map) {
+		
+		assertEquals(expected.size(), map.size());
+		assertEquals(new ArrayList<>(expected.entrySet()), new ArrayList<>(map.entrySet()));
+		for(Map.Entry<String, String> entry : expected.entrySet()) {
+			assertEquals(entry.getValue(), map.get(entry.getKey()));
+		}
+	}
+	
+	private static String last(PersistentMap<?> map) {
+		
+		String last = null;
+		for(String key : map.keySet()) {
+			last = key;
+		}
+		return last;
+	}
+	
+	//Random keys mixed with keys whose hashes collide
+	private static List<String> keys(Random random, int count) {
+		
+		ArrayList<String> keys = new ArrayList<>(collidingKeys(4));
+		while(keys.size() < count) {
+			keys.add("key" + random.nextInt(count * 10));
+		}
+		return keys;
+	}
+	
+	//"Aa" and "BB" have the same hash, and so does every string built from them of the same length
+	private static List<String> collidingKeys(int blocks) {
+		
+		ArrayList<String> keys = new ArrayList<>();
+		keys.add("");
+		for(int i = 0; i < blocks; i++) {
+			ArrayList<String> longer = new ArrayList<>();
+			for(String key : keys) {
+				longer.add(key + "Aa");
+				longer.add(key + "BB");
+			}
+			keys = longer;
+		}
+		return keys;
+	}
+
+}
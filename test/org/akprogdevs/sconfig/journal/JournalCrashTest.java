@@ -0,0 +1,172 @@
+package org.akprogdevs.sconfig.journal;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.TreeMap;
+
+import org.akprogdevs.sconfig.classes.Configuration;
+import org.akprogdevs.sconfig.classes.Property;
+import org.akprogdevs.sconfig.write.Writer;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Rebuilds the files a crash leaves behind at each step of a compaction, and checks that
+ * reopening the Journal neither loses changes nor applies them twice. The changes journaled
+ * before the compaction (remove B, then rename A to B) and after it (add C, then rename C to D)
+ * give a different result when replayed twice, so a record replayed on top of a file or
+ * journal that already contains it shows up as a missing or extra property.
+ *
+ * @author AK Program Developers
+ *
+ */
+class JournalCrashTest {
+	
+	private final static String EXPECTED = "{B=1, D=3}";
+	
+	@TempDir
+	Path directory;
+	
+	private Path file;
+	private Path journalFile;
+	private Path compactingFile;
+	
+	//Configuration file before the compaction, and after it
+	private byte[] originalFile;
+	private byte[] compactedFile;
+	//Journal moved aside by the compaction, and the journal started after it
+	private byte[] compactedJournal;
+	private byte[] currentJournal;
+	
+	@BeforeEach
+	void compact() throws IOException {
+		
+		file = directory.resolve("config.scnfg");
+		journalFile = Paths.get(file + ".journal");
+		compactingFile = Paths.get(file + ".journal.compacting");
+		
+		Configuration config = new Configuration();
+		config.addProperty("A", "1");
+		config.addProperty("B", "2");
+		new Writer(config).channelWriter(directory.resolve("config").toString(), true);
+		originalFile = Files.readAllBytes(file);
+		
+		Journal journal = new Journal(file, 1000000, Long.MAX_VALUE);
+		journal.get().removeProperty("B");
+		journal.get().getProperty("A").setID("B");
+		journal.sync();
+		compactedJournal = Files.readAllBytes(journalFile);
+		
+		journal.compact();
+		journal.sync();
+		journal.get().addProperty("C", "3");
+		journal.get().getProperty("C").setID("D");
+		journal.close();
+		
+		compactedFile = Files.readAllBytes(file);
+		currentJournal = Files.readAllBytes(journalFile);
+		assertFalse(Files.exists(compactingFile));
+	}
+	
+	@Test
+	void reopenAfterCompaction() throws IOException {
+		assertEquals(EXPECTED, reopen());
+		assertEquals(EXPECTED, reopen());
+	}
+	
+	@Test
+	void crashBeforeFileIsWritten() throws IOException {
+		
+		restore(originalFile, compactedJournal, currentJournal);
+		assertEquals(EXPECTED, reopen());
+		assertFalse(Files.exists(compactingFile));
+	}
+	
+	@Test
+	void crashBeforeCompactingJournalIsDeleted() throws IOException {
+		
+		restore(compactedFile, compactedJournal, currentJournal);
+		assertEquals(EXPECTED, reopen());
+	}
+	
+	@Test
+	void crashDuringRecovery() throws IOException {
+		
+		restore(originalFile, compactedJournal, currentJournal);
+		reopen();
+		byte[] recoveredFile = Files.readAllBytes(file);
+		
+		//After the recovered file was written, before either journal was deleted
+		restore(recoveredFile, compactedJournal, currentJournal);
+		assertEquals(EXPECTED, reopen());
+		
+		//After the current journal was deleted, before the compacting one was
+		restore(recoveredFile, compactedJournal, null);
+		assertEquals(EXPECTED, reopen());
+	}
+	
+	@Test
+	void crashAfterAppendToCompactingJournal() throws IOException {
+		
+		//A failed compaction left its journal behind, and the next one appended the current journal to it
+		byte[] appended = Arrays.copyOf(compactedJournal, compactedJournal.length + currentJournal.length - 4);
+		System.arraycopy(currentJournal, 4, appended, compactedJournal.length, currentJournal.length - 4);
+		
+		restore(originalFile, appended, currentJournal);
+		assertEquals(EXPECTED, reopen());
+	}
+	
+	@Test
+	void tornRecordIsDropped() throws IOException {
+		
+		restore(compactedFile, null, Arrays.copyOf(currentJournal, currentJournal.length - 3));
+		assertEquals("{B=1, C=3}", reopen());
+		
+		//The torn record is cut off, so records appended later are not hidden behind it
+		Journal journal = new Journal(file, 1000000, Long.MAX_VALUE);
+		journal.get().addProperty("E", "5");
+		journal.close();
+		assertEquals("{B=1, C=3, E=5}", reopen());
+	}
+	
+	private void restore(byte[] file, byte[] compacting, byte[] journal) throws IOException {
+		write(this.file, file);
+		write(this.compactingFile, compacting);
+		write(this.journalFile, journal);
+	}
+	
+	private static void write(Path path, byte[] bytes) throws IOException {
+		
+		if(bytes == null) {
+			Files.deleteIfExists(path);
+		}
+		else {
+			Files.write(path, bytes);
+		}
+	}
+	
+	//Opens the Journal the way a restarted process would, and lists its top-level properties
+	private String reopen() throws IOException {
+		
+		Journal journal = new Journal(file, 1000000, Long.MAX_VALUE);
+		try {
+			TreeMap<String, String> values = new TreeMap<>();
+			ArrayList<Property> properties = journal.get().retrieveProperties();
+			for(int i = 0; i < properties.size(); i++) {
+				values.put(properties.get(i).getID(), properties.get(i).getValue());
+			}
+			return values.toString();
+		} finally {
+			journal.close();
+		}
+	}
+
+}